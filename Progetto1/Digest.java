@@ -0,0 +1,227 @@
+import java.util.Arrays;
+
+/**
+ * Rappresenta il valore binario di un hash (digest), ad esempio i 16 byte
+ * prodotti dall'algoritmo MD5. Gli oggetti di questa classe sono immutabili e
+ * permettono di confrontare e combinare gli hash senza passare per la loro
+ * rappresentazione esadecimale, che viene prodotta solo quando richiesta
+ * esplicitamente (ad esempio per la visualizzazione).
+ *
+ * <p>
+ * Un digest di lunghezza 0 ({@link #EMPTY}) corrisponde alla stringa vuota e
+ * viene utilizzato per rappresentare l'assenza di un hash da combinare, come
+ * accade per i nodi senza fratello in un albero di Merkle.
+ */
+public final class Digest {
+
+    /**
+     * Digest vuoto, corrispondente alla stringa esadecimale vuota.
+     */
+    public static final Digest EMPTY = new Digest(new byte[0]);
+
+    /**
+     * Cifre esadecimali in formato ASCII, usate per la codifica senza
+     * creazione di stringhe intermedie.
+     */
+    private static final byte[] HEX = { '0', '1', '2', '3', '4', '5', '6', '7',
+            '8', '9', 'a', 'b', 'c', 'd', 'e', 'f' };
+
+    private final byte[] bytes; // Valore binario del digest
+
+    /**
+     * Costruisce un digest che utilizza direttamente l'array fornito, senza
+     * copiarlo. L'array non deve essere modificato dopo la costruzione.
+     *
+     * @param bytes
+     *                  il valore binario del digest.
+     */
+    Digest(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Crea un digest a partire da una copia dell'array di byte fornito.
+     *
+     * @param bytes
+     *                  il valore binario del digest.
+     * @return il digest corrispondente.
+     * @throws NullPointerException
+     *                                  se l'array è null.
+     */
+    public static Digest of(byte[] bytes) {
+        return new Digest(bytes.clone());
+    }
+
+    /**
+     * Crea un digest a partire dalla sua rappresentazione esadecimale.
+     *
+     * @param hex
+     *                la stringa esadecimale.
+     * @return il digest corrispondente.
+     * @throws IllegalArgumentException
+     *                                      se la stringa è null o non è una
+     *                                      stringa esadecimale valida.
+     */
+    public static Digest fromHex(String hex) {
+        Digest digest = parseHex(hex);
+        if(digest == null)
+            throw new IllegalArgumentException("FH: stringa esadecimale non valida");
+        return digest;
+    }
+
+    /**
+     * Converte una stringa esadecimale in un digest, restituendo null se la
+     * stringa non è una rappresentazione esadecimale valida.
+     *
+     * @param hex
+     *                la stringa esadecimale.
+     * @return il digest corrispondente, oppure null se la stringa non è
+     *         valida.
+     */
+    static Digest parseHex(String hex) {
+    	// Una stringa nulla o di lunghezza dispari non rappresenta un digest
+        if(hex == null || (hex.length() & 1) != 0) return null;
+        if(hex.isEmpty()) return EMPTY;
+
+        byte[] risultato = new byte[hex.length() / 2];
+        for(int i = 0; i < risultato.length; i++) {
+        	// Converto le due cifre che compongono il byte
+            int alto = Character.digit(hex.charAt(2 * i), 16);
+            int basso = Character.digit(hex.charAt(2 * i + 1), 16);
+            if(alto < 0 || basso < 0) return null;
+            risultato[i] = (byte) ((alto << 4) | basso);
+        }
+        return new Digest(risultato);
+    }
+
+    /**
+     * Restituisce la lunghezza del digest in byte.
+     *
+     * @return la lunghezza del digest in byte.
+     */
+    public int length() {
+        return this.bytes.length;
+    }
+
+    /**
+     * Restituisce l'array interno del digest, senza copiarlo. L'array non deve
+     * essere modificato.
+     *
+     * @return i byte del digest.
+     */
+    byte[] bytes() {
+        return this.bytes;
+    }
+
+    /**
+     * Restituisce una copia del valore binario del digest.
+     *
+     * @return una copia dei byte del digest.
+     */
+    public byte[] toByteArray() {
+        return this.bytes.clone();
+    }
+
+    /**
+     * Copia il valore binario del digest nell'array fornito.
+     *
+     * @param dest
+     *                   l'array di destinazione.
+     * @param offset
+     *                   la posizione da cui iniziare la scrittura.
+     */
+    public void copyTo(byte[] dest, int offset) {
+        System.arraycopy(this.bytes, 0, dest, offset, this.bytes.length);
+    }
+
+    /**
+     * Scrive la rappresentazione esadecimale del digest, come caratteri ASCII,
+     * nell'array fornito. È equivalente a {@code toHex().getBytes()}, ma non
+     * crea alcuna stringa intermedia.
+     *
+     * @param dest
+     *                   l'array di destinazione, che deve avere spazio per
+     *                   {@code 2 * length()} byte.
+     * @param offset
+     *                   la posizione da cui iniziare la scrittura.
+     * @return la posizione successiva all'ultimo byte scritto.
+     */
+    public int writeHex(byte[] dest, int offset) {
+        return writeHex(this.bytes, 0, this.bytes.length, dest, offset);
+    }
+
+    /**
+     * Scrive la rappresentazione esadecimale di una porzione di array, come
+     * caratteri ASCII, nell'array di destinazione.
+     *
+     * @param src
+     *                    l'array sorgente.
+     * @param srcOff
+     *                    la posizione del primo byte da codificare.
+     * @param len
+     *                    il numero di byte da codificare.
+     * @param dest
+     *                    l'array di destinazione.
+     * @param destOff
+     *                    la posizione da cui iniziare la scrittura.
+     * @return la posizione successiva all'ultimo byte scritto.
+     */
+    static int writeHex(byte[] src, int srcOff, int len, byte[] dest, int destOff) {
+        for(int i = srcOff; i < srcOff + len; i++) {
+            dest[destOff++] = HEX[(src[i] >> 4) & 0x0f];
+            dest[destOff++] = HEX[src[i] & 0x0f];
+        }
+        return destOff;
+    }
+
+    /**
+     * Restituisce la rappresentazione esadecimale (in minuscolo) del digest.
+     *
+     * @return la stringa esadecimale del digest.
+     */
+    public String toHex() {
+        char[] caratteri = new char[this.bytes.length * 2];
+        for(int i = 0; i < this.bytes.length; i++) {
+            caratteri[2 * i] = (char) HEX[(this.bytes[i] >> 4) & 0x0f];
+            caratteri[2 * i + 1] = (char) HEX[this.bytes[i] & 0x0f];
+        }
+        return new String(caratteri);
+    }
+
+    /**
+     * Aggiunge la rappresentazione esadecimale del digest allo StringBuilder
+     * fornito, senza creare stringhe intermedie.
+     *
+     * @param sb
+     *               lo StringBuilder a cui aggiungere l'hash.
+     * @return lo StringBuilder fornito.
+     */
+    public StringBuilder appendHex(StringBuilder sb) {
+        for(byte b : this.bytes)
+            sb.append((char) HEX[(b >> 4) & 0x0f]).append((char) HEX[b & 0x0f]);
+        return sb;
+    }
+
+    @Override
+    public String toString() {
+        return toHex();
+    }
+
+    /* due digest sono uguali se hanno gli stessi byte */
+    @Override
+    public boolean equals(Object obj) {
+        if(this == obj) return true;
+        if(!(obj instanceof Digest)) return false;
+        return Arrays.equals(this.bytes, ((Digest) obj).bytes);
+    }
+
+    /* implementato in accordo a equals */
+    @Override
+    public int hashCode() {
+    	// I byte di un digest sono già distribuiti uniformemente, quindi i
+    	// primi quattro sono sufficienti come codice hash
+        if(this.bytes.length < 4) return Arrays.hashCode(this.bytes);
+        return ((this.bytes[0] & 0xff) << 24) | ((this.bytes[1] & 0xff) << 16)
+                | ((this.bytes[2] & 0xff) << 8) | (this.bytes[3] & 0xff);
+    }
+}
@@ -0,0 +1,74 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di test per la classe {@link Digest}. Questa classe verifica
+ * la conversione tra rappresentazione binaria ed esadecimale degli hash.
+ * Di seguito, l'elenco dei test inclusi con una breve descrizione:
+ * 
+ * <ul>
+ * <li>{@link #testFromHexToHex()}: Verifica che la conversione da stringa
+ * esadecimale a digest e viceversa restituisca la stringa originale.</li>
+ * 
+ * <li>{@link #testFromHexInvalid()}: Verifica che venga lanciata un'eccezione
+ * per stringhe non esadecimali o di lunghezza dispari.</li>
+ * 
+ * <li>{@link #testEmpty()}: Verifica che la stringa vuota corrisponda al
+ * digest vuoto.</li>
+ * 
+ * <li>{@link #testWriteHex()}: Verifica che la scrittura esadecimale in un
+ * array di byte coincida con i byte della stringa esadecimale.</li>
+ * 
+ * <li>{@link #testEqualsAndHashCode()}: Verifica che due digest con gli stessi
+ * byte siano uguali e abbiano lo stesso {@code hashCode}.</li>
+ * </ul>
+ */
+class DigestTest {
+
+    @Test
+    void testFromHexToHex() {
+        String hex = "65a8e27d8879283831b664bd8b7f0ad4";
+        Digest digest = Digest.fromHex(hex);
+
+        assertEquals(16, digest.length(), "Un digest MD5 dovrebbe essere lungo 16 byte.");
+        assertEquals(hex, digest.toHex(), "La stringa esadecimale non corrisponde all'originale.");
+    }
+
+    @Test
+    void testFromHexInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> Digest.fromHex("HashNonValido"),
+                "Dovrebbe lanciare IllegalArgumentException per una stringa non esadecimale.");
+        assertThrows(IllegalArgumentException.class, () -> Digest.fromHex("abc"),
+                "Dovrebbe lanciare IllegalArgumentException per una stringa di lunghezza dispari.");
+        assertThrows(IllegalArgumentException.class, () -> Digest.fromHex(null),
+                "Dovrebbe lanciare IllegalArgumentException per una stringa null.");
+    }
+
+    @Test
+    void testEmpty() {
+        assertSame(Digest.EMPTY, Digest.fromHex(""), "La stringa vuota dovrebbe corrispondere al digest vuoto.");
+        assertEquals("", Digest.EMPTY.toHex(), "Il digest vuoto dovrebbe avere rappresentazione vuota.");
+    }
+
+    @Test
+    void testWriteHex() {
+        Digest digest = HashUtil.dataToDigest("Alice paga Bob");
+        byte[] buffer = new byte[2 * digest.length()];
+
+        assertEquals(buffer.length, digest.writeHex(buffer, 0), "La posizione finale non è corretta.");
+        assertArrayEquals(digest.toHex().getBytes(), buffer,
+                "La scrittura esadecimale non corrisponde ai byte della stringa.");
+    }
+
+    @Test
+    void testEqualsAndHashCode() {
+        Digest digest1 = Digest.fromHex("d41d8cd98f00b204e9800998ecf8427e");
+        Digest digest2 = Digest.of(digest1.toByteArray());
+
+        assertEquals(digest1, digest2, "Due digest con gli stessi byte dovrebbero essere uguali.");
+        assertEquals(digest1.hashCode(), digest2.hashCode(),
+                "Due digest uguali dovrebbero avere lo stesso hashCode.");
+        assertNotEquals(digest1, Digest.EMPTY, "Digest diversi non dovrebbero essere uguali.");
+    }
+}
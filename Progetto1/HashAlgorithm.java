@@ -0,0 +1,167 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Rappresenta una funzione di hash utilizzabile per costruire e verificare
+ * alberi e prove di Merkle. Le implementazioni standard (MD5, SHA-256,
+ * SHA-512/256 e xxHash64) sono disponibili come costanti della classe
+ * {@link HashAlgorithms}; è possibile fornirne di nuove implementando questa
+ * interfaccia.
+ *
+ * <p>
+ * L'hash di un nodo intermedio è definito, per qualsiasi algoritmo, come
+ * l'hash della concatenazione delle rappresentazioni esadecimali degli hash
+ * dei figli, come descritto nel README del progetto. I metodi
+ * {@code combine} producono lo stesso risultato scrivendo la concatenazione
+ * direttamente in un buffer di byte.
+ *
+ * <p>
+ * Le implementazioni devono poter essere utilizzate contemporaneamente da più
+ * thread.
+ */
+public interface HashAlgorithm {
+
+    /**
+     * Restituisce il nome dell'algoritmo, ad esempio "MD5".
+     *
+     * @return il nome dell'algoritmo.
+     */
+    String getName();
+
+    /**
+     * Restituisce la lunghezza in byte degli hash prodotti dall'algoritmo.
+     *
+     * @return la lunghezza in byte degli hash.
+     */
+    int getDigestLength();
+
+    /**
+     * Calcola l'hash di una porzione di un array di byte, scrivendo il
+     * risultato nell'array di output a partire dalla posizione indicata.
+     *
+     * @param in
+     *                   l'array di byte di cui calcolare l'hash.
+     * @param off
+     *                   la posizione del primo byte da considerare.
+     * @param len
+     *                   il numero di byte da considerare.
+     * @param out
+     *                   l'array in cui scrivere l'hash.
+     * @param outOff
+     *                   la posizione da cui iniziare la scrittura dell'hash.
+     * @throws IllegalArgumentException
+     *                                      se l'array di output non ha spazio
+     *                                      sufficiente.
+     */
+    void hash(byte[] in, int off, int len, byte[] out, int outOff);
+
+    /**
+     * Calcola l'hash dei byte rimanenti di un ByteBuffer, senza modificarne la
+     * posizione. Se il buffer è basato su un array l'hash viene calcolato
+     * direttamente sull'array, altrimenti i byte vengono copiati in un buffer
+     * di appoggio del thread corrente.
+     *
+     * @param in
+     *                   il ByteBuffer di cui calcolare l'hash.
+     * @param out
+     *                   l'array in cui scrivere l'hash.
+     * @param outOff
+     *                   la posizione da cui iniziare la scrittura dell'hash.
+     */
+    default void hash(ByteBuffer in, byte[] out, int outOff) {
+        if(in.hasArray()) {
+            hash(in.array(), in.arrayOffset() + in.position(), in.remaining(), out, outOff);
+        }
+        else {
+            byte[] buffer = HashAlgorithms.scratch(in.remaining());
+            int len = in.remaining();
+            in.duplicate().get(buffer, 0, len);
+            hash(buffer, 0, len, out, outOff);
+        }
+    }
+
+    /**
+     * Calcola l'hash di un array di byte.
+     *
+     * @param input
+     *                  l'array di byte di cui calcolare l'hash.
+     * @return l'hash come digest binario.
+     */
+    default Digest hash(byte[] input) {
+        byte[] risultato = new byte[getDigestLength()];
+        hash(input, 0, input.length, risultato, 0);
+        return new Digest(risultato);
+    }
+
+    /**
+     * Calcola l'hash di un dato a partire dal suo codice hash, come avviene
+     * in {@link HashUtil#dataToHash(Object)}.
+     *
+     * @param data
+     *                 il dato da hashare.
+     * @return l'hash come digest binario.
+     */
+    default Digest dataToDigest(Object data) {
+    	// Scrivo il codice hash in formato big-endian nel buffer del thread
+        byte[] buffer = HashAlgorithms.scratch(4);
+        int valore = data.hashCode();
+        buffer[0] = (byte) (valore >> 24);
+        buffer[1] = (byte) (valore >> 16);
+        buffer[2] = (byte) (valore >> 8);
+        buffer[3] = (byte) valore;
+
+        byte[] risultato = new byte[getDigestLength()];
+        hash(buffer, 0, 4, risultato, 0);
+        return new Digest(risultato);
+    }
+
+    /**
+     * Combina gli hash di due nodi fratelli nell'hash del loro nodo padre,
+     * lavorando direttamente su porzioni di array e senza allocare memoria.
+     * Per ricalcolare l'hash di un nodo senza fratello si passa
+     * {@code rightLen} uguale a 0.
+     *
+     * @param left
+     *                     l'array contenente l'hash sinistro.
+     * @param leftOff
+     *                     la posizione dell'hash sinistro.
+     * @param leftLen
+     *                     la lunghezza dell'hash sinistro.
+     * @param right
+     *                     l'array contenente l'hash destro.
+     * @param rightOff
+     *                     la posizione dell'hash destro.
+     * @param rightLen
+     *                     la lunghezza dell'hash destro, 0 se assente.
+     * @param out
+     *                     l'array in cui scrivere l'hash combinato.
+     * @param outOff
+     *                     la posizione da cui iniziare la scrittura.
+     */
+    default void combine(byte[] left, int leftOff, int leftLen, byte[] right, int rightOff, int rightLen,
+            byte[] out, int outOff) {
+    	// Scrivo la concatenazione esadecimale nel buffer del thread corrente
+        byte[] buffer = HashAlgorithms.scratch(2 * (leftLen + rightLen));
+        int fine = Digest.writeHex(left, leftOff, leftLen, buffer, 0);
+        fine = Digest.writeHex(right, rightOff, rightLen, buffer, fine);
+
+        // Calcolo l'hash della concatenazione
+        hash(buffer, 0, fine, out, outOff);
+    }
+
+    /**
+     * Combina gli hash di due nodi fratelli nell'hash del loro nodo padre. Per
+     * ricalcolare l'hash di un nodo senza fratello si passa
+     * {@link Digest#EMPTY} come secondo argomento.
+     *
+     * @param left
+     *                  l'hash da concatenare a sinistra.
+     * @param right
+     *                  l'hash da concatenare a destra.
+     * @return l'hash combinato come digest binario.
+     */
+    default Digest combine(Digest left, Digest right) {
+        byte[] risultato = new byte[getDigestLength()];
+        combine(left.bytes(), 0, left.length(), right.bytes(), 0, right.length(), risultato, 0);
+        return new Digest(risultato);
+    }
+}
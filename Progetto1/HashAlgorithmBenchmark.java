@@ -0,0 +1,59 @@
+/**
+ * Semplice benchmark che confronta, per ciascun algoritmo di
+ * {@link HashAlgorithms}, il tempo di costruzione di un albero di Merkle e la
+ * velocità di verifica delle prove. Non è un test automatico: va eseguito
+ * manualmente, ad esempio con
+ *
+ * <pre>
+ *     java HashAlgorithmBenchmark [numeroElementi] [numeroProve]
+ * </pre>
+ *
+ * I primi giri servono a riscaldare la JVM e non vengono riportati.
+ */
+public class HashAlgorithmBenchmark {
+
+    private static final int GIRI_RISCALDAMENTO = 3;
+
+    private static final int GIRI_MISURATI = 5;
+
+    public static void main(String[] args) {
+        int numeroElementi = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int numeroProve = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+
+        System.out.printf("%-12s %15s %18s%n", "Algoritmo", "Build (ms)", "Verifiche/s");
+        for(HashAlgorithm algoritmo : HashAlgorithms.values()) {
+            double build = 0;
+            double verifiche = 0;
+            for(int giro = 0; giro < GIRI_RISCALDAMENTO + GIRI_MISURATI; giro++) {
+            	// Misuro la costruzione della lista e dell'albero
+                long inizio = System.nanoTime();
+                HashLinkedList<Long> lista = new HashLinkedList<>(algoritmo);
+                for(long i = 0; i < numeroElementi; i++) lista.addAtTail(i);
+                MerkleTree<Long> albero = new MerkleTree<>(lista);
+                long fineBuild = System.nanoTime();
+
+                // Genero le prove fuori dalla misura e poi ne misuro la verifica
+                MerkleProof[] prove = new MerkleProof[Math.min(numeroProve, 64)];
+                for(int i = 0; i < prove.length; i++)
+                    prove[i] = albero.getMerkleProof((long) (i * (numeroElementi / prove.length)));
+
+                long inizioVerifica = System.nanoTime();
+                int valide = 0;
+                for(int i = 0; i < numeroProve; i++) {
+                    int j = i % prove.length;
+                    if(prove[j].proveValidityOfData((long) (j * (numeroElementi / prove.length)))) valide++;
+                }
+                long fineVerifica = System.nanoTime();
+                if(valide != numeroProve)
+                    throw new IllegalStateException("Prove non valide per " + algoritmo.getName());
+
+                if(giro >= GIRI_RISCALDAMENTO) {
+                    build += (fineBuild - inizio) / 1e6;
+                    verifiche += numeroProve / ((fineVerifica - inizioVerifica) / 1e9);
+                }
+            }
+            System.out.printf("%-12s %15.1f %18.0f%n", algoritmo.getName(), build / GIRI_MISURATI,
+                    verifiche / GIRI_MISURATI);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Classe di utilità che fornisce le implementazioni standard di
+ * {@link HashAlgorithm}. La scelta dell'algoritmo rappresenta un compromesso
+ * tra velocità e sicurezza:
+ * <ul>
+ * <li>{@link #MD5}: algoritmo predefinito del progetto, veloce ma vulnerabile a
+ * collisioni;</li>
+ * <li>{@link #SHA_256} e {@link #SHA_512_256}: algoritmi crittografici sicuri;
+ * SHA-512/256 è in genere più veloce di SHA-256 su processori a 64 bit;</li>
+ * <li>{@link #XXHASH64}: funzione di hash non crittografica molto veloce, da
+ * utilizzare solo quando l'integrità dei dati non deve resistere a
+ * manipolazioni intenzionali.</li>
+ * </ul>
+ */
+public final class HashAlgorithms {
+
+    /**
+     * Algoritmo MD5 (hash di 16 byte).
+     */
+    public static final HashAlgorithm MD5 = new MessageDigestAlgorithm("MD5");
+
+    /**
+     * Algoritmo SHA-256 (hash di 32 byte).
+     */
+    public static final HashAlgorithm SHA_256 = new MessageDigestAlgorithm("SHA-256");
+
+    /**
+     * Algoritmo SHA-512/256 (hash di 32 byte).
+     */
+    public static final HashAlgorithm SHA_512_256 = new MessageDigestAlgorithm("SHA-512/256");
+
+    /**
+     * Algoritmo non crittografico xxHash64 (hash di 8 byte).
+     */
+    public static final HashAlgorithm XXHASH64 = new XXHash64Algorithm();
+
+    /**
+     * Buffer di appoggio riutilizzato da ciascun thread per le operazioni che
+     * richiedono una concatenazione temporanea di byte.
+     */
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[128]);
+
+    /**
+     * Capacità massima del buffer di appoggio conservato da ciascun thread.
+     */
+    private static final int SCRATCH_MASSIMO = 64 * 1024;
+
+    private HashAlgorithms() {
+    }
+
+    /**
+     * Restituisce l'algoritmo standard con il nome indicato.
+     *
+     * @param name
+     *                 il nome dell'algoritmo.
+     * @return l'algoritmo corrispondente.
+     * @throws IllegalArgumentException
+     *                                      se il nome non corrisponde a nessun
+     *                                      algoritmo standard.
+     */
+    public static HashAlgorithm forName(String name) {
+        for(HashAlgorithm algoritmo : values()) {
+            if(algoritmo.getName().equals(name)) return algoritmo;
+        }
+        throw new IllegalArgumentException("FN: algoritmo non supportato " + name);
+    }
+
+    /**
+     * Restituisce tutti gli algoritmi standard.
+     *
+     * @return un array con gli algoritmi standard.
+     */
+    public static HashAlgorithm[] values() {
+        return new HashAlgorithm[] { MD5, SHA_256, SHA_512_256, XXHASH64 };
+    }
+
+    /**
+     * Restituisce il buffer di appoggio del thread corrente, con capacità di
+     * almeno {@code minLength} byte. Il contenuto del buffer è valido solo fino
+     * alla successiva invocazione dallo stesso thread. Le richieste oltre
+     * {@value #SCRATCH_MASSIMO} byte ricevono un array temporaneo, che non
+     * viene conservato per non trattenere memoria per tutta la vita del
+     * thread.
+     *
+     * @param minLength
+     *                      la capacità minima richiesta.
+     * @return il buffer di appoggio del thread corrente.
+     */
+    static byte[] scratch(int minLength) {
+        if(minLength > SCRATCH_MASSIMO) return new byte[minLength];
+
+        byte[] buffer = SCRATCH.get();
+        if(buffer.length < minLength) {
+        	// Ingrandisco il buffer e lo memorizzo per le chiamate successive
+            buffer = new byte[Math.min(Math.max(minLength, 2 * buffer.length), SCRATCH_MASSIMO)];
+            SCRATCH.set(buffer);
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,106 @@
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di test per la classe {@link HashAlgorithms} e per le implementazioni
+ * standard di {@link HashAlgorithm}.
+ * Di seguito, l'elenco dei test inclusi con una breve descrizione:
+ * 
+ * <ul>
+ * <li>{@link #testMD5()}: Verifica che l'algoritmo MD5 coincida con i metodi di
+ * {@link HashUtil}.</li>
+ * 
+ * <li>{@link #testSHA256()}: Verifica l'hash SHA-256 di un vettore di test noto.</li>
+ * 
+ * <li>{@link #testXXHash64()}: Verifica l'hash xxHash64 di vettori di test noti.</li>
+ * 
+ * <li>{@link #testCombine()}: Verifica, per ogni algoritmo, che {@code combine}
+ * coincida con l'hash della concatenazione delle stringhe esadecimali.</li>
+ * 
+ * <li>{@link #testForName()}: Verifica la ricerca di un algoritmo per nome e
+ * l'eccezione per un nome sconosciuto.</li>
+ * 
+ * <li>{@link #testMerkleTreeWithAlgorithm()}: Verifica, per ogni algoritmo, la
+ * costruzione di un albero e la validità delle prove generate.</li>
+ * </ul>
+ */
+class HashAlgorithmsTest {
+
+    @Test
+    void testMD5() {
+        byte[] input = "Hello, World!".getBytes();
+
+        assertEquals(HashUtil.computeMD5(input), HashAlgorithms.MD5.hash(input).toHex(),
+                "L'algoritmo MD5 non coincide con HashUtil.");
+        assertEquals(HashUtil.dataToHash("Alice paga Bob"), HashAlgorithms.MD5.dataToDigest("Alice paga Bob").toHex(),
+                "L'hash del dato non coincide con HashUtil.");
+    }
+
+    @Test
+    void testSHA256() {
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+                HashAlgorithms.SHA_256.hash("abc".getBytes()).toHex(),
+                "L'hash SHA-256 non corrisponde all'atteso.");
+        assertEquals(32, HashAlgorithms.SHA_512_256.getDigestLength(),
+                "SHA-512/256 dovrebbe produrre hash di 32 byte.");
+    }
+
+    @Test
+    void testXXHash64() {
+        assertEquals("ef46db3751d8e999", HashAlgorithms.XXHASH64.hash(new byte[0]).toHex(),
+                "L'hash xxHash64 dell'input vuoto non corrisponde all'atteso.");
+        // Coda di singoli byte
+        assertEquals("44bc2cf5ad770999", HashAlgorithms.XXHASH64.hash("abc".getBytes()).toHex(),
+                "L'hash xxHash64 di \"abc\" non corrisponde all'atteso.");
+        // Un blocco di 32 byte seguito da code di 4 byte e di singoli byte
+        assertEquals("fbcea83c8a378bf1",
+                HashAlgorithms.XXHASH64.hash("Nobody inspects the spammish repetition".getBytes()).toHex(),
+                "L'hash xxHash64 di un input di 39 byte non corrisponde all'atteso.");
+
+        byte[] input = "Hello, World!".getBytes();
+        byte[] output = new byte[10];
+        HashAlgorithms.XXHASH64.hash(input, 0, input.length, output, 2);
+        byte[] atteso = HashAlgorithms.XXHASH64.hash(input).toByteArray();
+        for (int i = 0; i < 8; i++)
+            assertEquals(atteso[i], output[i + 2], "L'hash non è stato scritto nella posizione corretta.");
+    }
+
+    @Test
+    void testCombine() {
+        for (HashAlgorithm algoritmo : HashAlgorithms.values()) {
+            Digest sinistra = algoritmo.dataToDigest("Alice paga Bob");
+            Digest destra = algoritmo.dataToDigest("Bob paga Charlie");
+
+            assertEquals(algoritmo.hash((sinistra.toHex() + destra.toHex()).getBytes()),
+                    algoritmo.combine(sinistra, destra),
+                    "L'hash combinato non corrisponde all'atteso per " + algoritmo.getName());
+        }
+    }
+
+    @Test
+    void testForName() {
+        assertSame(HashAlgorithms.SHA_512_256, HashAlgorithms.forName("SHA-512/256"),
+                "L'algoritmo restituito non è corretto.");
+        assertThrows(IllegalArgumentException.class, () -> HashAlgorithms.forName("CRC32"),
+                "Dovrebbe lanciare IllegalArgumentException per un algoritmo sconosciuto.");
+    }
+
+    @Test
+    void testMerkleTreeWithAlgorithm() {
+        for (HashAlgorithm algoritmo : HashAlgorithms.values()) {
+            HashLinkedList<Long> lista = new HashLinkedList<>(algoritmo);
+            for (int i = 1; i <= 13; i++) lista.addAtTail(111L * i);
+            MerkleTree<Long> albero = new MerkleTree<>(lista);
+
+            assertEquals(algoritmo.getDigestLength(), albero.getRoot().getDigest().length(),
+                    "La radice non ha la lunghezza attesa per " + algoritmo.getName());
+
+            MerkleProof prova = albero.getMerkleProof(555L);
+            assertTrue(prova.proveValidityOfData(555L),
+                    "La prova dovrebbe essere valida per " + algoritmo.getName());
+            assertFalse(prova.proveValidityOfData(556L),
+                    "La prova non dovrebbe essere valida per " + algoritmo.getName());
+        }
+    }
+}
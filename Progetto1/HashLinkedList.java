@@ -1,6 +1,16 @@
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.util.ConcurrentModificationException;
 
 /**
@@ -13,24 +23,68 @@ import java.util.ConcurrentModificationException;
  * <ul>
  * <li>Aggiungere un elemento in testa alla lista</li>
  * <li>Aggiungere un elemento in coda alla lista</li>
+ * <li>Aggiungere in coda, in un'unica operazione, molti elementi i cui hash
+ * vengono calcolati in parallelo</li>
  * <li>Rimuovere un elemento dalla lista in base al dato</li>
+ * <li>Verificare la presenza di un dato o cercarlo in base al suo hash</li>
  * <li>Recuperare una lista ordinata di tutti gli hash contenuti nella
  * lista</li>
  * <li>Costruire una rappresentazione testuale della lista</li>
+ * <li>Elaborare dati e hash tramite stream, anche paralleli</li>
  * </ul>
  *
  * <p>
  * Questa implementazione include ottimizzazioni come il mantenimento di un
  * riferimento all'ultimo nodo della lista (tail), che rende l'inserimento in
- * coda un'operazione O(1).
+ * coda un'operazione O(1). La lista è doppiamente concatenata e mantiene un
+ * indice che associa a ogni hash la catena dei nodi che lo contengono, nello
+ * stesso ordine della lista: la rimozione, la verifica di appartenenza e la
+ * ricerca per hash richiedono quindi tempo O(1) atteso, indipendentemente
+ * dalla lunghezza della lista.
  *
  * <p>
  * La classe utilizza la classe HashUtil per calcolare l'hash MD5 dei dati.
+ * In alternativa è possibile indicare, alla costruzione, un diverso
+ * {@link HashAlgorithm} con cui calcolare gli hash e un {@link LeafEncoder}
+ * che definisce quali byte del dato vengono hashati (per impostazione
+ * predefinita il solo codice hash del dato).
+ *
+ * <p>
+ * Con la modalità {@link HashingMode#LAZY} gli inserimenti non calcolano
+ * l'hash del dato: i nodi restano in attesa finché un'operazione non ne
+ * richiede gli hash, ad esempio {@link #getAllHashes()}, oppure finché non
+ * viene invocato {@link #computePendingHashes()}. In quel momento tutti gli
+ * hash in attesa vengono calcolati insieme, in parallelo se sono numerosi.
  *
  * @param <T>
  *                il tipo generico dei dati contenuti nei nodi della lista. 
  */
 public class HashLinkedList<T> implements Iterable<T> {
+
+    /**
+     * Indica quando viene calcolato l'hash dei dati inseriti nella lista.
+     */
+    public enum HashingMode {
+        /**
+         * L'hash viene calcolato durante l'inserimento del dato.
+         */
+        EAGER,
+        /**
+         * L'hash viene calcolato al primo utilizzo, insieme a quelli di tutti
+         * gli altri dati in attesa.
+         */
+        LAZY
+    }
+
+    // Numero minimo di hash in attesa per cui il calcolo avviene in parallelo
+    private static final int SOGLIA_PARALLELISMO = 1024;
+
+    // Incremento della dimensione dei blocchi separati dallo spliterator
+    private static final int UNITA_BLOCCO = 1 << 10;
+
+    // Dimensione massima dei blocchi separati dallo spliterator
+    private static final int BLOCCO_MASSIMO = 1 << 25;
+
     private Node head; // Primo nodo della lista
 
     private Node tail; // Ultimo nodo della lista
@@ -41,11 +95,122 @@ public class HashLinkedList<T> implements Iterable<T> {
                                  // per l'implementazione dell'iteratore
                                  // fail-fast
 
+    private final HashAlgorithm algoritmo; // Algoritmo usato per gli hash
+
+    private final LeafEncoder<? super T> encoder; // Codifica dei dati
+
+    private final HashMap<Digest, Node> indice; // Primo nodo per ciascun hash
+
+    private final HashingMode modalita; // Modalità di calcolo degli hash
+
+    private final ArrayList<Node> inAttesaTesta; // Nodi senza hash aggiunti in testa
+
+    private final ArrayList<Node> inAttesaCoda; // Nodi senza hash aggiunti in coda
+
     public HashLinkedList() {
+        this(HashAlgorithms.MD5);
+    }
+
+    /**
+     * Costruisce una lista vuota che calcola gli hash dei dati con
+     * l'algoritmo indicato.
+     *
+     * @param algorithm
+     *                      l'algoritmo di hash da utilizzare.
+     * @throws NullPointerException
+     *                                  se l'algoritmo è null.
+     */
+    public HashLinkedList(HashAlgorithm algorithm) {
+        this(algorithm, LeafEncoders.hashCodeEncoder());
+    }
+
+    /**
+     * Costruisce una lista vuota che calcola gli hash dei dati con
+     * l'algoritmo indicato, applicandolo alla codifica prodotta dall'encoder.
+     * In questo modo l'hash di ciascun elemento dipende dal suo contenuto e
+     * non soltanto dal suo codice hash.
+     *
+     * @param algorithm
+     *                      l'algoritmo di hash da utilizzare.
+     * @param encoder
+     *                      l'encoder con cui codificare i dati.
+     * @throws NullPointerException
+     *                                  se l'algoritmo o l'encoder sono null.
+     */
+    public HashLinkedList(HashAlgorithm algorithm, LeafEncoder<? super T> encoder) {
+        this(algorithm, encoder, HashingMode.EAGER);
+    }
+
+    /**
+     * Costruisce una lista vuota che calcola gli hash dei dati con
+     * l'algoritmo e l'encoder indicati, nella modalità specificata. Con la
+     * modalità {@link HashingMode#LAZY} gli inserimenti non calcolano l'hash,
+     * che viene calcolato in blocco al primo utilizzo.
+     *
+     * @param algorithm
+     *                      l'algoritmo di hash da utilizzare.
+     * @param encoder
+     *                      l'encoder con cui codificare i dati.
+     * @param mode
+     *                      la modalità di calcolo degli hash.
+     * @throws NullPointerException
+     *                                  se uno dei parametri è null.
+     */
+    public HashLinkedList(HashAlgorithm algorithm, LeafEncoder<? super T> encoder, HashingMode mode) {
+    	if(algorithm == null)
+    		throw new NullPointerException("HLL: parametro algorithm null");
+    	if(encoder == null)
+    		throw new NullPointerException("HLL: parametro encoder null");
+    	if(mode == null)
+    		throw new NullPointerException("HLL: parametro mode null");
+    	
         this.head = null;
         this.tail = null;
         this.size = 0;
         this.numeroModifiche = 0;
+        this.algoritmo = algorithm;
+        this.encoder = encoder;
+        this.indice = new HashMap<>();
+        this.modalita = mode;
+        this.inAttesaTesta = new ArrayList<>();
+        this.inAttesaCoda = new ArrayList<>();
+    }
+
+    /**
+     * Restituisce l'algoritmo di hash utilizzato dalla lista.
+     *
+     * @return l'algoritmo di hash della lista.
+     */
+    public HashAlgorithm getAlgorithm() {
+        return algoritmo;
+    }
+
+    /**
+     * Restituisce l'encoder con cui vengono codificati i dati della lista.
+     *
+     * @return l'encoder della lista.
+     */
+    public LeafEncoder<? super T> getEncoder() {
+        return encoder;
+    }
+
+    /**
+     * Restituisce la modalità con cui la lista calcola gli hash dei dati.
+     *
+     * @return la modalità di calcolo degli hash.
+     */
+    public HashingMode getHashingMode() {
+        return modalita;
+    }
+
+    /**
+     * Restituisce il numero di dati il cui hash non è ancora stato calcolato.
+     * Nella modalità {@link HashingMode#EAGER} il valore è sempre 0.
+     *
+     * @return il numero di hash in attesa.
+     */
+    public int getPendingHashCount() {
+        return inAttesaTesta.size() + inAttesaCoda.size();
     }
 
     /**
@@ -59,18 +224,33 @@ public class HashLinkedList<T> implements Iterable<T> {
 
     /**
      * Rappresenta un nodo nella lista concatenata.
+     *
+     * <p>
+     * Oltre ai collegamenti della lista, ogni nodo appartiene alla catena dei
+     * nodi con lo stesso hash, ordinata come la lista. Il primo nodo della
+     * catena è quello registrato nell'indice e il suo {@code prevSameHash}
+     * punta all'ultimo nodo della catena, così che l'aggiunta in coda alla
+     * catena richieda tempo costante.
      */
     private class Node {
-        String hash; // Hash del dato
+        Digest hash; // Hash binario del dato
 
         T data; // Dato originale
 
         Node next;
 
+        Node prev;
+
+        Node nextSameHash; // Nodo successivo con lo stesso hash
+
+        Node prevSameHash; // Nodo precedente con lo stesso hash
+
         Node(T data) {
             this.data = data;
-            this.hash = HashUtil.dataToHash(data);
+            // In modalità LAZY l'hash viene calcolato in seguito
+            this.hash = modalita == HashingMode.EAGER ? encoder.digest(data, algoritmo) : null;
             this.next = null;
+            this.prev = null;
         }
     }
 
@@ -90,10 +270,14 @@ public class HashLinkedList<T> implements Iterable<T> {
     	
     	// Collego il nuovo nodo alla testa attuale
         nuovoNodo.next = this.head;
+        if(this.head != null) this.head.prev = nuovoNodo;
         // Aggiorno la testa della lista
         this.head = nuovoNodo;
         // Se la lista è vuota, aggiorno la coda
         if(this.tail == null) this.tail = nuovoNodo;
+        // Il nodo precede tutti gli altri con lo stesso hash
+        if(nuovoNodo.hash != null) indicizzaInTesta(nuovoNodo);
+        else this.inAttesaTesta.add(nuovoNodo);
         
         // Incrementao la dimensione della lista
         this.size++;
@@ -117,10 +301,14 @@ public class HashLinkedList<T> implements Iterable<T> {
     	
     	// Collego il nuovo nodo alla coda attuale
         if(this.tail != null) this.tail.next = nuovoNodo;
+        nuovoNodo.prev = this.tail;
         // Aggiorno la coda della lista
         this.tail = nuovoNodo;
         // Se la lista è vuota, aggiorno anche la testa
         if(this.head == null) this.head = nuovoNodo;
+        // Il nodo segue tutti gli altri con lo stesso hash
+        if(nuovoNodo.hash != null) indicizzaInCoda(nuovoNodo);
+        else this.inAttesaCoda.add(nuovoNodo);
         
         // Incremento la dimensione della lista
         this.size++;
@@ -128,41 +316,185 @@ public class HashLinkedList<T> implements Iterable<T> {
         this.numeroModifiche++;
     }
 
+    /**
+     * Aggiunge in coda alla lista tutti gli elementi della collezione,
+     * nell'ordine restituito dal suo iteratore. Gli hash dei nuovi elementi
+     * vengono calcolati in parallelo e la catena dei nuovi nodi viene
+     * collegata alla lista in un solo passaggio, che conta come un'unica
+     * modifica per gli iteratori fail-fast. Se la collezione contiene un
+     * elemento null la lista non viene modificata.
+     *
+     * @param data
+     *                 la collezione dei dati da aggiungere.
+     * @return true se la lista è stata modificata, false se la collezione è
+     *         vuota.
+     * @throws NullPointerException
+     *                                  se la collezione o uno dei suoi
+     *                                  elementi sono null.
+     */
+    public boolean addAllAtTail(Collection<? extends T> data) {
+    	if(data == null)
+    		throw new NullPointerException("AAAT: parametro data null");
+    	
+    	return addAllAtTail(data.spliterator());
+    }
+
+    /**
+     * Aggiunge in coda alla lista tutti gli elementi restituiti dallo
+     * spliterator, nel loro ordine. Gli hash dei nuovi elementi vengono
+     * calcolati in parallelo sul pool fork-join comune, suddividendo lo
+     * spliterator, e la catena dei nuovi nodi viene collegata alla lista in
+     * un solo passaggio, che conta come un'unica modifica per gli iteratori
+     * fail-fast. Se viene incontrato un elemento null la lista non viene
+     * modificata.
+     *
+     * @param data
+     *                 lo spliterator dei dati da aggiungere.
+     * @return true se la lista è stata modificata, false se lo spliterator
+     *         non contiene elementi.
+     * @throws NullPointerException
+     *                                  se lo spliterator o uno dei suoi
+     *                                  elementi sono null.
+     */
+    public boolean addAllAtTail(Spliterator<? extends T> data) {
+    	if(data == null)
+    		throw new NullPointerException("AAAT: parametro data null");
+    	
+    	// Creo i nuovi nodi, calcolandone gli hash in parallelo se gli elementi
+    	// sono numerosi; l'ordine degli elementi viene mantenuto
+    	boolean parallelo = this.modalita == HashingMode.EAGER && data.estimateSize() >= SOGLIA_PARALLELISMO;
+    	List<Node> nuoviNodi = StreamSupport.stream(data, parallelo)
+    			.map(dato -> {
+    				if(dato == null)
+    					throw new NullPointerException("AAAT: elemento null");
+    				return new Node(dato);
+    			})
+    			.collect(Collectors.toList());
+    	if(nuoviNodi.isEmpty()) return false;
+    	
+    	// Collego tra loro i nuovi nodi e li indicizzo nell'ordine della lista
+    	Node precedente = this.tail;
+    	for(Node nodo : nuoviNodi) {
+    		nodo.prev = precedente;
+    		if(precedente != null) precedente.next = nodo;
+    		else this.head = nodo;
+    		precedente = nodo;
+    		
+    		if(nodo.hash != null) indicizzaInCoda(nodo);
+    		else this.inAttesaCoda.add(nodo);
+    	}
+    	this.tail = precedente;
+    	
+    	// L'intera aggiunta conta come una sola modifica
+    	this.size += nuoviNodi.size();
+    	this.numeroModifiche++;
+    	return true;
+    }
+
     /**
      * Restituisce un'ArrayList contenente tutti gli hash nella lista in ordine.
      *
      * @return una lista con tutti gli hash della lista.
      */
     public ArrayList<String> getAllHashes() {
-    	// Creo un ArrayList per contenere gli hash
-    	ArrayList<String> hashLista = new ArrayList<String>();
+    	// Creo un ArrayList già dimensionato e lo riempio con un'unica scansione
+    	return hashesInto(new ArrayList<String>(this.size));
+    }
+
+    /**
+     * Aggiunge alla collezione fornita tutti gli hash della lista in ordine,
+     * come stringhe esadecimali, con un'unica scansione dei nodi. Se la
+     * collezione è un ArrayList, la sua capacità viene adeguata una sola volta
+     * prima dell'inserimento.
+     *
+     * @param <C>
+     *                        il tipo della collezione di destinazione.
+     * @param destination
+     *                        la collezione in cui aggiungere gli hash.
+     * @return la collezione fornita.
+     * @throws NullPointerException
+     *                                  se la collezione è null.
+     */
+    public <C extends Collection<? super String>> C hashesInto(C destination) {
+    	if(destination == null)
+    		throw new NullPointerException("HI: parametro destination null");
     	
-    	// Creo un iteratore per attraversare la lista
-        Iterator<T> iterator = this.iterator();
-        // Inizio dal primo nodo
-        Node corrente = this.head;
+    	// Preparo la capacità della destinazione per evitare ridimensionamenti
+    	if(destination instanceof ArrayList)
+    		((ArrayList<?>) destination).ensureCapacity(destination.size() + this.size);
+    	
+    	computePendingHashes();
+    	// Scorro i nodi dalla testa alla coda aggiungendo il loro hash
+        for(Node corrente = this.head; corrente != null; corrente = corrente.next)
+        	destination.add(corrente.hash.toHex());
         
-        // Itero attraverso tutti i nodi della lista
-        while(iterator.hasNext()) {
-        	// Ottengo il prossimo dato
-            T data = iterator.next();
-            
-            // Ciclo finché il nodo corrente non è nullo
-            while(corrente != null) {
-            	// Quando trovo il nodo con il dato corretto
-                if(corrente.data.equals(data)) {
-                	// Aggiungo l'hash alla lista
-                	hashLista.add(corrente.hash);
-                	// Esco dal ciclo interno
-                    break;
-                }
-                // Proseguo al prossimo nodo
-                corrente = corrente.next;
-            }
-        }
+        // Restituisco la collezione contenente gli hash
+        return destination;
+    }
+
+    /**
+     * Copia tutti gli hash della lista in ordine, come stringhe esadecimali,
+     * nell'array fornito. Se l'array non è abbastanza grande ne viene creato
+     * uno nuovo della dimensione esatta; se è più grande, l'elemento
+     * successivo all'ultimo hash viene impostato a null, come in
+     * {@link Collection#toArray(Object[])}.
+     *
+     * @param array
+     *                  l'array in cui copiare gli hash.
+     * @return l'array contenente gli hash.
+     * @throws NullPointerException
+     *                                  se l'array è null.
+     */
+    public String[] hashesInto(String[] array) {
+    	// Creo un array della dimensione esatta se quello fornito è troppo piccolo
+    	String[] risultato = array.length >= this.size ? array : new String[this.size];
+    	computePendingHashes();
+    	
+    	int i = 0;
+        for(Node corrente = this.head; corrente != null; corrente = corrente.next)
+        	risultato[i++] = corrente.hash.toHex();
+        // Segnalo la fine degli hash se l'array è più grande del necessario
+        if(i < risultato.length) risultato[i] = null;
+        
+        return risultato;
+    }
+
+    /**
+     * Restituisce un'ArrayList contenente tutti gli hash binari nella lista in
+     * ordine, senza convertirli in stringhe esadecimali.
+     *
+     * @return una lista con tutti gli hash binari della lista.
+     */
+    public ArrayList<Digest> getAllDigests() {
+    	// Creo un ArrayList già dimensionato e lo riempio con un'unica scansione
+    	return digestsInto(new ArrayList<Digest>(this.size));
+    }
+
+    /**
+     * Aggiunge alla collezione fornita tutti gli hash binari della lista in
+     * ordine, con un'unica scansione dei nodi e senza convertirli in stringhe.
+     *
+     * @param <C>
+     *                        il tipo della collezione di destinazione.
+     * @param destination
+     *                        la collezione in cui aggiungere gli hash.
+     * @return la collezione fornita.
+     * @throws NullPointerException
+     *                                  se la collezione è null.
+     */
+    public <C extends Collection<? super Digest>> C digestsInto(C destination) {
+    	if(destination == null)
+    		throw new NullPointerException("DI: parametro destination null");
+    	
+    	// Preparo la capacità della destinazione per evitare ridimensionamenti
+    	if(destination instanceof ArrayList)
+    		((ArrayList<?>) destination).ensureCapacity(destination.size() + this.size);
+    	
+    	computePendingHashes();
+        for(Node corrente = this.head; corrente != null; corrente = corrente.next)
+        	destination.add(corrente.hash);
         
-        // Restituisco la lista contenente tutti gli hash
-        return hashLista;
+        return destination;
     }
 
     /**
@@ -180,35 +512,19 @@ public class HashLinkedList<T> implements Iterable<T> {
      * @return una rappresentazione testuale di tutti i nodi nella lista.
      */
     public String buildNodesString() {
-    	// Utilizzo StringBuilder per concatenare i risultati
-    	StringBuilder sb = new StringBuilder();
-        
-    	// Creo un iteratore per attraversare la lista
-        Iterator<T> iterator = this.iterator();
-        // Inizio dal primo nodo
-        Node corrente = this.head;
+    	// Utilizzo StringBuilder per concatenare i risultati, stimando la
+    	// lunghezza di ogni riga per limitare i ridimensionamenti
+    	StringBuilder sb = new StringBuilder(this.size * (2 * this.algoritmo.getDigestLength() + 32));
+    	computePendingHashes();
         
-        // Itero attraverso tutti i nodi della lista
-        while(iterator.hasNext()) {
-        	// Ottengo il prossimo dato
-            T data = iterator.next();
-            
-            // Ciclo finché il nodo corrente non è nullo
-            while(corrente != null) {
-            	// Quando trovo il nodo con il dato corretto
-                if(corrente.data.equals(data)) {
-                	// Aggiungo il dato alla stringa
-                    sb.append("Dato: ").append(corrente.data)
-                      // Aggiungo l'hash del nodo
-                      .append(", Hash: ").append(corrente.hash)
-                      // Aggiungo una nuova riga per il prossimo nodo
-                      .append("\n");
-                    // Esco dal ciclo interno
-                    break;
-                }
-                // Proseguo al prossimo nodo
-                corrente = corrente.next;
-            }
+        // Scorro i nodi dalla testa alla coda con un'unica scansione
+        for(Node corrente = this.head; corrente != null; corrente = corrente.next) {
+        	// Aggiungo il dato alla stringa
+            sb.append("Dato: ").append(corrente.data).append(", Hash: ");
+            // Aggiungo l'hash del nodo senza creare stringhe intermedie
+            corrente.hash.appendHex(sb);
+            // Aggiungo una nuova riga per il prossimo nodo
+            sb.append("\n");
         }
         
         // Restituisco la stringa finale
@@ -217,6 +533,8 @@ public class HashLinkedList<T> implements Iterable<T> {
 
     /**
      * Rimuove il primo elemento nella lista che contiene il dato specificato.
+     * Il nodo viene individuato tramite l'indice degli hash, quindi
+     * l'operazione richiede tempo O(1) atteso.
      *
      * @param data
      *                 il dato da rimuovere.
@@ -227,49 +545,190 @@ public class HashLinkedList<T> implements Iterable<T> {
 		if(data == null)
 			throw new NullPointerException("R: parametro data null");
 
-		// Creo un iteratore per attraversare la lista
-	    Iterator<T> iterator = this.iterator();
-	    // Inizio dal primo nodo
-	    Node corrente = this.head;
-	    // Inizializzo il nodo precedente come null
-	    Node precedente = null;
-
-	    // Itero attraverso tutti i nodi della lista
-	    while(iterator.hasNext()) {
-	    	// Ottengo il prossimo dato
-	        T dataCorrente = iterator.next();
-	        
-	        // Se il dato corrente è uguale al dato da rimuovere
-	        if(dataCorrente.equals(data)) {
-	        	// Inizio a scorrere i nodi per trovare e rimuovere l'elemento
-	            while(corrente != null) {
-	            	// Se il dato del nodo corrente è quello da rimuovere
-	                if(corrente.data.equals(data)) {
-	                	// Se è il primo nodo, aggiorno la testa
-	                    if(precedente == null) this.head = corrente.next;
-	                    // Altrimenti aggiorno il nodo precedente
-	                    else precedente.next = corrente.next;	                    
-	                    
-	                    // Se è l'ultimo nodo, aggiorno la coda
-	                    if(corrente == this.tail) this.tail = precedente;
-
-	                    // Decremento la dimensione della lista
-	                    this.size--;
-	                    // Aumento il contatore delle modifiche
-	                    this.numeroModifiche++;
-	                    // Ritorno true per indicare che l'elemento è stato rimosso
-	                    return true;
-	                }
-	                // Sposto il precedente al corrente
-	                precedente = corrente;
-	                // Sposto il corrente al prossimo nodo
-	                corrente = corrente.next;
-	            }
-	        }
-	    }
-	    
-	    // Se l'elemento non è stato trovato, ritorno false
-	    return false;
+		// Cerco il primo nodo che contiene il dato
+		Node nodo = cercaNodo(data);
+		if(nodo == null) return false;
+		
+		// Scollego il nodo dalla lista
+		if(nodo.prev == null) this.head = nodo.next;
+		else nodo.prev.next = nodo.next;
+		if(nodo.next == null) this.tail = nodo.prev;
+		else nodo.next.prev = nodo.prev;
+		// Scollego il nodo dalla catena del suo hash
+		rimuoviDallIndice(nodo);
+		
+		// Decremento la dimensione della lista
+		this.size--;
+		// Aumento il contatore delle modifiche
+		this.numeroModifiche++;
+		return true;
+    }
+
+    /**
+     * Verifica se la lista contiene il dato specificato. Il dato viene cercato
+     * tramite l'indice degli hash, in tempo O(1) atteso.
+     *
+     * @param data
+     *                 il dato da cercare.
+     * @return true se la lista contiene il dato, false altrimenti.
+     */
+    public boolean contains(T data) {
+		if(data == null)
+			throw new NullPointerException("C: parametro data null");
+		
+		return cercaNodo(data) != null;
+    }
+
+    /**
+     * Restituisce il primo dato della lista il cui hash corrisponde a quello
+     * indicato, in formato esadecimale. Se l'hash non è esadecimale o nessun
+     * dato ha quell'hash viene restituito null.
+     *
+     * @param hash
+     *                 l'hash del dato da cercare.
+     * @return il primo dato con l'hash indicato, oppure null.
+     */
+    public T findByHash(String hash) {
+		if(hash == null)
+			throw new NullPointerException("FBH: parametro hash null");
+		
+		Digest digest = Digest.parseHex(hash);
+		return digest == null ? null : findByHash(digest);
+    }
+
+    /**
+     * Restituisce il primo dato della lista il cui hash corrisponde al digest
+     * indicato, oppure null se nessun dato ha quell'hash.
+     *
+     * @param digest
+     *                   l'hash binario del dato da cercare.
+     * @return il primo dato con l'hash indicato, oppure null.
+     */
+    public T findByHash(Digest digest) {
+		if(digest == null)
+			throw new NullPointerException("FBH: parametro digest null");
+		
+		computePendingHashes();
+		Node nodo = this.indice.get(digest);
+		return nodo == null ? null : nodo.data;
+    }
+
+    /**
+     * Calcola gli hash di tutti i dati inseriti in modalità
+     * {@link HashingMode#LAZY} e non ancora hashati, aggiornando l'indice
+     * degli hash. Se i dati in attesa sono numerosi il calcolo viene
+     * suddiviso tra più thread. Il metodo viene invocato automaticamente da
+     * tutte le operazioni che richiedono gli hash, ma può essere chiamato
+     * esplicitamente per svolgere il calcolo in un momento opportuno.
+     *
+     * @return il numero di hash calcolati.
+     */
+    public int computePendingHashes() {
+    	int numero = getPendingHashCount();
+    	if(numero == 0) return 0;
+    	
+    	// Raccolgo i nodi in attesa in un'unica lista
+    	ArrayList<Node> nodi = new ArrayList<>(numero);
+    	nodi.addAll(this.inAttesaTesta);
+    	nodi.addAll(this.inAttesaCoda);
+    	
+    	// Calcolo gli hash, in parallelo se i nodi sono abbastanza
+    	if(numero >= SOGLIA_PARALLELISMO)
+    		nodi.parallelStream().forEach(nodo -> nodo.hash = this.encoder.digest(nodo.data, this.algoritmo));
+    	else
+    		for(Node nodo : nodi) nodo.hash = this.encoder.digest(nodo.data, this.algoritmo);
+    	
+    	// Indicizzo i nodi nell'ordine di inserimento, così che le catene
+    	// degli hash rispettino l'ordine della lista
+    	for(Node nodo : this.inAttesaTesta) indicizzaInTesta(nodo);
+    	for(Node nodo : this.inAttesaCoda) indicizzaInCoda(nodo);
+    	this.inAttesaTesta.clear();
+    	this.inAttesaCoda.clear();
+    	return numero;
+    }
+
+    /**
+     * Restituisce il primo nodo della lista che contiene il dato indicato,
+     * scorrendo soltanto la catena dei nodi con il suo stesso hash.
+     *
+     * @param data
+     *                 il dato da cercare.
+     * @return il primo nodo con il dato, oppure null.
+     */
+    private Node cercaNodo(T data) {
+    	computePendingHashes();
+    	Node corrente = this.indice.get(this.encoder.digest(data, this.algoritmo));
+    	// Dati diversi possono avere lo stesso hash, quindi confronto i dati
+    	while(corrente != null && !corrente.data.equals(data))
+    		corrente = corrente.nextSameHash;
+    	return corrente;
+    }
+
+    /**
+     * Inserisce il nodo all'inizio della catena del suo hash.
+     *
+     * @param nodo
+     *                 il nodo appena aggiunto in testa alla lista.
+     */
+    private void indicizzaInTesta(Node nodo) {
+    	Node primo = this.indice.put(nodo.hash, nodo);
+    	if(primo == null) {
+    		nodo.prevSameHash = nodo;
+    	}
+    	else {
+    		// Il nuovo primo nodo eredita il riferimento all'ultimo
+    		nodo.prevSameHash = primo.prevSameHash;
+    		nodo.nextSameHash = primo;
+    		primo.prevSameHash = nodo;
+    	}
+    }
+
+    /**
+     * Inserisce il nodo alla fine della catena del suo hash.
+     *
+     * @param nodo
+     *                 il nodo appena aggiunto in coda alla lista.
+     */
+    private void indicizzaInCoda(Node nodo) {
+    	Node primo = this.indice.putIfAbsent(nodo.hash, nodo);
+    	if(primo == null) {
+    		nodo.prevSameHash = nodo;
+    	}
+    	else {
+    		Node ultimo = primo.prevSameHash;
+    		ultimo.nextSameHash = nodo;
+    		nodo.prevSameHash = ultimo;
+    		primo.prevSameHash = nodo;
+    	}
+    }
+
+    /**
+     * Rimuove il nodo dalla catena del suo hash, aggiornando l'indice se il
+     * nodo era il primo della catena.
+     *
+     * @param nodo
+     *                 il nodo rimosso dalla lista.
+     */
+    private void rimuoviDallIndice(Node nodo) {
+    	Node primo = this.indice.get(nodo.hash);
+    	Node successivo = nodo.nextSameHash;
+    	if(nodo == primo) {
+    		if(successivo == null) {
+    			this.indice.remove(nodo.hash);
+    		}
+    		else {
+    			// Il successivo diventa il primo e punta all'ultimo
+    			successivo.prevSameHash = nodo.prevSameHash;
+    			this.indice.put(nodo.hash, successivo);
+    		}
+    	}
+    	else {
+    		nodo.prevSameHash.nextSameHash = successivo;
+    		if(successivo == null) primo.prevSameHash = nodo.prevSameHash;
+    		else successivo.prevSameHash = nodo.prevSameHash;
+    	}
+    	nodo.nextSameHash = null;
+    	nodo.prevSameHash = null;
     }
 
     @Override
@@ -277,6 +736,163 @@ public class HashLinkedList<T> implements Iterable<T> {
         return new Itr();
     }
 
+    /**
+     * Restituisce uno spliterator ordinato e di dimensione nota sui dati della
+     * lista. Lo spliterator si suddivide copiando in un array blocchi di nodi
+     * di dimensione crescente, così da poter distribuire l'elaborazione su
+     * più thread. È fail-fast: se la lista viene modificata dopo l'inizio
+     * dell'attraversamento viene lanciata una
+     * {@link ConcurrentModificationException}.
+     *
+     * @return uno spliterator sui dati della lista.
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return new Spl<>(nodo -> nodo.data, false);
+    }
+
+    /**
+     * Restituisce uno stream sequenziale dei dati della lista.
+     *
+     * @return uno stream dei dati della lista.
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * Restituisce uno stream parallelo dei dati della lista.
+     *
+     * @return uno stream parallelo dei dati della lista.
+     */
+    public Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    /**
+     * Restituisce uno stream sequenziale degli hash binari della lista, nello
+     * stesso ordine dei dati. Gli hash in attesa vengono calcolati quando lo
+     * stream inizia l'attraversamento, insieme alla posizione iniziale, così
+     * che comprendano anche i dati aggiunti dopo la creazione dello stream;
+     * per elaborarli in parallelo è sufficiente invocare
+     * {@link Stream#parallel()}.
+     *
+     * @return uno stream degli hash della lista.
+     */
+    public Stream<Digest> digestStream() {
+        return StreamSupport.stream(new Spl<>(nodo -> nodo.hash, true), false);
+    }
+
+    /**
+     * Spliterator fail-fast sui nodi della lista, che restituisce il valore
+     * estratto da ciascun nodo. Come per {@link java.util.LinkedList}, la
+     * posizione iniziale e il numero di modifiche atteso vengono fissati al
+     * primo utilizzo; se lo spliterator restituisce gli hash, in quel momento
+     * vengono calcolati anche quelli in attesa.
+     *
+     * @param <E>
+     *                il tipo dei valori restituiti.
+     */
+    private final class Spl<E> implements Spliterator<E> {
+    	
+    	private final Function<Node, E> estrattore; // Valore estratto dai nodi
+    	
+    	private final boolean conHash; // Indica se i valori estratti sono gli hash dei nodi
+    	
+    	private Node corrente; // Prossimo nodo da restituire
+    	
+    	private int rimanenti = -1; // Nodi rimanenti, -1 prima del primo utilizzo
+    	
+    	private int numModificheAttese; // Numero di modifiche attese
+    	
+    	private int blocco; // Dimensione dell'ultimo blocco separato
+    	
+    	private Spl(Function<Node, E> estrattore, boolean conHash) {
+    		this.estrattore = estrattore;
+    		this.conHash = conHash;
+    	}
+    	
+    	/**
+    	 * Restituisce il numero di nodi rimanenti, fissando la posizione
+    	 * iniziale al primo utilizzo.
+    	 */
+    	private int rimanenti() {
+    		if(this.rimanenti < 0) {
+    			// Nessun hash restituito può essere ancora in attesa
+    			if(this.conHash) computePendingHashes();
+    			this.corrente = head;
+    			this.rimanenti = size;
+    			this.numModificheAttese = numeroModifiche;
+    		}
+    		return this.rimanenti;
+    	}
+    	
+    	@Override
+    	public long estimateSize() {
+    		return rimanenti();
+    	}
+    	
+    	@Override
+    	public Spliterator<E> trySplit() {
+    		int numero = rimanenti();
+    		if(numero <= 1 || this.corrente == null) return null;
+    		
+    		// Copio in un array un blocco di nodi, più grande del precedente
+    		int dimensione = Math.min(Math.min(this.blocco + UNITA_BLOCCO, BLOCCO_MASSIMO), numero);
+    		Object[] valori = new Object[dimensione];
+    		int i = 0;
+    		Node nodo = this.corrente;
+    		do {
+    			valori[i++] = this.estrattore.apply(nodo);
+    			nodo = nodo.next;
+    		} while(nodo != null && i < dimensione);
+    		
+    		this.corrente = nodo;
+    		this.blocco = i;
+    		this.rimanenti = numero - i;
+    		return Spliterators.spliterator(valori, 0, i, characteristics());
+    	}
+    	
+    	@Override
+    	public boolean tryAdvance(Consumer<? super E> action) {
+    		if(action == null)
+    			throw new NullPointerException("TA: parametro action null");
+    		
+    		if(rimanenti() <= 0 || this.corrente == null) return false;
+    		Node nodo = this.corrente;
+    		this.corrente = nodo.next;
+    		this.rimanenti--;
+    		action.accept(this.estrattore.apply(nodo));
+    		
+    		if(this.numModificheAttese != numeroModifiche)
+    			throw new ConcurrentModificationException("NMA diverso NM");
+    		return true;
+    	}
+    	
+    	@Override
+    	public void forEachRemaining(Consumer<? super E> action) {
+    		if(action == null)
+    			throw new NullPointerException("FER: parametro action null");
+    		
+    		int numero = rimanenti();
+    		Node nodo = this.corrente;
+    		this.corrente = null;
+    		this.rimanenti = 0;
+    		for(int i = 0; i < numero && nodo != null; i++) {
+    			action.accept(this.estrattore.apply(nodo));
+    			nodo = nodo.next;
+    		}
+    		
+    		if(this.numModificheAttese != numeroModifiche)
+    			throw new ConcurrentModificationException("NMA diverso NM");
+    	}
+    	
+    	@Override
+    	public int characteristics() {
+    		return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.NONNULL;
+    	}
+    }
+
     /**
      * Classe che realizza un iteratore fail-fast per HashLinkedList.
      */
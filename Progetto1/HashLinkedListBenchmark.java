@@ -0,0 +1,94 @@
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Semplice benchmark che confronta {@link HashLinkedList} con la variante
+ * basata su array {@link PackedHashLinkedList}, misurando il tempo di
+ * inserimento in coda, il tempo di iterazione, il tempo di estrazione degli
+ * hash e la memoria occupata per elemento. Non è un test automatico: va
+ * eseguito manualmente, ad esempio con
+ *
+ * <pre>
+ *     java HashLinkedListBenchmark [numeroElementi]
+ * </pre>
+ *
+ * La memoria viene stimata dalla differenza di heap occupato prima e dopo la
+ * costruzione della lista, dopo aver richiesto una garbage collection; il
+ * valore è quindi indicativo. I primi giri servono a riscaldare la JVM e non
+ * vengono riportati.
+ */
+public class HashLinkedListBenchmark {
+
+    private static final int GIRI_RISCALDAMENTO = 3;
+
+    private static final int GIRI_MISURATI = 5;
+
+    public static void main(String[] args) {
+        int numeroElementi = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        System.out.printf("%-22s %12s %14s %12s %14s%n", "Lista", "Append (ms)", "Iterazione (ms)",
+                "Hash (ms)", "Byte/elemento");
+        misura("HashLinkedList", numeroElementi, () -> {
+            HashLinkedList<Long> lista = new HashLinkedList<>();
+            for(long i = 0; i < numeroElementi; i++) lista.addAtTail(i);
+            return lista;
+        }, lista -> ((HashLinkedList<Long>) lista).getAllHashes().size());
+        misura("PackedHashLinkedList", numeroElementi, () -> {
+            PackedHashLinkedList<Long> lista = new PackedHashLinkedList<>();
+            for(long i = 0; i < numeroElementi; i++) lista.addAtTail(i);
+            return lista;
+        }, lista -> ((PackedHashLinkedList<Long>) lista).getAllHashes().size());
+    }
+
+    /**
+     * Esegue le misure per una implementazione, dato il costruttore della
+     * lista piena e la funzione che ne estrae gli hash.
+     */
+    private static void misura(String nome, int numeroElementi, Supplier<Iterable<Long>> costruttore,
+            ToIntFunction<Iterable<Long>> estraiHash) {
+        double append = 0;
+        double iterazione = 0;
+        double hash = 0;
+        double memoria = 0;
+        for(int giro = 0; giro < GIRI_RISCALDAMENTO + GIRI_MISURATI; giro++) {
+            long occupataPrima = memoriaOccupata();
+            long inizio = System.nanoTime();
+            Iterable<Long> lista = costruttore.get();
+            long fineAppend = System.nanoTime();
+            long occupataDopo = memoriaOccupata();
+
+            // Sommo i dati per evitare che l'iterazione venga eliminata
+            long somma = 0;
+            long inizioIterazione = System.nanoTime();
+            for(Long dato : lista) somma += dato;
+            long fineIterazione = System.nanoTime();
+            if(somma != (long) numeroElementi * (numeroElementi - 1) / 2)
+                throw new IllegalStateException("Iterazione non corretta per " + nome);
+
+            long inizioHash = System.nanoTime();
+            int numeroHash = estraiHash.applyAsInt(lista);
+            long fineHash = System.nanoTime();
+            if(numeroHash != numeroElementi)
+                throw new IllegalStateException("Hash non corretti per " + nome);
+
+            if(giro >= GIRI_RISCALDAMENTO) {
+                append += (fineAppend - inizio) / 1e6;
+                iterazione += (fineIterazione - inizioIterazione) / 1e6;
+                hash += (fineHash - inizioHash) / 1e6;
+                memoria += (double) (occupataDopo - occupataPrima) / numeroElementi;
+            }
+        }
+        System.out.printf("%-22s %12.1f %14.1f %12.1f %14.1f%n", nome, append / GIRI_MISURATI,
+                iterazione / GIRI_MISURATI, hash / GIRI_MISURATI, memoria / GIRI_MISURATI);
+    }
+
+    /**
+     * Restituisce una stima della memoria heap occupata, dopo aver richiesto
+     * una garbage collection.
+     */
+    private static long memoriaOccupata() {
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
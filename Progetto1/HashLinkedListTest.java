@@ -2,6 +2,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,6 +33,15 @@ import static org.junit.jupiter.api.Assertions.*;
  * <li>{@link #testGetAllHashes()}: Verifica che il metodo {@code getAllHashes}
  * restituisca gli hash corretti degli elementi della lista.</li>
  * 
+ * <li>{@link #testGetAllHashesDuplicates()}: Verifica che {@code getAllHashes}
+ * e {@code buildNodesString} riportino una volta per nodo i dati ripetuti.</li>
+ * 
+ * <li>{@link #testHashesIntoCollection()}: Verifica che {@code hashesInto}
+ * aggiunga gli hash in ordine alla collezione fornita.</li>
+ * 
+ * <li>{@link #testHashesIntoArray()}: Verifica che {@code hashesInto} riutilizzi
+ * un array sufficientemente grande e ne crei uno nuovo altrimenti.</li>
+ * 
  * <li>{@link #testRemoveHeadElement()}: Rimuove l'elemento in testa e verifica
  * che la lista sia aggiornata correttamente.</li>
  * 
@@ -49,6 +60,35 @@ import static org.junit.jupiter.api.Assertions.*;
  * <li>{@link #testRemoveNonExistentElement()}: Tenta di rimuovere un elemento
  * inesistente e verifica che il metodo restituisca {@code false}.</li>
  * 
+ * <li>{@link #testRemoveDuplicates()}: Verifica che venga rimossa sempre la
+ * prima occorrenza di un dato ripetuto, aggiunto sia in testa sia in coda.</li>
+ * 
+ * <li>{@link #testRemoveSameHashCode()}: Rimuove un dato il cui hash coincide
+ * con quello di un dato diverso e verifica che l'altro resti nella lista.</li>
+ * 
+ * <li>{@link #testContains()}: Verifica che {@code contains} riconosca i dati
+ * presenti e quelli assenti.</li>
+ * 
+ * <li>{@link #testFindByHash()}: Verifica che {@code findByHash} restituisca il
+ * dato corrispondente all'hash, oppure null se l'hash è assente o non
+ * valido.</li>
+ * 
+ * <li>{@link #testLazyHashing()}: Verifica che in modalità {@code LAZY} gli
+ * hash vengano calcolati al primo utilizzo e siano corretti.</li>
+ * 
+ * <li>{@link #testLazyHashingParallel()}: Confronta una lista {@code LAZY} con
+ * molti elementi, hashati in parallelo, con una lista {@code EAGER}.</li>
+ * 
+ * <li>{@link #testAddAllAtTail()}: Aggiunge in blocco una collezione e verifica
+ * ordine, hash e indice della lista.</li>
+ * 
+ * <li>{@link #testAddAllAtTailParallel()}: Aggiunge in blocco molti elementi,
+ * hashati in parallelo, e li confronta con quelli aggiunti singolarmente.</li>
+ * 
+ * <li>{@link #testAddAllAtTailNullElement()}: Verifica che un elemento null
+ * lasci la lista invariata e che l'aggiunta in blocco sia una modifica per
+ * gli iteratori fail-fast.</li>
+ * 
  * <li>{@link #testIteratorHasNext1()}: Verifica che l'iteratore abbia un
  * prossimo elemento quando la lista contiene più elementi.</li>
  * 
@@ -63,6 +103,20 @@ import static org.junit.jupiter.api.Assertions.*;
  * 
  * <li>{@link #testFailFastIterator2()}: Verifica che l'iteratore sia
  * {@code fail-fast} rimuovendo un elemento durante l'iterazione.</li>
+ * 
+ * <li>{@link #testSpliterator()}: Verifica che lo spliterator sia SIZED e
+ * ORDERED e che le parti ottenute suddividendolo coprano la lista in
+ * ordine.</li>
+ * 
+ * <li>{@link #testParallelStream()}: Verifica che gli stream, anche paralleli,
+ * dei dati e degli hash mantengano l'ordine della lista.</li>
+ * 
+ * <li>{@link #testFailFastSpliterator()}: Verifica che lo spliterator e gli
+ * stream siano {@code fail-fast}.</li>
+ * 
+ * <li>{@link #testLazyDigestStream()}: Verifica che lo stream degli hash di
+ * una lista in modalità LAZY comprenda, con il loro hash, anche i dati
+ * aggiunti dopo la sua creazione.</li>
  * </ul>
  */
 class HashLinkedListTest {
@@ -74,6 +128,14 @@ class HashLinkedListTest {
         list = new HashLinkedList<>();
     }
 
+    private List<String> toList() {
+        List<String> risultato = new ArrayList<>();
+        for (String s : list) {
+            risultato.add(s);
+        }
+        return risultato;
+    }
+
     @Test
     void testIsEmpty() {
         assertEquals(0, list.getSize(),
@@ -171,6 +233,59 @@ class HashLinkedListTest {
                 "Gli hash della lista non corrispondono all'atteso.");
     }
 
+    @Test
+    void testGetAllHashesDuplicates() {
+        list.addAtTail("Alice paga Bob");
+        list.addAtTail("Alice paga Bob");
+        list.addAtTail("Bob paga Charlie");
+        list.addAtTail("Alice paga Bob");
+
+        String hashAlice = HashUtil.dataToHash("Alice paga Bob");
+        String hashBob = HashUtil.dataToHash("Bob paga Charlie");
+
+        assertEquals(Arrays.asList(hashAlice, hashAlice, hashBob, hashAlice), list.getAllHashes(),
+                "Gli hash dei dati ripetuti devono comparire una volta per ogni nodo.");
+        assertEquals("Dato: Alice paga Bob, Hash: " + hashAlice + "\n"
+                + "Dato: Alice paga Bob, Hash: " + hashAlice + "\n"
+                + "Dato: Bob paga Charlie, Hash: " + hashBob + "\n"
+                + "Dato: Alice paga Bob, Hash: " + hashAlice + "\n",
+                list.buildNodesString(), "La rappresentazione della lista non è corretta.");
+    }
+
+    @Test
+    void testHashesIntoCollection() {
+        list.addAtTail("Alice paga Bob");
+        list.addAtTail("Bob paga Charlie");
+
+        List<String> destinazione = new ArrayList<>();
+        destinazione.add("esistente");
+
+        assertSame(destinazione, list.hashesInto(destinazione),
+                "Il metodo deve restituire la collezione fornita.");
+        assertEquals(Arrays.asList("esistente", HashUtil.dataToHash("Alice paga Bob"),
+                HashUtil.dataToHash("Bob paga Charlie")), destinazione,
+                "Gli hash devono essere aggiunti in coda alla collezione.");
+        assertThrows(NullPointerException.class, () -> list.hashesInto((List<String>) null));
+    }
+
+    @Test
+    void testHashesIntoArray() {
+        list.addAtTail("Alice paga Bob");
+        list.addAtTail("Bob paga Charlie");
+
+        String[] piccolo = list.hashesInto(new String[0]);
+        assertArrayEquals(new String[] { HashUtil.dataToHash("Alice paga Bob"),
+                HashUtil.dataToHash("Bob paga Charlie") }, piccolo,
+                "Un array troppo piccolo deve essere sostituito da uno nuovo.");
+
+        String[] grande = { "a", "b", "c", "d" };
+        assertSame(grande, list.hashesInto(grande),
+                "Un array sufficientemente grande deve essere riutilizzato.");
+        assertEquals(HashUtil.dataToHash("Bob paga Charlie"), grande[1]);
+        assertNull(grande[2], "L'elemento dopo l'ultimo hash deve essere null.");
+        assertEquals("d", grande[3]);
+    }
+
     @Test
     void testRemoveHeadElement() {
         list.addAtTail("Alice paga Bob");
@@ -261,6 +376,170 @@ class HashLinkedListTest {
                 "Non dovrebbe essere possibile rimuovere un elemento inesistente.");
     }
 
+    @Test
+    void testRemoveDuplicates() {
+        list.addAtTail("Alice paga Bob");
+        list.addAtTail("Bob paga Charlie");
+        list.addAtHead("Bob paga Charlie");
+        list.addAtTail("Bob paga Charlie");
+
+        assertTrue(list.remove("Bob paga Charlie"));
+        assertEquals(Arrays.asList("Alice paga Bob", "Bob paga Charlie", "Bob paga Charlie"), toList(),
+                "Deve essere rimossa la prima occorrenza del dato.");
+        assertTrue(list.remove("Bob paga Charlie"));
+        assertTrue(list.remove("Bob paga Charlie"));
+        assertFalse(list.remove("Bob paga Charlie"));
+        assertFalse(list.contains("Bob paga Charlie"));
+
+        list.addAtTail("Bob paga Charlie");
+        list.addAtHead("Diana paga Alice");
+        assertEquals(Arrays.asList("Diana paga Alice", "Alice paga Bob", "Bob paga Charlie"), toList(),
+                "La lista non è corretta dopo le rimozioni e le aggiunte.");
+    }
+
+    @Test
+    void testRemoveSameHashCode() {
+        // "Aa" e "BB" hanno lo stesso codice hash e quindi lo stesso hash
+        list.addAtTail("Aa");
+        list.addAtTail("BB");
+        list.addAtTail("Aa");
+
+        assertTrue(list.remove("BB"), "Il dato con hash in collisione deve essere trovato.");
+        assertEquals(Arrays.asList("Aa", "Aa"), toList());
+        assertFalse(list.contains("BB"));
+        assertTrue(list.contains("Aa"));
+    }
+
+    @Test
+    void testContains() {
+        assertFalse(list.contains("Alice paga Bob"));
+        list.addAtTail("Alice paga Bob");
+        list.addAtHead("Bob paga Charlie");
+
+        assertTrue(list.contains("Alice paga Bob"));
+        assertTrue(list.contains("Bob paga Charlie"));
+        assertFalse(list.contains("Charlie paga Diana"));
+        assertThrows(NullPointerException.class, () -> list.contains(null));
+    }
+
+    @Test
+    void testFindByHash() {
+        list.addAtTail("Alice paga Bob");
+        list.addAtTail("Bob paga Charlie");
+
+        assertEquals("Bob paga Charlie", list.findByHash(HashUtil.dataToHash("Bob paga Charlie")));
+        assertEquals("Alice paga Bob", list.findByHash(HashUtil.dataToDigest("Alice paga Bob")));
+        assertNull(list.findByHash(HashUtil.dataToHash("Charlie paga Diana")),
+                "Un hash non presente non deve corrispondere ad alcun dato.");
+        assertNull(list.findByHash("HashNonValido"),
+                "Un hash non esadecimale non deve corrispondere ad alcun dato.");
+
+        list.remove("Bob paga Charlie");
+        assertNull(list.findByHash(HashUtil.dataToHash("Bob paga Charlie")),
+                "L'hash di un dato rimosso non deve più essere trovato.");
+        assertThrows(NullPointerException.class, () -> list.findByHash((String) null));
+    }
+
+    @Test
+    void testLazyHashing() {
+        HashLinkedList<String> lazy = new HashLinkedList<>(HashAlgorithms.MD5, LeafEncoders.hashCodeEncoder(),
+                HashLinkedList.HashingMode.LAZY);
+        lazy.addAtTail("Bob paga Charlie");
+        lazy.addAtHead("Alice paga Bob");
+        lazy.addAtTail("Charlie paga Diana");
+
+        assertEquals(3, lazy.getPendingHashCount(), "Gli hash non dovrebbero essere ancora calcolati.");
+        assertEquals(Arrays.asList(HashUtil.dataToHash("Alice paga Bob"), HashUtil.dataToHash("Bob paga Charlie"),
+                HashUtil.dataToHash("Charlie paga Diana")), lazy.getAllHashes(),
+                "Gli hash calcolati in ritardo non sono corretti.");
+        assertEquals(0, lazy.getPendingHashCount(), "Tutti gli hash dovrebbero essere stati calcolati.");
+
+        lazy.addAtHead("Charlie paga Diana");
+        assertTrue(lazy.remove("Charlie paga Diana"), "Il dato in attesa deve poter essere rimosso.");
+        List<String> dati = new ArrayList<>();
+        lazy.forEach(dati::add);
+        assertEquals(Arrays.asList("Alice paga Bob", "Bob paga Charlie", "Charlie paga Diana"), dati,
+                "Doveva essere rimossa l'occorrenza in testa.");
+        assertEquals("Charlie paga Diana", lazy.findByHash(HashUtil.dataToHash("Charlie paga Diana")));
+    }
+
+    @Test
+    void testLazyHashingParallel() {
+        HashLinkedList<String> lazy = new HashLinkedList<>(HashAlgorithms.SHA_256, LeafEncoders.STRING,
+                HashLinkedList.HashingMode.LAZY);
+        HashLinkedList<String> eager = new HashLinkedList<>(HashAlgorithms.SHA_256, LeafEncoders.STRING);
+        for (int i = 0; i < 5000; i++) {
+            if (i % 2 == 0) {
+                lazy.addAtHead("Dato " + (i % 700));
+                eager.addAtHead("Dato " + (i % 700));
+            } else {
+                lazy.addAtTail("Dato " + (i % 700));
+                eager.addAtTail("Dato " + (i % 700));
+            }
+        }
+
+        assertEquals(5000, lazy.computePendingHashes(), "Dovrebbero essere calcolati tutti gli hash.");
+        assertEquals(eager.getAllDigests(), lazy.getAllDigests(), "Gli hash non corrispondono.");
+        for (int i = 0; i < 700; i += 7) {
+            assertTrue(lazy.remove("Dato " + i));
+            assertTrue(eager.remove("Dato " + i));
+        }
+        assertEquals(eager.buildNodesString(), lazy.buildNodesString(),
+                "Le rimozioni devono seguire l'ordine della lista anche in modalità LAZY.");
+    }
+
+    @Test
+    void testAddAllAtTail() {
+        list.addAtTail("Alice paga Bob");
+        assertFalse(list.addAllAtTail(Collections.emptyList()), "Una collezione vuota non modifica la lista.");
+        assertTrue(list.addAllAtTail(Arrays.asList("Bob paga Charlie", "Charlie paga Diana", "Bob paga Charlie")));
+
+        assertEquals(Arrays.asList("Alice paga Bob", "Bob paga Charlie", "Charlie paga Diana", "Bob paga Charlie"),
+                toList(), "Gli elementi devono essere aggiunti in coda nell'ordine della collezione.");
+        assertEquals(4, list.getSize());
+        assertEquals(Arrays.asList(HashUtil.dataToHash("Alice paga Bob"), HashUtil.dataToHash("Bob paga Charlie"),
+                HashUtil.dataToHash("Charlie paga Diana"), HashUtil.dataToHash("Bob paga Charlie")),
+                list.getAllHashes(), "Gli hash degli elementi aggiunti non sono corretti.");
+
+        assertTrue(list.remove("Bob paga Charlie"));
+        list.addAtTail("Diana paga Alice");
+        assertEquals(Arrays.asList("Alice paga Bob", "Charlie paga Diana", "Bob paga Charlie", "Diana paga Alice"),
+                toList(), "La lista non è corretta dopo la rimozione.");
+    }
+
+    @Test
+    void testAddAllAtTailParallel() {
+        List<String> dati = new ArrayList<>();
+        HashLinkedList<String> attesa = new HashLinkedList<>();
+        for (int i = 0; i < 20000; i++) {
+            dati.add("Dato " + i);
+            attesa.addAtTail("Dato " + i);
+        }
+
+        list.addAllAtTail(dati.stream().spliterator());
+        assertEquals(20000, list.getSize());
+        assertEquals(dati, toList(), "L'ordine degli elementi non è stato mantenuto.");
+        assertEquals(attesa.getAllDigests(), list.getAllDigests(), "Gli hash calcolati in parallelo non corrispondono.");
+        assertTrue(list.contains("Dato 19999"));
+    }
+
+    @Test
+    void testAddAllAtTailNullElement() {
+        list.addAtTail("Alice paga Bob");
+        Iterator<String> iterator = list.iterator();
+
+        assertThrows(NullPointerException.class,
+                () -> list.addAllAtTail(Arrays.asList("Bob paga Charlie", null)));
+        assertEquals(Collections.singletonList("Alice paga Bob"), toList(),
+                "La lista non deve essere modificata se un elemento è null.");
+        assertDoesNotThrow(iterator::next, "Un'aggiunta fallita non deve invalidare l'iteratore.");
+        assertThrows(NullPointerException.class, () -> list.addAllAtTail((Collection<String>) null));
+
+        list.addAllAtTail(Arrays.asList("Bob paga Charlie", "Charlie paga Diana"));
+        assertThrows(ConcurrentModificationException.class, iterator::hasNext,
+                "L'aggiunta in blocco deve invalidare gli iteratori.");
+    }
+
     @Test
     void testIteratorHasNext1() {
         list.addAtTail("Alice paga Bob");
@@ -335,4 +614,72 @@ class HashLinkedListTest {
                 "L'iteratore non è fail-fast."
         );
     }
+
+    @Test
+    void testSpliterator() {
+        for (int i = 0; i < 5000; i++) {
+            list.addAtTail("Dato " + i);
+        }
+
+        Spliterator<String> spliterator = list.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.ORDERED),
+                "Lo spliterator deve essere SIZED e ORDERED.");
+        assertEquals(5000, spliterator.getExactSizeIfKnown());
+
+        Spliterator<String> prefisso = spliterator.trySplit();
+        assertNotNull(prefisso, "Lo spliterator deve potersi suddividere.");
+        assertEquals(5000, prefisso.estimateSize() + spliterator.estimateSize(),
+                "Le due parti devono coprire tutti gli elementi.");
+
+        List<String> dati = new ArrayList<>();
+        prefisso.forEachRemaining(dati::add);
+        spliterator.forEachRemaining(dati::add);
+        assertEquals(toList(), dati, "Le due parti devono mantenere l'ordine della lista.");
+    }
+
+    @Test
+    void testParallelStream() {
+        List<String> attesi = new ArrayList<>();
+        for (int i = 0; i < 50000; i++) {
+            list.addAtTail("Dato " + i);
+            attesi.add("Dato " + i);
+        }
+
+        assertEquals(attesi, list.stream().collect(Collectors.toList()));
+        assertEquals(attesi, list.parallelStream().collect(Collectors.toList()),
+                "Lo stream parallelo deve mantenere l'ordine.");
+        assertEquals(list.getAllDigests(), list.digestStream().parallel().collect(Collectors.toList()),
+                "Lo stream degli hash deve seguire l'ordine della lista.");
+        assertEquals(list.getAllHashes(), list.digestStream().parallel().map(Digest::toHex)
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void testFailFastSpliterator() {
+        list.addAtTail("Alice paga Bob");
+        list.addAtTail("Bob paga Charlie");
+
+        Spliterator<String> spliterator = list.spliterator();
+        assertTrue(spliterator.tryAdvance(s -> { }));
+        list.addAtTail("Charlie paga Diana");
+        assertThrows(ConcurrentModificationException.class, () -> spliterator.forEachRemaining(s -> { }),
+                "Lo spliterator doveva lanciare un'eccezione dopo la modifica.");
+        assertThrows(ConcurrentModificationException.class,
+                () -> list.stream().forEach(s -> list.addAtHead("Diana paga Alice")),
+                "Lo stream doveva lanciare un'eccezione dopo la modifica.");
+    }
+
+    @Test
+    void testLazyDigestStream() {
+        HashLinkedList<String> lazy = new HashLinkedList<>(HashAlgorithms.MD5, LeafEncoders.hashCodeEncoder(),
+                HashLinkedList.HashingMode.LAZY);
+        lazy.addAtTail("Alice paga Bob");
+
+        Stream<Digest> hash = lazy.digestStream();
+        lazy.addAtTail("Bob paga Charlie");
+        assertEquals(Arrays.asList(HashAlgorithms.MD5.dataToDigest("Alice paga Bob"),
+                HashAlgorithms.MD5.dataToDigest("Bob paga Charlie")), hash.collect(Collectors.toList()),
+                "Lo stream deve contenere gli hash di tutti i dati, senza valori null.");
+        assertEquals(0, lazy.getPendingHashCount());
+    }
 }
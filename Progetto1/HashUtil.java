@@ -1,11 +1,22 @@
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
-
 /**
  * Classe fornita di utilità per calcolare gli hash MD5.
+ *
+ * <p>
+ * Oltre ai metodi che restituiscono l'hash come stringa esadecimale, la classe
+ * fornisce metodi equivalenti che lavorano con oggetti {@link Digest}, in modo
+ * da calcolare e combinare gli hash senza creare stringhe intermedie.
+ *
+ * <p>
+ * Tutti i metodi delegano all'algoritmo {@link HashAlgorithms#MD5}; per
+ * utilizzare un algoritmo diverso si veda {@link HashAlgorithm}.
  */
 public class HashUtil {
 
+    /**
+     * Lunghezza in byte di un hash MD5.
+     */
+    public static final int MD5_LENGTH = 16;
+
     /**
      * Calcola l'hash del dato fornito utilizzando MD5.
      *
@@ -14,7 +25,18 @@ public class HashUtil {
      * @return l'hash come stringa esadecimale.
      */
     public static String dataToHash(Object data) {
-        return HashUtil.computeMD5(intToBytes(data.hashCode()));
+        return HashUtil.dataToDigest(data).toHex();
+    }
+
+    /**
+     * Calcola l'hash del dato fornito utilizzando MD5.
+     *
+     * @param data
+     *                 il dato da hashare.
+     * @return l'hash come digest binario.
+     */
+    public static Digest dataToDigest(Object data) {
+        return HashAlgorithms.MD5.dataToDigest(data);
     }
 
     /**
@@ -27,17 +49,63 @@ public class HashUtil {
      *                              se l'algoritmo di hashing non è disponibile.
      */
     public static String computeMD5(byte[] input) {
-        try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            byte[] hashBytes = md.digest(input);
-            StringBuilder hashString = new StringBuilder();
-            for (byte b : hashBytes) {
-                hashString.append(String.format("%02x", b));
-            }
-            return hashString.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("MD5 algorithm not found", e);
-        }
+        return HashUtil.computeMD5Digest(input).toHex();
+    }
+
+    /**
+     * Calcola l'hash di un array di byte fornito utilizzando MD5.
+     *
+     * @param input
+     *                  l'array di byte di cui calcolare l'hash.
+     * @return l'hash come digest binario.
+     * @throws RuntimeException
+     *                              se l'algoritmo di hashing non è disponibile.
+     */
+    public static Digest computeMD5Digest(byte[] input) {
+        return HashAlgorithms.MD5.hash(input);
+    }
+
+    /**
+     * Calcola l'hash MD5 di una porzione di un array di byte, scrivendo il
+     * risultato nei primi {@link #MD5_LENGTH} byte dell'array di output. Il
+     * metodo non alloca memoria: utilizza un'istanza di MessageDigest riservata
+     * al thread corrente e il buffer fornito dal chiamante, quindi può essere
+     * invocato contemporaneamente da più thread.
+     *
+     * @param in
+     *                 l'array di byte di cui calcolare l'hash.
+     * @param off
+     *                 la posizione del primo byte da considerare.
+     * @param len
+     *                 il numero di byte da considerare.
+     * @param out
+     *                 l'array in cui scrivere l'hash, lungo almeno
+     *                 {@link #MD5_LENGTH} byte.
+     * @throws IllegalArgumentException
+     *                                      se l'array di output è troppo
+     *                                      corto.
+     */
+    public static void computeMD5(byte[] in, int off, int len, byte[] out) {
+        HashAlgorithms.MD5.hash(in, off, len, out, 0);
+    }
+
+    /**
+     * Combina due hash nell'hash del loro nodo padre. Il risultato coincide con
+     * {@code computeMD5((left.toHex() + right.toHex()).getBytes())}, ma la
+     * concatenazione esadecimale viene scritta direttamente in un buffer di
+     * byte senza creare stringhe. Per ricalcolare l'hash di un nodo senza
+     * fratello si passa {@link Digest#EMPTY} come secondo argomento.
+     *
+     * @param left
+     *                  l'hash da concatenare a sinistra.
+     * @param right
+     *                  l'hash da concatenare a destra.
+     * @return l'hash combinato come digest binario.
+     * @throws RuntimeException
+     *                              se l'algoritmo di hashing non è disponibile.
+     */
+    public static Digest combine(Digest left, Digest right) {
+        return HashAlgorithms.MD5.combine(left, right);
     }
 
     /**
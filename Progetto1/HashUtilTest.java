@@ -1,5 +1,11 @@
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -16,6 +22,21 @@ import static org.junit.jupiter.api.Assertions.*;
  * 
  * <li>{@link #testComputeMD5_nullInput()}: Verifica che il metodo
  * {@code computeMD5} lanci una {@code NullPointerException} quando l'input è {@code null}.</li>
+ * 
+ * <li>{@link #testComputeMD5Digest()}: Verifica che il metodo {@code computeMD5Digest}
+ * restituisca lo stesso hash di {@code computeMD5} in forma binaria.</li>
+ * 
+ * <li>{@link #testCombine()}: Verifica che il metodo {@code combine} coincida con
+ * l'hash della concatenazione delle stringhe esadecimali.</li>
+ * 
+ * <li>{@link #testCombineEmpty()}: Verifica che combinare un hash con il digest vuoto
+ * coincida con il ricalcolo dell'hash del solo nodo.</li>
+ * 
+ * <li>{@link #testComputeMD5IntoBuffer()}: Verifica che la variante senza allocazioni
+ * di {@code computeMD5} calcoli l'hash della sola porzione indicata.</li>
+ * 
+ * <li>{@link #testComputeMD5Concurrent()}: Verifica che il calcolo degli hash da più
+ * thread contemporaneamente restituisca sempre il risultato corretto.</li>
  * </ul>
  */
 class HashUtilTest {
@@ -47,4 +68,67 @@ class HashUtilTest {
         assertThrows(NullPointerException.class, () -> HashUtil.computeMD5(null),
                 "Dovrebbe lanciare NullPointerException se l'input è null.");
     }
+
+    @Test
+    void testComputeMD5Digest() {
+        byte[] input = "Hello, World!".getBytes();
+
+        assertEquals(HashUtil.computeMD5(input), HashUtil.computeMD5Digest(input).toHex(),
+                "L'hash binario non corrisponde all'hash esadecimale.");
+    }
+
+    @Test
+    void testCombine() {
+        String hash1 = HashUtil.dataToHash("Alice paga Bob");
+        String hash2 = HashUtil.dataToHash("Bob paga Charlie");
+        String expectedHash = HashUtil.computeMD5((hash1 + hash2).getBytes());
+
+        Digest actualHash = HashUtil.combine(Digest.fromHex(hash1), Digest.fromHex(hash2));
+
+        assertEquals(expectedHash, actualHash.toHex(), "L'hash combinato non corrisponde all'atteso.");
+    }
+
+    @Test
+    void testCombineEmpty() {
+        String hash = HashUtil.dataToHash("Alice paga Bob");
+        String expectedHash = HashUtil.computeMD5((hash + "").getBytes());
+
+        Digest actualHash = HashUtil.combine(Digest.fromHex(hash), Digest.EMPTY);
+
+        assertEquals(expectedHash, actualHash.toHex(), "L'hash ricalcolato non corrisponde all'atteso.");
+    }
+
+    @Test
+    void testComputeMD5IntoBuffer() {
+        byte[] input = "xxHello, World!xx".getBytes();
+        byte[] output = new byte[HashUtil.MD5_LENGTH];
+
+        HashUtil.computeMD5(input, 2, input.length - 4, output);
+
+        assertEquals("65a8e27d8879283831b664bd8b7f0ad4", Digest.of(output).toHex(),
+                "L'hash della porzione non corrisponde all'atteso.");
+        assertThrows(IllegalArgumentException.class, () -> HashUtil.computeMD5(input, 0, 1, new byte[4]),
+                "Dovrebbe lanciare IllegalArgumentException per un output troppo corto.");
+    }
+
+    @Test
+    void testComputeMD5Concurrent() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> risultati = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                risultati.add(executor.submit(() -> {
+                    for (int i = 0; i < 1000; i++) {
+                        if (!"65a8e27d8879283831b664bd8b7f0ad4".equals(HashUtil.computeMD5("Hello, World!".getBytes())))
+                            return false;
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> risultato : risultati)
+                assertTrue(risultato.get(), "Il calcolo concorrente degli hash non è corretto.");
+        } finally {
+            executor.shutdown();
+        }
+    }
 }
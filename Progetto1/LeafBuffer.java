@@ -0,0 +1,211 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Buffer di byte ridimensionabile in cui un {@link LeafEncoder} scrive la
+ * codifica di un dato prima del calcolo del suo hash. Il buffer viene
+ * riutilizzato tra una codifica e la successiva, quindi dopo le prime
+ * invocazioni non richiede nuove allocazioni.
+ *
+ * <p>
+ * I valori numerici vengono scritti in formato big-endian e le stringhe in
+ * UTF-8, direttamente nel buffer e senza array intermedi.
+ */
+public final class LeafBuffer {
+
+    private byte[] buffer; // Contenuto del buffer
+
+    private int size; // Numero di byte scritti
+
+    /**
+     * Costruisce un buffer vuoto con la capacità iniziale indicata.
+     *
+     * @param initialCapacity
+     *                            la capacità iniziale in byte.
+     */
+    public LeafBuffer(int initialCapacity) {
+        this.buffer = new byte[Math.max(initialCapacity, 16)];
+        this.size = 0;
+    }
+
+    /**
+     * Svuota il buffer mantenendone la capacità.
+     *
+     * @return questo buffer.
+     */
+    public LeafBuffer reset() {
+        this.size = 0;
+        return this;
+    }
+
+    /**
+     * Restituisce il numero di byte scritti nel buffer.
+     *
+     * @return il numero di byte scritti.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Restituisce la capacità attuale del buffer.
+     *
+     * @return la capacità in byte.
+     */
+    int capacity() {
+        return this.buffer.length;
+    }
+
+    /**
+     * Restituisce l'array interno del buffer; solo i primi {@link #size()}
+     * byte sono significativi.
+     *
+     * @return l'array interno del buffer.
+     */
+    byte[] array() {
+        return this.buffer;
+    }
+
+    /**
+     * Scrive un singolo byte.
+     *
+     * @param value
+     *                  il byte da scrivere.
+     * @return questo buffer.
+     */
+    public LeafBuffer put(byte value) {
+        ensureCapacity(1);
+        this.buffer[this.size++] = value;
+        return this;
+    }
+
+    /**
+     * Scrive una porzione di un array di byte.
+     *
+     * @param src
+     *                l'array da scrivere.
+     * @param off
+     *                la posizione del primo byte da scrivere.
+     * @param len
+     *                il numero di byte da scrivere.
+     * @return questo buffer.
+     */
+    public LeafBuffer put(byte[] src, int off, int len) {
+        ensureCapacity(len);
+        System.arraycopy(src, off, this.buffer, this.size, len);
+        this.size += len;
+        return this;
+    }
+
+    /**
+     * Scrive i byte rimanenti di un ByteBuffer, senza modificarne la
+     * posizione.
+     *
+     * @param src
+     *                il ByteBuffer da scrivere.
+     * @return questo buffer.
+     */
+    public LeafBuffer put(ByteBuffer src) {
+        int len = src.remaining();
+        ensureCapacity(len);
+        src.duplicate().get(this.buffer, this.size, len);
+        this.size += len;
+        return this;
+    }
+
+    /**
+     * Scrive un intero in formato big-endian.
+     *
+     * @param value
+     *                  l'intero da scrivere.
+     * @return questo buffer.
+     */
+    public LeafBuffer putInt(int value) {
+        ensureCapacity(4);
+        this.buffer[this.size++] = (byte) (value >> 24);
+        this.buffer[this.size++] = (byte) (value >> 16);
+        this.buffer[this.size++] = (byte) (value >> 8);
+        this.buffer[this.size++] = (byte) value;
+        return this;
+    }
+
+    /**
+     * Scrive un long in formato big-endian.
+     *
+     * @param value
+     *                  il long da scrivere.
+     * @return questo buffer.
+     */
+    public LeafBuffer putLong(long value) {
+        ensureCapacity(8);
+        for(int shift = 56; shift >= 0; shift -= 8)
+            this.buffer[this.size++] = (byte) (value >> shift);
+        return this;
+    }
+
+    /**
+     * Scrive un double come i suoi 8 byte IEEE 754 in formato big-endian.
+     *
+     * @param value
+     *                  il double da scrivere.
+     * @return questo buffer.
+     */
+    public LeafBuffer putDouble(double value) {
+        return putLong(Double.doubleToLongBits(value));
+    }
+
+    /**
+     * Scrive una sequenza di caratteri codificata in UTF-8, senza creare
+     * array intermedi. I surrogati non accoppiati vengono codificati come '?',
+     * come avviene in {@link String#getBytes(java.nio.charset.Charset)}.
+     *
+     * @param value
+     *                  la sequenza di caratteri da scrivere.
+     * @return questo buffer.
+     */
+    public LeafBuffer putUtf8(CharSequence value) {
+        int lunghezza = value.length();
+        // Nel caso peggiore ogni carattere occupa 3 byte
+        ensureCapacity(3 * lunghezza);
+        for(int i = 0; i < lunghezza; i++) {
+            char c = value.charAt(i);
+            if(c < 0x80) {
+                this.buffer[this.size++] = (byte) c;
+            }
+            else if(c < 0x800) {
+                this.buffer[this.size++] = (byte) (0xc0 | (c >> 6));
+                this.buffer[this.size++] = (byte) (0x80 | (c & 0x3f));
+            }
+            else if(Character.isHighSurrogate(c) && i + 1 < lunghezza
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+            	// Coppia di surrogati: un unico code point su 4 byte
+                int cp = Character.toCodePoint(c, value.charAt(++i));
+                this.buffer[this.size++] = (byte) (0xf0 | (cp >> 18));
+                this.buffer[this.size++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                this.buffer[this.size++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                this.buffer[this.size++] = (byte) (0x80 | (cp & 0x3f));
+            }
+            else if(Character.isSurrogate(c)) {
+                this.buffer[this.size++] = (byte) '?';
+            }
+            else {
+                this.buffer[this.size++] = (byte) (0xe0 | (c >> 12));
+                this.buffer[this.size++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                this.buffer[this.size++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Garantisce che il buffer abbia spazio per altri {@code extra} byte,
+     * raddoppiandone la capacità se necessario.
+     *
+     * @param extra
+     *                  il numero di byte da aggiungere.
+     */
+    private void ensureCapacity(int extra) {
+        if(this.size + extra > this.buffer.length)
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(this.size + extra, 2 * this.buffer.length));
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Definisce come un dato viene trasformato in una sequenza di byte prima del
+ * calcolo dell'hash della foglia corrispondente. In questo modo l'hash di una
+ * foglia dipende dal contenuto effettivo del dato e non soltanto dal suo
+ * codice hash.
+ *
+ * <p>
+ * Le implementazioni standard sono disponibili nella classe
+ * {@link LeafEncoders}. Due dati considerati uguali dovrebbero avere la stessa
+ * codifica.
+ *
+ * @param <T>
+ *                il tipo dei dati codificati.
+ */
+@FunctionalInterface
+public interface LeafEncoder<T> {
+
+    /**
+     * Scrive la codifica del dato nel buffer fornito, che è già vuoto.
+     *
+     * @param data
+     *                   il dato da codificare.
+     * @param buffer
+     *                   il buffer in cui scrivere la codifica.
+     */
+    void encode(T data, LeafBuffer buffer);
+
+    /**
+     * Calcola l'hash della codifica del dato con l'algoritmo indicato. La
+     * codifica viene scritta in un buffer riutilizzato dal thread corrente,
+     * che non viene conservato se un dato molto grande lo ha ingrandito;
+     * gli encoder che dispongono già dei byte del dato possono ridefinire
+     * questo metodo per calcolarne l'hash senza copiarli.
+     *
+     * @param data
+     *                      il dato di cui calcolare l'hash.
+     * @param algorithm
+     *                      l'algoritmo di hash da utilizzare.
+     * @return l'hash della codifica del dato.
+     */
+    default Digest digest(T data, HashAlgorithm algorithm) {
+        byte[] risultato = new byte[algorithm.getDigestLength()];
+        digest(data, algorithm, risultato, 0);
+        return new Digest(risultato);
+    }
+
+    /**
+     * Calcola l'hash della codifica del dato come
+     * {@link #digest(Object, HashAlgorithm)}, scrivendolo nell'array fornito
+     * invece di creare un nuovo digest.
+     *
+     * @param data
+     *                      il dato di cui calcolare l'hash.
+     * @param algorithm
+     *                      l'algoritmo di hash da utilizzare.
+     * @param out
+     *                      l'array in cui scrivere l'hash.
+     * @param outOff
+     *                      la posizione da cui iniziare la scrittura.
+     */
+    default void digest(T data, HashAlgorithm algorithm, byte[] out, int outOff) {
+        LeafBuffer buffer = LeafEncoders.buffer();
+        try {
+            encode(data, buffer);
+            algorithm.hash(buffer.array(), 0, buffer.size(), out, outOff);
+        } finally {
+            LeafEncoders.release(buffer);
+        }
+    }
+}
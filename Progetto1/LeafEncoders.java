@@ -0,0 +1,209 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Classe di utilità che fornisce le implementazioni standard di
+ * {@link LeafEncoder}:
+ * <ul>
+ * <li>{@link #hashCodeEncoder()}: codifica il solo codice hash del dato, come
+ * {@link HashUtil#dataToHash(Object)}; è l'encoder predefinito, compatibile con
+ * gli hash calcolati dalle versioni precedenti;</li>
+ * <li>{@link #BYTES} e {@link #BYTE_BUFFER}: calcolano l'hash direttamente sui
+ * byte forniti, senza copiarli;</li>
+ * <li>{@link #STRING}: codifica il testo in UTF-8 senza array intermedi;</li>
+ * <li>{@link #INTEGER}, {@link #LONG}, {@link #DOUBLE} e {@link #BOOLEAN}:
+ * codificano il valore primitivo in formato big-endian.</li>
+ * </ul>
+ */
+public final class LeafEncoders {
+
+    /**
+     * Encoder basato sul codice hash del dato.
+     */
+    private static final LeafEncoder<Object> HASH_CODE = new LeafEncoder<Object>() {
+        @Override
+        public void encode(Object data, LeafBuffer buffer) {
+            buffer.putInt(data.hashCode());
+        }
+
+        @Override
+        public Digest digest(Object data, HashAlgorithm algorithm) {
+            return algorithm.dataToDigest(data);
+        }
+    };
+
+    /**
+     * Encoder per array di byte, il cui hash viene calcolato direttamente
+     * sull'array.
+     */
+    public static final LeafEncoder<byte[]> BYTES = new LeafEncoder<byte[]>() {
+        @Override
+        public void encode(byte[] data, LeafBuffer buffer) {
+            buffer.put(data, 0, data.length);
+        }
+
+        @Override
+        public Digest digest(byte[] data, HashAlgorithm algorithm) {
+            return algorithm.hash(data);
+        }
+
+        @Override
+        public void digest(byte[] data, HashAlgorithm algorithm, byte[] out, int outOff) {
+            algorithm.hash(data, 0, data.length, out, outOff);
+        }
+    };
+
+    /**
+     * Encoder per ByteBuffer, il cui hash viene calcolato sui byte rimanenti
+     * senza modificarne la posizione e senza copiarli quando possibile.
+     */
+    public static final LeafEncoder<ByteBuffer> BYTE_BUFFER = new LeafEncoder<ByteBuffer>() {
+        @Override
+        public void encode(ByteBuffer data, LeafBuffer buffer) {
+            buffer.put(data);
+        }
+
+        @Override
+        public Digest digest(ByteBuffer data, HashAlgorithm algorithm) {
+            byte[] risultato = new byte[algorithm.getDigestLength()];
+            algorithm.hash(data, risultato, 0);
+            return new Digest(risultato);
+        }
+
+        @Override
+        public void digest(ByteBuffer data, HashAlgorithm algorithm, byte[] out, int outOff) {
+            algorithm.hash(data, out, outOff);
+        }
+    };
+
+    /**
+     * Encoder per stringhe, codificate in UTF-8.
+     */
+    public static final LeafEncoder<CharSequence> STRING = (data, buffer) -> buffer.putUtf8(data);
+
+    /**
+     * Encoder per interi, codificati su 4 byte.
+     */
+    public static final LeafEncoder<Integer> INTEGER = (data, buffer) -> buffer.putInt(data);
+
+    /**
+     * Encoder per long, codificati su 8 byte.
+     */
+    public static final LeafEncoder<Long> LONG = (data, buffer) -> buffer.putLong(data);
+
+    /**
+     * Encoder per double, codificati con i loro 8 byte IEEE 754.
+     */
+    public static final LeafEncoder<Double> DOUBLE = (data, buffer) -> buffer.putDouble(data);
+
+    /**
+     * Encoder per booleani, codificati su un byte (1 per true, 0 per false).
+     */
+    public static final LeafEncoder<Boolean> BOOLEAN = (data, buffer) -> buffer.put(data ? (byte) 1 : (byte) 0);
+
+    /**
+     * Capacità massima del buffer di codifica conservato da ciascun thread:
+     * un buffer ingrandito oltre questa soglia da un dato molto grande viene
+     * scartato dopo l'uso, così da non restare in memoria per tutta la vita
+     * del thread.
+     */
+    private static final int CAPACITA_MASSIMA = 64 * 1024;
+
+    /**
+     * Buffer di codifica riutilizzato da ciascun thread.
+     */
+    private static final ThreadLocal<LeafBuffer> BUFFER = ThreadLocal.withInitial(() -> new LeafBuffer(256));
+
+    private LeafEncoders() {
+    }
+
+    /**
+     * Restituisce l'encoder basato sul codice hash del dato, che produce gli
+     * stessi hash di {@link HashAlgorithm#dataToDigest(Object)}.
+     *
+     * @param <T>
+     *                il tipo dei dati codificati.
+     * @return l'encoder basato sul codice hash.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> LeafEncoder<T> hashCodeEncoder() {
+        return (LeafEncoder<T>) HASH_CODE;
+    }
+
+    /**
+     * Calcola l'hash di un intero con la stessa codifica di {@link #INTEGER},
+     * senza convertirlo in un oggetto Integer.
+     *
+     * @param value
+     *                      il valore di cui calcolare l'hash.
+     * @param algorithm
+     *                      l'algoritmo di hash da utilizzare.
+     * @return l'hash del valore.
+     */
+    public static Digest digest(int value, HashAlgorithm algorithm) {
+        return digestOf(buffer().putInt(value), algorithm);
+    }
+
+    /**
+     * Calcola l'hash di un long con la stessa codifica di {@link #LONG}, senza
+     * convertirlo in un oggetto Long.
+     *
+     * @param value
+     *                      il valore di cui calcolare l'hash.
+     * @param algorithm
+     *                      l'algoritmo di hash da utilizzare.
+     * @return l'hash del valore.
+     */
+    public static Digest digest(long value, HashAlgorithm algorithm) {
+        return digestOf(buffer().putLong(value), algorithm);
+    }
+
+    /**
+     * Calcola l'hash di un double con la stessa codifica di {@link #DOUBLE},
+     * senza convertirlo in un oggetto Double.
+     *
+     * @param value
+     *                      il valore di cui calcolare l'hash.
+     * @param algorithm
+     *                      l'algoritmo di hash da utilizzare.
+     * @return l'hash del valore.
+     */
+    public static Digest digest(double value, HashAlgorithm algorithm) {
+        return digestOf(buffer().putDouble(value), algorithm);
+    }
+
+    /**
+     * Restituisce il buffer di codifica del thread corrente, già svuotato.
+     *
+     * @return il buffer di codifica del thread corrente.
+     */
+    static LeafBuffer buffer() {
+        return BUFFER.get().reset();
+    }
+
+    /**
+     * Rilascia il buffer di codifica del thread corrente dopo l'uso: se è
+     * stato ingrandito oltre {@value #CAPACITA_MASSIMA} byte viene scartato, e
+     * la codifica successiva ne crea uno della capacità iniziale.
+     *
+     * @param buffer
+     *                   il buffer ottenuto con {@link #buffer()}.
+     */
+    static void release(LeafBuffer buffer) {
+        if(buffer.capacity() > CAPACITA_MASSIMA) BUFFER.remove();
+    }
+
+    /**
+     * Calcola l'hash del contenuto di un buffer di codifica.
+     *
+     * @param buffer
+     *                      il buffer contenente la codifica.
+     * @param algorithm
+     *                      l'algoritmo di hash da utilizzare.
+     * @return l'hash del contenuto del buffer.
+     */
+    private static Digest digestOf(LeafBuffer buffer, HashAlgorithm algorithm) {
+        byte[] risultato = new byte[algorithm.getDigestLength()];
+        algorithm.hash(buffer.array(), 0, buffer.size(), risultato, 0);
+        return new Digest(risultato);
+    }
+}
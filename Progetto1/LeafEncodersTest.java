@@ -0,0 +1,142 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di test per la classe {@link LeafEncoders}. Questa classe verifica
+ * che gli encoder standard producano gli hash attesi e che il loro utilizzo
+ * in {@link HashLinkedList} e {@link MerkleTree} distingua i dati in base al
+ * contenuto.
+ * Di seguito, l'elenco dei test inclusi con una breve descrizione:
+ * 
+ * <ul>
+ * <li>{@link #testHashCodeEncoder()}: Verifica che l'encoder predefinito
+ * coincida con {@link HashUtil#dataToHash(Object)}.</li>
+ * 
+ * <li>{@link #testStringEncoder()}: Verifica che l'encoder di stringhe coincida
+ * con l'hash dei byte UTF-8, anche per caratteri non ASCII.</li>
+ * 
+ * <li>{@link #testByteEncoders()}: Verifica che gli encoder di array di byte e
+ * di ByteBuffer (nello heap e diretti) producano lo stesso hash senza
+ * modificare la posizione del buffer, anche quando l'hash viene scritto in un
+ * array fornito.</li>
+ * 
+ * <li>{@link #testPrimitiveEncoders()}: Verifica che gli encoder dei tipi
+ * primitivi coincidano con i corrispondenti metodi senza boxing.</li>
+ * 
+ * <li>{@link #testContentBasedTree()}: Verifica che, con l'encoder di stringhe,
+ * due dati con lo stesso codice hash non vengano confusi dall'albero.</li>
+ * 
+ * <li>{@link #testLargeRecords()}: Verifica che i buffer di appoggio del thread non
+ * restino ingranditi dopo l'hash di un dato molto grande.</li>
+ * </ul>
+ */
+class LeafEncodersTest {
+
+    @Test
+    void testHashCodeEncoder() {
+        LeafEncoder<String> encoder = LeafEncoders.hashCodeEncoder();
+
+        assertEquals(HashUtil.dataToHash("Alice paga Bob"),
+                encoder.digest("Alice paga Bob", HashAlgorithms.MD5).toHex(),
+                "L'encoder predefinito non coincide con HashUtil.");
+    }
+
+    @Test
+    void testStringEncoder() {
+        String testo = "Alice paga Bob 10€ 😀 caffè";
+
+        assertEquals(HashAlgorithms.MD5.hash(testo.getBytes(StandardCharsets.UTF_8)),
+                LeafEncoders.STRING.digest(testo, HashAlgorithms.MD5),
+                "L'hash della stringa non coincide con quello dei byte UTF-8.");
+    }
+
+    @Test
+    void testByteEncoders() {
+        byte[] dati = "Alice paga Bob".getBytes(StandardCharsets.UTF_8);
+        Digest atteso = HashAlgorithms.SHA_256.hash(dati);
+
+        ByteBuffer heap = ByteBuffer.wrap(dati);
+        ByteBuffer diretto = ByteBuffer.allocateDirect(dati.length);
+        diretto.put(dati).flip();
+
+        assertEquals(atteso, LeafEncoders.BYTES.digest(dati, HashAlgorithms.SHA_256),
+                "L'hash dell'array di byte non è corretto.");
+        assertEquals(atteso, LeafEncoders.BYTE_BUFFER.digest(heap, HashAlgorithms.SHA_256),
+                "L'hash del ByteBuffer nello heap non è corretto.");
+        assertEquals(atteso, LeafEncoders.BYTE_BUFFER.digest(diretto, HashAlgorithms.SHA_256),
+                "L'hash del ByteBuffer diretto non è corretto.");
+        assertEquals(HashAlgorithms.XXHASH64.hash(dati), LeafEncoders.BYTE_BUFFER.digest(diretto, HashAlgorithms.XXHASH64),
+                "L'hash del ByteBuffer diretto con xxHash64 non è corretto.");
+        assertEquals(0, diretto.position(), "La posizione del buffer non dovrebbe cambiare.");
+
+        // L'hash scritto in un array fornito coincide con quello restituito
+        byte[] uscita = new byte[40];
+        LeafEncoders.BYTES.digest(dati, HashAlgorithms.SHA_256, uscita, 4);
+        assertArrayEquals(atteso.toByteArray(), Arrays.copyOfRange(uscita, 4, 36));
+        LeafEncoders.BYTE_BUFFER.digest(diretto, HashAlgorithms.SHA_256, uscita, 8);
+        assertArrayEquals(atteso.toByteArray(), Arrays.copyOfRange(uscita, 8, 40));
+        LeafEncoders.STRING.digest("Alice paga Bob", HashAlgorithms.SHA_256, uscita, 0);
+        assertArrayEquals(atteso.toByteArray(), Arrays.copyOfRange(uscita, 0, 32));
+        assertEquals(0, diretto.position(), "La posizione del buffer non dovrebbe cambiare.");
+    }
+
+    @Test
+    void testPrimitiveEncoders() {
+        ByteBuffer atteso = ByteBuffer.allocate(8).putLong(1332L);
+
+        assertEquals(HashAlgorithms.MD5.hash(atteso.array()), LeafEncoders.LONG.digest(1332L, HashAlgorithms.MD5),
+                "L'hash del long non corrisponde ai suoi byte big-endian.");
+        assertEquals(LeafEncoders.LONG.digest(1332L, HashAlgorithms.MD5), LeafEncoders.digest(1332L, HashAlgorithms.MD5),
+                "L'hash del long senza boxing non coincide con l'encoder.");
+        assertEquals(LeafEncoders.INTEGER.digest(7, HashAlgorithms.MD5), LeafEncoders.digest(7, HashAlgorithms.MD5),
+                "L'hash dell'intero senza boxing non coincide con l'encoder.");
+        assertEquals(LeafEncoders.DOUBLE.digest(0.5, HashAlgorithms.MD5), LeafEncoders.digest(0.5, HashAlgorithms.MD5),
+                "L'hash del double senza boxing non coincide con l'encoder.");
+        assertNotEquals(LeafEncoders.BOOLEAN.digest(true, HashAlgorithms.MD5), LeafEncoders.BOOLEAN.digest(false, HashAlgorithms.MD5),
+                "Valori booleani diversi dovrebbero avere hash diversi.");
+    }
+
+    @Test
+    void testContentBasedTree() {
+        // "Aa" e "BB" hanno lo stesso codice hash
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+
+        HashLinkedList<String> listaHashCode = new HashLinkedList<>();
+        listaHashCode.addAtTail("Aa");
+        assertTrue(new MerkleTree<>(listaHashCode).validateData("BB"),
+                "Con l'encoder predefinito i due dati collidono.");
+
+        HashLinkedList<String> listaContenuto = new HashLinkedList<>(HashAlgorithms.MD5, LeafEncoders.STRING);
+        listaContenuto.addAtTail("Aa");
+        listaContenuto.addAtTail("Alice paga Bob");
+        MerkleTree<String> albero = new MerkleTree<>(listaContenuto);
+        assertTrue(albero.validateData("Aa"), "Il dato dovrebbe essere valido.");
+        assertFalse(albero.validateData("BB"), "Il dato non dovrebbe essere valido.");
+
+        MerkleProof prova = albero.getMerkleProof("Alice paga Bob");
+        assertTrue(prova.proveValidityOfData("Alice paga Bob"), "La prova dovrebbe essere valida.");
+        assertFalse(prova.proveValidityOfData("BB"), "La prova non dovrebbe essere valida.");
+    }
+
+    @Test
+    void testLargeRecords() {
+        char[] caratteri = new char[1 << 20];
+        Arrays.fill(caratteri, 'a');
+        String grande = new String(caratteri);
+        assertEquals(HashAlgorithms.SHA_256.hash(grande.getBytes(StandardCharsets.UTF_8)),
+                LeafEncoders.STRING.digest(grande, HashAlgorithms.SHA_256));
+        assertTrue(LeafEncoders.buffer().capacity() <= 64 * 1024,
+                "Il buffer di codifica non deve restare ingrandito.");
+
+        ByteBuffer diretto = ByteBuffer.allocateDirect(1 << 20);
+        assertEquals(HashAlgorithms.SHA_256.hash(new byte[1 << 20]),
+                LeafEncoders.BYTE_BUFFER.digest(diretto, HashAlgorithms.SHA_256));
+        assertTrue(HashAlgorithms.scratch(1).length <= 64 * 1024,
+                "Il buffer di appoggio non deve restare ingrandito.");
+    }
+}
@@ -0,0 +1,276 @@
+import java.util.Arrays;
+
+/**
+ * Indice degli hash delle foglie di un albero di Merkle, che associa a ogni
+ * hash la posizione della foglia più a sinistra che lo contiene. Lo stesso
+ * indice può essere costruito su qualsiasi sequenza numerata di nodi.
+ * L'indice è una tabella hash ad indirizzamento aperto con scansione lineare
+ * che memorizza soltanto posizioni intere: gli hash veri e propri vengono
+ * letti dalla sorgente fornita alla costruzione, quindi l'indice occupa pochi
+ * byte per foglia e non crea oggetti per le singole voci.
+ *
+ * <p>
+ * La ricerca richiede tempo O(1) atteso. L'indice può essere aggiornato
+ * quando l'hash di una posizione cambia, rimuovendo la posizione prima della
+ * modifica e aggiungendola di nuovo dopo: al primo aggiornamento l'indice
+ * collega in una catena ordinata tutte le posizioni che contengono lo stesso
+ * hash, così che alla rimozione della prima occorrenza la successiva sia
+ * disponibile senza scorrere le altre posizioni.
+ */
+final class LeafIndex {
+
+    /**
+     * Sorgente degli hash indicizzati, identificati dalla loro posizione.
+     */
+    interface Source {
+
+        /**
+         * Restituisce il codice hash dell'hash nella posizione indicata, che
+         * deve coincidere con {@link Digest#hashCode()}.
+         *
+         * @param posizione
+         *                      la posizione dell'hash.
+         * @return il codice hash dell'hash.
+         */
+        int hashCodeAt(int posizione);
+
+        /**
+         * Verifica se l'hash nella posizione indicata coincide con il digest
+         * fornito.
+         *
+         * @param posizione
+         *                      la posizione dell'hash.
+         * @param digest
+         *                      il digest da confrontare.
+         * @return true se i due hash coincidono.
+         */
+        boolean matches(int posizione, Digest digest);
+
+        /**
+         * Verifica se gli hash nelle due posizioni indicate coincidono.
+         *
+         * @param posizione
+         *                      la posizione del primo hash.
+         * @param altra
+         *                      la posizione del secondo hash.
+         * @return true se i due hash coincidono.
+         */
+        boolean matches(int posizione, int altra);
+    }
+
+    private final Source sorgente; // Hash indicizzati
+
+    private final int[] posizioni; // Posizione + 1 dell'hash, 0 se libera
+
+    private final int[] codici; // Codice hash dell'hash memorizzato
+
+    private final int maschera; // Dimensione della tabella meno 1
+
+    private final int numeroPosizioni; // Numero di posizioni indicizzate
+
+    private int[] successiva; // Posizione successiva con lo stesso hash, -1 se assente
+
+    private int[] precedente; // Posizione precedente con lo stesso hash, -1 se assente
+
+    /**
+     * Costruisce l'indice degli hash nelle posizioni da 0 a
+     * {@code numeroFoglie - 1}.
+     *
+     * @param numeroFoglie
+     *                         il numero di hash da indicizzare.
+     * @param sorgente
+     *                         la sorgente degli hash.
+     */
+    LeafIndex(int numeroFoglie, Source sorgente) {
+        this.sorgente = sorgente;
+        this.numeroPosizioni = numeroFoglie;
+
+        // Mantengo la tabella piena al più per metà
+        int capacita = Integer.highestOneBit(Math.max(2 * numeroFoglie - 1, 1)) << 1;
+        this.posizioni = new int[capacita];
+        this.codici = new int[capacita];
+        this.maschera = capacita - 1;
+
+        // Inserisco gli hash da sinistra a destra: per gli hash ripetuti resta
+        // registrata la prima occorrenza
+        for(int i = 0; i < numeroFoglie; i++) {
+            int codice = sorgente.hashCodeAt(i);
+            int slot = sparpaglia(codice) & this.maschera;
+            while(this.posizioni[slot] != 0
+                    && !(this.codici[slot] == codice && sorgente.matches(this.posizioni[slot] - 1, i)))
+                slot = (slot + 1) & this.maschera;
+            if(this.posizioni[slot] == 0) {
+                this.posizioni[slot] = i + 1;
+                this.codici[slot] = codice;
+            }
+        }
+    }
+
+    /**
+     * Restituisce la posizione più a sinistra che contiene l'hash indicato.
+     *
+     * @param digest
+     *                   l'hash da cercare.
+     * @return la posizione dell'hash, oppure -1 se l'hash non è presente.
+     */
+    int indexOf(Digest digest) {
+        int codice = digest.hashCode();
+        int slot = sparpaglia(codice) & this.maschera;
+        while(this.posizioni[slot] != 0) {
+        	// Leggo l'hash dalla sorgente solo se il codice coincide
+            if(this.codici[slot] == codice && this.sorgente.matches(this.posizioni[slot] - 1, digest))
+                return this.posizioni[slot] - 1;
+            slot = (slot + 1) & this.maschera;
+        }
+        return -1;
+    }
+
+    /**
+     * Rimuove dall'indice la posizione indicata. Deve essere invocato prima
+     * di modificare l'hash della posizione nella sorgente.
+     *
+     * @param posizione
+     *                      la posizione da rimuovere.
+     */
+    void remove(int posizione) {
+        collegaCatene();
+
+        int precedenteStesso = this.precedente[posizione];
+        int successivaStesso = this.successiva[posizione];
+        this.precedente[posizione] = -1;
+        this.successiva[posizione] = -1;
+        if(precedenteStesso >= 0) {
+        	// La posizione non è la prima occorrenza: la stacco dalla catena
+            this.successiva[precedenteStesso] = successivaStesso;
+            if(successivaStesso >= 0) this.precedente[successivaStesso] = precedenteStesso;
+            return;
+        }
+
+        // La posizione è registrata nella tabella: la sostituisco con
+        // l'occorrenza successiva oppure libero lo slot
+        int slot = cercaSlot(posizione);
+        if(successivaStesso >= 0) {
+            this.precedente[successivaStesso] = -1;
+            this.posizioni[slot] = successivaStesso + 1;
+        }
+        else {
+            liberaSlot(slot);
+        }
+    }
+
+    /**
+     * Aggiunge all'indice la posizione indicata, con l'hash che contiene
+     * attualmente nella sorgente. Deve essere invocato dopo aver modificato
+     * l'hash della posizione, che deve essere stata rimossa in precedenza con
+     * {@link #remove(int)}.
+     *
+     * @param posizione
+     *                      la posizione da aggiungere.
+     */
+    void add(int posizione) {
+        collegaCatene();
+
+        int codice = this.sorgente.hashCodeAt(posizione);
+        int slot = sparpaglia(codice) & this.maschera;
+        while(this.posizioni[slot] != 0
+                && !(this.codici[slot] == codice && this.sorgente.matches(this.posizioni[slot] - 1, posizione)))
+            slot = (slot + 1) & this.maschera;
+
+        if(this.posizioni[slot] == 0) {
+            this.posizioni[slot] = posizione + 1;
+            this.codici[slot] = codice;
+            return;
+        }
+
+        int primo = this.posizioni[slot] - 1;
+        if(posizione < primo) {
+        	// La posizione diventa la prima occorrenza dell'hash
+            this.successiva[posizione] = primo;
+            this.precedente[primo] = posizione;
+            this.posizioni[slot] = posizione + 1;
+            return;
+        }
+
+        // Inserisco la posizione nella catena mantenendo l'ordine
+        int corrente = primo;
+        while(this.successiva[corrente] >= 0 && this.successiva[corrente] < posizione)
+            corrente = this.successiva[corrente];
+        int dopo = this.successiva[corrente];
+        this.successiva[posizione] = dopo;
+        this.precedente[posizione] = corrente;
+        this.successiva[corrente] = posizione;
+        if(dopo >= 0) this.precedente[dopo] = posizione;
+    }
+
+    /**
+     * Costruisce, se non esistono ancora, le catene delle posizioni che
+     * contengono lo stesso hash, in ordine crescente. Le catene vengono
+     * create solo al primo aggiornamento, così che un indice mai modificato
+     * non occupi memoria aggiuntiva.
+     */
+    private void collegaCatene() {
+        if(this.successiva != null) return;
+
+        int[] successiva = new int[this.numeroPosizioni];
+        int[] precedente = new int[this.numeroPosizioni];
+        Arrays.fill(precedente, -1);
+
+        // Scorro le posizioni da destra a sinistra ricordando, per ogni slot,
+        // l'ultima posizione incontrata, che precede tutte le successive
+        int[] ultima = new int[this.posizioni.length];
+        for(int i = this.numeroPosizioni - 1; i >= 0; i--) {
+            int codice = this.sorgente.hashCodeAt(i);
+            int slot = sparpaglia(codice) & this.maschera;
+            while(!(this.codici[slot] == codice && this.sorgente.matches(this.posizioni[slot] - 1, i)))
+                slot = (slot + 1) & this.maschera;
+            successiva[i] = ultima[slot] - 1;
+            if(ultima[slot] != 0) precedente[ultima[slot] - 1] = i;
+            ultima[slot] = i + 1;
+        }
+
+        this.successiva = successiva;
+        this.precedente = precedente;
+    }
+
+    /**
+     * Restituisce lo slot della tabella in cui è registrata la posizione
+     * indicata, che deve essere la prima occorrenza del suo hash.
+     */
+    private int cercaSlot(int posizione) {
+        int slot = sparpaglia(this.sorgente.hashCodeAt(posizione)) & this.maschera;
+        while(this.posizioni[slot] != posizione + 1) slot = (slot + 1) & this.maschera;
+        return slot;
+    }
+
+    /**
+     * Libera lo slot indicato, spostando all'indietro le voci successive
+     * della stessa sequenza di scansione che non sarebbero più raggiungibili.
+     */
+    private void liberaSlot(int slot) {
+        int libero = slot;
+        int corrente = slot;
+        while(true) {
+            corrente = (corrente + 1) & this.maschera;
+            if(this.posizioni[corrente] == 0) break;
+
+            // La voce può occupare lo slot libero se questo si trova tra il
+            // suo slot ideale e quello attuale
+            int ideale = sparpaglia(this.codici[corrente]) & this.maschera;
+            if(((corrente - ideale) & this.maschera) >= ((corrente - libero) & this.maschera)) {
+                this.posizioni[libero] = this.posizioni[corrente];
+                this.codici[libero] = this.codici[corrente];
+                libero = corrente;
+            }
+        }
+        this.posizioni[libero] = 0;
+        this.codici[libero] = 0;
+    }
+
+    /**
+     * Distribuisce i bit del codice hash, così che anche codici che
+     * differiscono solo nei bit alti occupino slot diversi.
+     */
+    private static int sparpaglia(int codice) {
+        return codice ^ (codice >>> 16);
+    }
+}
@@ -0,0 +1,659 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntConsumer;
+
+/**
+ * Rappresentazione piatta di un albero di Merkle: gli hash di tutti i nodi
+ * sono memorizzati uno dopo l'altro in un unico buffer di byte, livello per
+ * livello, a partire dalle foglie e fino alla radice, che occupa l'ultima
+ * posizione. Ogni nodo è identificato dalla sua posizione globale nel buffer;
+ * la struttura dell'albero è implicita e dipende soltanto dal numero di
+ * foglie: i figli del nodo {@code p} di un livello sono i nodi {@code 2p} e
+ * {@code 2p + 1} del livello inferiore, se esistono.
+ *
+ * <p>
+ * Rispetto a un albero di oggetti {@link MerkleNode} questa rappresentazione
+ * non crea oggetti per i nodi né per gli hash e permette di scorrere un
+ * livello accedendo alla memoria in modo sequenziale. Il buffer può essere
+ * allocato nello heap oppure fornito dall'esterno, ad esempio mappando un
+ * file in memoria.
+ */
+final class MerkleLayout implements LeafIndex.Source {
+
+    private final ByteBuffer hash; // Hash di tutti i nodi, livello per livello
+
+    private final byte[] array; // Array del buffer, null se non disponibile
+
+    private final int lunghezza; // Lunghezza in byte di ciascun hash
+
+    private final int[] inizio; // Posizione del primo nodo di ogni livello,
+                                // seguita dal numero totale di nodi
+
+    /**
+     * Costruisce la rappresentazione di un albero con il numero di foglie
+     * indicato, allocando nello heap lo spazio per tutti gli hash.
+     *
+     * @param larghezza
+     *                      il numero di foglie dell'albero.
+     * @param lunghezza
+     *                      la lunghezza in byte degli hash.
+     * @throws IllegalArgumentException
+     *                                      se l'albero è troppo grande per
+     *                                      un singolo buffer.
+     */
+    MerkleLayout(int larghezza, int lunghezza) {
+        this.inizio = geometria(larghezza);
+        this.lunghezza = lunghezza;
+
+        long dimensione = (long) numeroNodi() * lunghezza;
+        if(dimensione > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("ML: albero troppo grande");
+        this.array = new byte[(int) dimensione];
+        this.hash = ByteBuffer.wrap(this.array);
+    }
+
+    /**
+     * Costruisce la rappresentazione di un albero con il numero di foglie
+     * indicato utilizzando il buffer fornito, che deve contenere, a partire
+     * dalla sua posizione corrente, gli hash di tutti i nodi.
+     *
+     * @param hash
+     *                      il buffer contenente gli hash.
+     * @param larghezza
+     *                      il numero di foglie dell'albero.
+     * @param lunghezza
+     *                      la lunghezza in byte degli hash.
+     * @throws IllegalArgumentException
+     *                                      se il buffer non contiene tutti
+     *                                      gli hash.
+     */
+    MerkleLayout(ByteBuffer hash, int larghezza, int lunghezza) {
+        this.inizio = geometria(larghezza);
+        this.lunghezza = lunghezza;
+
+        long dimensione = (long) numeroNodi() * lunghezza;
+        if(hash.remaining() < dimensione)
+            throw new IllegalArgumentException("ML2: buffer troppo corto");
+        ByteBuffer porzione = hash.slice();
+        porzione.limit((int) dimensione);
+        this.hash = porzione;
+        this.array = porzione.hasArray() && porzione.arrayOffset() == 0 ? porzione.array() : null;
+    }
+
+    /**
+     * Calcola la posizione del primo nodo di ciascun livello di un albero con
+     * il numero di foglie indicato.
+     *
+     * @param larghezza
+     *                      il numero di foglie.
+     * @return le posizioni di inizio dei livelli, seguite dal numero totale
+     *         di nodi.
+     */
+    private static int[] geometria(int larghezza) {
+        if(larghezza <= 0)
+            throw new IllegalArgumentException("G: larghezza non valida");
+
+        // Conto i livelli: ognuno ha la metà dei nodi, arrotondata per eccesso
+        int livelli = 1;
+        for(int n = larghezza; n > 1; n = (n + 1) / 2) livelli++;
+
+        int[] inizio = new int[livelli + 1];
+        long totale = 0;
+        int n = larghezza;
+        for(int l = 0; l < livelli; l++) {
+            inizio[l] = (int) totale;
+            totale += n;
+            n = (n + 1) / 2;
+        }
+        if(totale > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("G: albero troppo grande");
+        inizio[livelli] = (int) totale;
+        return inizio;
+    }
+
+    /**
+     * Restituisce il numero di livelli dell'albero, pari all'altezza più 1.
+     */
+    int levels() {
+        return this.inizio.length - 1;
+    }
+
+    /**
+     * Restituisce il numero di nodi del livello indicato.
+     */
+    int width(int livello) {
+        return this.inizio[livello + 1] - this.inizio[livello];
+    }
+
+    /**
+     * Restituisce il numero totale di nodi dell'albero.
+     */
+    int numeroNodi() {
+        return this.inizio[this.inizio.length - 1];
+    }
+
+    /**
+     * Restituisce la lunghezza in byte degli hash.
+     */
+    int digestLength() {
+        return this.lunghezza;
+    }
+
+    /**
+     * Restituisce la posizione globale del nodo indicato dal livello e dalla
+     * posizione nel livello.
+     */
+    int node(int livello, int posizione) {
+        return this.inizio[livello] + posizione;
+    }
+
+    /**
+     * Restituisce la posizione globale della radice.
+     */
+    int root() {
+        return numeroNodi() - 1;
+    }
+
+    /**
+     * Restituisce il livello del nodo nella posizione globale indicata.
+     */
+    int levelOf(int nodo) {
+        int livello = 0;
+        while(nodo >= this.inizio[livello + 1]) livello++;
+        return livello;
+    }
+
+    /**
+     * Indica se gli hash possono soltanto essere letti, come per un file
+     * mappato in sola lettura.
+     */
+    boolean isReadOnly() {
+        return this.hash.isReadOnly();
+    }
+
+    /**
+     * Restituisce il buffer che contiene gli hash di tutti i nodi.
+     */
+    ByteBuffer buffer() {
+        return this.hash.duplicate();
+    }
+
+    /**
+     * Restituisce una copia dell'hash del nodo indicato.
+     *
+     * @param nodo
+     *                 la posizione globale del nodo.
+     * @return l'hash del nodo.
+     */
+    Digest digest(int nodo) {
+        byte[] risultato = new byte[this.lunghezza];
+        copy(nodo, risultato, 0);
+        return new Digest(risultato);
+    }
+
+    /**
+     * Copia l'hash del nodo indicato nell'array fornito.
+     *
+     * @param nodo
+     *                    la posizione globale del nodo.
+     * @param dest
+     *                    l'array di destinazione.
+     * @param destOff
+     *                    la posizione da cui iniziare la scrittura.
+     */
+    void copy(int nodo, byte[] dest, int destOff) {
+        int offset = nodo * this.lunghezza;
+        if(this.array != null) {
+            System.arraycopy(this.array, offset, dest, destOff, this.lunghezza);
+        }
+        else {
+            for(int i = 0; i < this.lunghezza; i++) dest[destOff + i] = this.hash.get(offset + i);
+        }
+    }
+
+    /**
+     * Scrive l'hash fornito nel nodo indicato.
+     *
+     * @param nodo
+     *                   la posizione globale del nodo.
+     * @param digest
+     *                   l'hash da scrivere.
+     */
+    void set(int nodo, Digest digest) {
+        if(digest.length() != this.lunghezza)
+            throw new IllegalArgumentException("S: lunghezza dell'hash non valida");
+
+        int offset = nodo * this.lunghezza;
+        byte[] bytes = digest.bytes();
+        if(this.array != null) {
+            System.arraycopy(bytes, 0, this.array, offset, this.lunghezza);
+        }
+        else {
+            for(int i = 0; i < this.lunghezza; i++) this.hash.put(offset + i, bytes[i]);
+        }
+    }
+
+    /**
+     * Ricalcola l'hash del nodo indicato del livello specificato a partire
+     * da quelli dei suoi figli. Se il nodo ha un solo figlio l'hash viene
+     * ricalcolato sull'unico hash disponibile.
+     *
+     * @param algoritmo
+     *                      l'algoritmo con cui combinare gli hash.
+     * @param livello
+     *                      il livello del nodo, maggiore di 0.
+     * @param posizione
+     *                      la posizione del nodo nel suo livello.
+     */
+    void combine(HashAlgorithm algoritmo, int livello, int posizione) {
+        int sinistro = node(livello - 1, 2 * posizione);
+        int lunghezzaDestro = 2 * posizione + 1 < width(livello - 1) ? this.lunghezza : 0;
+        int padre = node(livello, posizione);
+
+        if(this.array != null) {
+        	// I due figli sono adiacenti nel buffer
+            algoritmo.combine(this.array, sinistro * this.lunghezza, this.lunghezza,
+                    this.array, (sinistro + 1) * this.lunghezza, lunghezzaDestro,
+                    this.array, padre * this.lunghezza);
+        }
+        else {
+        	// Copio i figli e il risultato tramite un array di appoggio
+            byte[] appoggio = new byte[3 * this.lunghezza];
+            copy(sinistro, appoggio, 0);
+            if(lunghezzaDestro > 0) copy(sinistro + 1, appoggio, this.lunghezza);
+            algoritmo.combine(appoggio, 0, this.lunghezza, appoggio, this.lunghezza, lunghezzaDestro,
+                    appoggio, 2 * this.lunghezza);
+            for(int i = 0; i < this.lunghezza; i++)
+                this.hash.put(padre * this.lunghezza + i, appoggio[2 * this.lunghezza + i]);
+        }
+    }
+
+    /**
+     * Calcola gli hash di tutti i livelli a partire da quelli delle foglie,
+     * che devono essere già stati scritti.
+     *
+     * @param algoritmo
+     *                      l'algoritmo con cui combinare gli hash.
+     */
+    void build(HashAlgorithm algoritmo) {
+        for(int l = 1; l < levels(); l++)
+            for(int p = 0; p < width(l); p++)
+                combine(algoritmo, l, p);
+    }
+
+    /**
+     * Calcola gli hash di tutti i livelli a partire da quelli delle foglie,
+     * suddividendo ciascun livello tra i thread del pool indicato. I livelli
+     * vengono calcolati uno alla volta, poiché ognuno dipende dal precedente.
+     *
+     * @param algoritmo
+     *                      l'algoritmo con cui combinare gli hash.
+     * @param pool
+     *                      il pool su cui eseguire il calcolo.
+     * @param soglia
+     *                      il numero di nodi al di sotto del quale un
+     *                      intervallo viene calcolato sequenzialmente.
+     */
+    void build(HashAlgorithm algoritmo, ForkJoinPool pool, int soglia) {
+        for(int l = 1; l < levels(); l++) {
+            int livello = l;
+            parallelFor(pool, width(l), soglia, p -> combine(algoritmo, livello, p));
+        }
+    }
+
+    /**
+     * Esegue l'azione indicata per tutti gli interi da 0 a {@code n - 1},
+     * dividendo ricorsivamente l'intervallo sul pool fork-join fino a
+     * intervalli di lunghezza non superiore alla soglia.
+     *
+     * @param pool
+     *                   il pool su cui eseguire l'azione.
+     * @param n
+     *                   il numero di interi.
+     * @param soglia
+     *                   la lunghezza massima degli intervalli eseguiti
+     *                   sequenzialmente.
+     * @param azione
+     *                   l'azione da eseguire.
+     */
+    static void parallelFor(ForkJoinPool pool, int n, int soglia, IntConsumer azione) {
+        if(n <= soglia) {
+            for(int i = 0; i < n; i++) azione.accept(i);
+        }
+        else {
+            pool.invoke(new Intervallo(0, n, soglia, azione));
+        }
+    }
+
+    /**
+     * Compito fork-join che esegue un'azione su un intervallo di interi.
+     */
+    private static final class Intervallo extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int da; // Primo intero, incluso
+
+        private final int a; // Ultimo intero, escluso
+
+        private final int soglia;
+
+        private final IntConsumer azione;
+
+        Intervallo(int da, int a, int soglia, IntConsumer azione) {
+            this.da = da;
+            this.a = a;
+            this.soglia = soglia;
+            this.azione = azione;
+        }
+
+        @Override
+        protected void compute() {
+            if(this.a - this.da <= this.soglia) {
+                for(int i = this.da; i < this.a; i++) this.azione.accept(i);
+                return;
+            }
+            // Divido l'intervallo a metà ed eseguo le due parti in parallelo
+            int meta = (this.da + this.a) >>> 1;
+            invokeAll(new Intervallo(this.da, meta, this.soglia, this.azione),
+                    new Intervallo(meta, this.a, this.soglia, this.azione));
+        }
+    }
+
+    /**
+     * Verifica se gli hash dei nodi indicati di due rappresentazioni
+     * coincidono.
+     *
+     * @param nodo
+     *                      la posizione globale del nodo in questa
+     *                      rappresentazione.
+     * @param altro
+     *                      l'altra rappresentazione.
+     * @param altroNodo
+     *                      la posizione globale del nodo nell'altra
+     *                      rappresentazione.
+     * @return true se i due hash coincidono.
+     */
+    boolean matches(int nodo, MerkleLayout altro, int altroNodo) {
+        if(this.lunghezza != altro.lunghezza) return false;
+
+        int offset = nodo * this.lunghezza;
+        int altroOffset = altroNodo * this.lunghezza;
+        if(this.array != null && altro.array != null)
+            return Arrays.equals(this.array, offset, offset + this.lunghezza,
+                    altro.array, altroOffset, altroOffset + this.lunghezza);
+
+        for(int i = 0; i < this.lunghezza; i++)
+            if(this.hash.get(offset + i) != altro.hash.get(altroOffset + i)) return false;
+        return true;
+    }
+
+    /**
+     * Indica se l'albero contiene il nodo del livello e della posizione
+     * indicati.
+     */
+    boolean contains(int livello, int posizione) {
+        return livello < levels() && posizione < width(livello);
+    }
+
+    /**
+     * Confronta questa rappresentazione con un'altra, anche di larghezza
+     * diversa, e segna le posizioni delle foglie che differiscono o che sono
+     * presenti in uno solo dei due alberi. I sottoalberi con la stessa radice
+     * vengono saltati; i sottoalberi diversi al di sopra del livello
+     * sequenziale vengono confrontati in parallelo sul pool indicato.
+     *
+     * @param altro
+     *                               l'altra rappresentazione.
+     * @param bit
+     *                               l'insieme di bit delle foglie diverse,
+     *                               con almeno una parola ogni 64 foglie
+     *                               del più largo dei due alberi.
+     * @param pool
+     *                               il pool su cui eseguire il confronto,
+     *                               oppure null per eseguirlo
+     *                               sequenzialmente.
+     * @param livelloSequenziale
+     *                               il livello dei sottoalberi confrontati
+     *                               da un singolo thread, almeno 6.
+     */
+    void diff(MerkleLayout altro, long[] bit, ForkJoinPool pool, int livelloSequenziale) {
+        int livello = Math.max(levels(), altro.levels()) - 1;
+        if(pool == null || livello <= livelloSequenziale)
+            confronta(this, altro, livello, 0, bit);
+        else
+            pool.invoke(new Confronto(this, altro, livello, 0, bit, livelloSequenziale));
+    }
+
+    /**
+     * Confronta sequenzialmente il sottoalbero indicato dei due alberi.
+     */
+    private static void confronta(MerkleLayout a, MerkleLayout b, int livello, int posizione, long[] bit) {
+        if(!daVisitare(a, b, livello, posizione, bit)) return;
+        confronta(a, b, livello - 1, 2 * posizione, bit);
+        confronta(a, b, livello - 1, 2 * posizione + 1, bit);
+    }
+
+    /**
+     * Esamina il nodo indicato dei due alberi. Se il nodo coincide non c'è
+     * nulla da fare; se è una foglia diversa, o un nodo di un solo albero
+     * mentre l'altro non ha foglie nel suo intervallo, segna direttamente le
+     * foglie corrispondenti.
+     *
+     * @return true se è necessario confrontare i figli del nodo.
+     */
+    private static boolean daVisitare(MerkleLayout a, MerkleLayout b, int livello, int posizione, long[] bit) {
+        boolean inA = a.contains(livello, posizione);
+        boolean inB = b.contains(livello, posizione);
+        long prima = (long) posizione << livello;
+
+        if(inA && inB) {
+            if(a.matches(a.node(livello, posizione), b, b.node(livello, posizione))) return false;
+            if(livello > 0) return true;
+            bit[posizione >>> 6] |= 1L << posizione;
+            return false;
+        }
+        if(!inA && !inB) return false;
+
+        // Il nodo è presente in un solo albero: se l'altro ha foglie nello
+        // stesso intervallo devo scendere, altrimenti le foglie sono tutte diverse
+        MerkleLayout presente = inA ? a : b;
+        MerkleLayout assente = inA ? b : a;
+        if(assente.width(0) > prima) return true;
+        segna(bit, (int) prima, (int) Math.min(prima + (1L << livello), presente.width(0)));
+        return false;
+    }
+
+    /**
+     * Segna i bit delle posizioni da {@code da} incluso ad {@code a} escluso.
+     */
+    private static void segna(long[] bit, int da, int a) {
+        for(int i = da; i < a; i++) bit[i >>> 6] |= 1L << i;
+    }
+
+    /**
+     * Compito fork-join che confronta un sottoalbero di due alberi,
+     * dividendosi sui figli diversi. I compiti al di sopra del livello
+     * sequenziale, almeno 6, coprono intervalli di foglie allineati a 64:
+     * ciascun compito scrive quindi parole dell'insieme di bit diverse da
+     * quelle degli altri.
+     */
+    private static final class Confronto extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final MerkleLayout a;
+
+        private final MerkleLayout b;
+
+        private final int livello;
+
+        private final int posizione;
+
+        private final long[] bit;
+
+        private final int livelloSequenziale;
+
+        Confronto(MerkleLayout a, MerkleLayout b, int livello, int posizione, long[] bit, int livelloSequenziale) {
+            this.a = a;
+            this.b = b;
+            this.livello = livello;
+            this.posizione = posizione;
+            this.bit = bit;
+            this.livelloSequenziale = livelloSequenziale;
+        }
+
+        @Override
+        protected void compute() {
+            if(this.livello <= this.livelloSequenziale) {
+                confronta(this.a, this.b, this.livello, this.posizione, this.bit);
+                return;
+            }
+            if(!daVisitare(this.a, this.b, this.livello, this.posizione, this.bit)) return;
+            invokeAll(new Confronto(this.a, this.b, this.livello - 1, 2 * this.posizione, this.bit,
+                    this.livelloSequenziale),
+                    new Confronto(this.a, this.b, this.livello - 1, 2 * this.posizione + 1, this.bit,
+                            this.livelloSequenziale));
+        }
+    }
+
+    /**
+     * Verifica che l'hash di ogni nodo interno coincida con quello calcolato
+     * a partire dagli hash memorizzati dei suoi figli. I nodi vengono
+     * verificati in ordine di posizione globale, dividendo l'intervallo sul
+     * pool indicato; al primo nodo incoerente tutti i compiti terminano.
+     *
+     * @param algoritmo
+     *                      l'algoritmo con cui combinare gli hash.
+     * @param pool
+     *                      il pool su cui eseguire la verifica, oppure null
+     *                      per eseguirla sequenzialmente.
+     * @param soglia
+     *                      il numero massimo di nodi verificati da un
+     *                      singolo compito.
+     * @return true se tutti i nodi interni sono coerenti.
+     */
+    boolean isConsistent(HashAlgorithm algoritmo, ForkJoinPool pool, int soglia) {
+        int primo = width(0);
+        int ultimo = numeroNodi();
+        if(pool == null || ultimo - primo <= soglia)
+            return verifica(algoritmo, primo, ultimo, null);
+        return pool.invoke(new Verifica(this, algoritmo, primo, ultimo, soglia, new AtomicBoolean()));
+    }
+
+    /**
+     * Verifica i nodi interni con posizione globale da {@code da} incluso ad
+     * {@code a} escluso.
+     *
+     * @param fallita
+     *                    segnala a tutti i compiti che è stato trovato un
+     *                    nodo incoerente, oppure null se la verifica è
+     *                    sequenziale.
+     * @return true se tutti i nodi dell'intervallo sono coerenti.
+     */
+    private boolean verifica(HashAlgorithm algoritmo, int da, int a, AtomicBoolean fallita) {
+        if(da >= a) return true;
+
+        byte[] appoggio = new byte[3 * this.lunghezza];
+        int livello = levelOf(da);
+        for(int nodo = da; nodo < a; nodo++) {
+            if(nodo == this.inizio[livello + 1]) livello++;
+            // Controllo periodicamente se un altro compito ha già fallito
+            if(fallita != null && (nodo & 1023) == 0 && fallita.get()) return false;
+
+            // Ricalcolo l'hash dai figli nell'array di appoggio
+            int sinistro = node(livello - 1, 2 * (nodo - this.inizio[livello]));
+            int lunghezzaDestro = sinistro + 1 < this.inizio[livello] ? this.lunghezza : 0;
+            copy(sinistro, appoggio, 0);
+            if(lunghezzaDestro > 0) copy(sinistro + 1, appoggio, this.lunghezza);
+            algoritmo.combine(appoggio, 0, this.lunghezza, appoggio, this.lunghezza, lunghezzaDestro,
+                    appoggio, 2 * this.lunghezza);
+
+            if(!matches(nodo, appoggio, 2 * this.lunghezza)) {
+                if(fallita != null) fallita.set(true);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compito fork-join che verifica la coerenza di un intervallo di nodi.
+     */
+    private static final class Verifica extends RecursiveTask<Boolean> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final MerkleLayout layout;
+
+        private final HashAlgorithm algoritmo;
+
+        private final int da; // Primo nodo, incluso
+
+        private final int a; // Ultimo nodo, escluso
+
+        private final int soglia;
+
+        private final AtomicBoolean fallita;
+
+        Verifica(MerkleLayout layout, HashAlgorithm algoritmo, int da, int a, int soglia, AtomicBoolean fallita) {
+            this.layout = layout;
+            this.algoritmo = algoritmo;
+            this.da = da;
+            this.a = a;
+            this.soglia = soglia;
+            this.fallita = fallita;
+        }
+
+        @Override
+        protected Boolean compute() {
+            if(this.fallita.get()) return false;
+            if(this.a - this.da <= this.soglia)
+                return this.layout.verifica(this.algoritmo, this.da, this.a, this.fallita);
+
+            int meta = (this.da + this.a) >>> 1;
+            Verifica sinistra = new Verifica(this.layout, this.algoritmo, this.da, meta, this.soglia, this.fallita);
+            sinistra.fork();
+            boolean destra = new Verifica(this.layout, this.algoritmo, meta, this.a, this.soglia, this.fallita)
+                    .compute();
+            return sinistra.join() && destra;
+        }
+    }
+
+    @Override
+    public int hashCodeAt(int nodo) {
+        if(this.lunghezza < 4) return digest(nodo).hashCode();
+        // Come in Digest, il codice hash è dato dai primi quattro byte
+        return this.hash.getInt(nodo * this.lunghezza);
+    }
+
+    @Override
+    public boolean matches(int nodo, Digest digest) {
+        if(digest.length() != this.lunghezza) return false;
+        return matches(nodo, digest.bytes(), 0);
+    }
+
+    /**
+     * Verifica se l'hash del nodo indicato coincide con i byte dell'array
+     * fornito a partire dalla posizione indicata.
+     */
+    private boolean matches(int nodo, byte[] bytes, int inizioBytes) {
+        int offset = nodo * this.lunghezza;
+        if(this.array != null)
+            return Arrays.equals(this.array, offset, offset + this.lunghezza, bytes, inizioBytes,
+                    inizioBytes + this.lunghezza);
+
+        for(int i = 0; i < this.lunghezza; i++)
+            if(this.hash.get(offset + i) != bytes[inizioBytes + i]) return false;
+        return true;
+    }
+
+    @Override
+    public boolean matches(int nodo, int altro) {
+        return matches(nodo, this, altro);
+    }
+}
@@ -0,0 +1,234 @@
+import java.util.List;
+
+/**
+ * Una prova di Merkle per più foglie dello stesso albero. Le prove
+ * indipendenti di k foglie ripetono gli hash dei nodi che i loro cammini
+ * verso la radice hanno in comune; questa prova contiene invece ogni hash
+ * necessario una sola volta e omette quelli dei nodi che la verifica calcola
+ * da sé, perché antenati di qualche foglia provata.
+ *
+ * <p>
+ * La prova è formata dalla larghezza dell'albero, dalle posizioni delle
+ * foglie provate in ordine crescente e dagli hash dei nodi fratelli
+ * necessari, nell'ordine in cui la verifica li utilizza: livello per livello
+ * a partire dalle foglie e, in ogni livello, da sinistra a destra. La
+ * verifica ricostruisce in un'unica passata tutti i cammini e confronta il
+ * risultato con l'hash della radice.
+ */
+public class MerkleMultiProof {
+
+    /**
+     * L'hash binario della radice dell'albero di Merkle.
+     */
+    private final Digest rootDigest;
+
+    /**
+     * Il numero di foglie dell'albero, da cui dipende la sua struttura.
+     */
+    private final int width;
+
+    /**
+     * Le posizioni delle foglie provate, in ordine crescente e senza
+     * ripetizioni.
+     */
+    private final int[] leafIndices;
+
+    /**
+     * Gli hash dei nodi fratelli necessari alla verifica, nell'ordine in cui
+     * vengono utilizzati.
+     */
+    private final Digest[] hashes;
+
+    /**
+     * L'algoritmo di hash con cui combinare gli hash della prova.
+     */
+    private final HashAlgorithm algorithm;
+
+    /**
+     * L'encoder con cui vengono codificati i dati da validare.
+     */
+    private final LeafEncoder<Object> encoder;
+
+    /**
+     * Costruisce una prova per più foglie di un albero costruito con
+     * l'algoritmo di hash e l'encoder indicati. Gli array forniti vengono
+     * copiati.
+     *
+     * @param rootDigest
+     *                        l'hash binario della radice dell'albero.
+     * @param width
+     *                        il numero di foglie dell'albero.
+     * @param leafIndices
+     *                        le posizioni delle foglie provate, in ordine
+     *                        strettamente crescente.
+     * @param hashes
+     *                        gli hash dei nodi fratelli necessari, nell'ordine
+     *                        in cui vengono utilizzati dalla verifica.
+     * @param algorithm
+     *                        l'algoritmo di hash dell'albero.
+     * @param encoder
+     *                        l'encoder con cui sono codificati i dati
+     *                        dell'albero.
+     * @throws IllegalArgumentException
+     *                                      se un parametro è null, la
+     *                                      larghezza non è positiva o le
+     *                                      posizioni non sono valide.
+     */
+    @SuppressWarnings("unchecked")
+    public MerkleMultiProof(Digest rootDigest, int width, int[] leafIndices, Digest[] hashes,
+            HashAlgorithm algorithm, LeafEncoder<?> encoder) {
+    	if(rootDigest == null || leafIndices == null || hashes == null || algorithm == null || encoder == null)
+    		throw new IllegalArgumentException("MMP: parametri null");
+    	if(width <= 0 || leafIndices.length == 0)
+    		throw new IllegalArgumentException("MMP: larghezza o foglie non valide");
+    	for(int i = 0; i < leafIndices.length; i++) {
+    		if(leafIndices[i] < 0 || leafIndices[i] >= width || (i > 0 && leafIndices[i] <= leafIndices[i - 1]))
+    			throw new IllegalArgumentException("MMP: posizioni delle foglie non valide");
+    	}
+    	for(Digest hash : hashes) {
+    		if(hash == null)
+    			throw new IllegalArgumentException("MMP: hash null");
+    	}
+
+        this.rootDigest = rootDigest;
+        this.width = width;
+        this.leafIndices = leafIndices.clone();
+        this.hashes = hashes.clone();
+        this.algorithm = algorithm;
+        this.encoder = (LeafEncoder<Object>) encoder;
+    }
+
+    /**
+     * Restituisce le posizioni delle foglie provate, in ordine crescente.
+     *
+     * @return una copia delle posizioni delle foglie.
+     */
+    public int[] getLeafIndices() {
+        return this.leafIndices.clone();
+    }
+
+    /**
+     * Restituisce il numero di foglie dell'albero.
+     *
+     * @return la larghezza dell'albero.
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Restituisce il numero di hash contenuti nella prova.
+     *
+     * @return il numero di hash.
+     */
+    public int getHashCount() {
+        return this.hashes.length;
+    }
+
+    /**
+     * Restituisce gli hash contenuti nella prova, nell'ordine in cui vengono
+     * utilizzati dalla verifica.
+     *
+     * @return una copia degli hash della prova.
+     */
+    public Digest[] getHashes() {
+        return this.hashes.clone();
+    }
+
+    /**
+     * Restituisce l'algoritmo di hash con cui viene verificata la prova.
+     *
+     * @return l'algoritmo di hash della prova.
+     */
+    public HashAlgorithm getAlgorithm() {
+        return this.algorithm;
+    }
+
+    /**
+     * Valida insieme i dati delle foglie provate. L'i-esimo dato deve
+     * corrispondere all'i-esima posizione restituita da
+     * {@link #getLeafIndices()}.
+     *
+     * @param data
+     *                 i dati da validare.
+     * @return true se tutti i dati sono validi secondo la prova; false
+     *         altrimenti.
+     * @throws IllegalArgumentException
+     *                                      se la lista o un dato sono null, o
+     *                                      se il numero di dati non coincide
+     *                                      con quello delle foglie.
+     */
+    public boolean proveValidityOfData(List<?> data) {
+    	if(data == null || data.size() != this.leafIndices.length)
+    		throw new IllegalArgumentException("PVD: numero di dati non valido");
+
+    	Digest[] hashFoglie = new Digest[data.size()];
+    	for(int i = 0; i < hashFoglie.length; i++) {
+    		Object dato = data.get(i);
+    		if(dato == null)
+    			throw new IllegalArgumentException("PVD: dato null");
+    		hashFoglie[i] = this.encoder.digest(dato, this.algorithm);
+    	}
+        return proveValidityOfDigests(hashFoglie);
+    }
+
+    /**
+     * Valida insieme gli hash delle foglie provate, come
+     * {@link #proveValidityOfData(List)}.
+     *
+     * @param leafHashes
+     *                       gli hash delle foglie, nell'ordine di
+     *                       {@link #getLeafIndices()}.
+     * @return true se tutti gli hash sono validi secondo la prova; false
+     *         altrimenti.
+     * @throws IllegalArgumentException
+     *                                      se l'array o un hash sono null, o
+     *                                      se il numero di hash non coincide
+     *                                      con quello delle foglie.
+     */
+    public boolean proveValidityOfDigests(Digest... leafHashes) {
+    	if(leafHashes == null || leafHashes.length != this.leafIndices.length)
+    		throw new IllegalArgumentException("PVDS: numero di hash non valido");
+    	for(Digest hash : leafHashes) {
+    		if(hash == null)
+    			throw new IllegalArgumentException("PVDS: hash null");
+    	}
+
+    	// Posizioni e hash dei nodi noti nel livello corrente, in ordine
+    	int[] posizioni = this.leafIndices.clone();
+    	Digest[] correnti = leafHashes.clone();
+    	int numero = posizioni.length;
+    	int larghezzaLivello = this.width;
+    	int usati = 0;
+
+    	while(larghezzaLivello > 1) {
+    		int nuovi = 0;
+    		for(int i = 0; i < numero; i++) {
+    			int posizione = posizioni[i];
+    			Digest padre;
+    			if((posizione & 1) == 0 && i + 1 < numero && posizioni[i + 1] == posizione + 1) {
+    				// Entrambi i figli sono noti
+    				padre = this.algorithm.combine(correnti[i], correnti[++i]);
+    			}
+    			else if((posizione & 1) == 0 && posizione + 1 >= larghezzaLivello) {
+    				// Ultimo nodo di un livello dispari, senza fratello
+    				padre = this.algorithm.combine(correnti[i], Digest.EMPTY);
+    			}
+    			else {
+    				// Il fratello è il prossimo hash della prova
+    				if(usati == this.hashes.length) return false;
+    				Digest fratello = this.hashes[usati++];
+    				padre = (posizione & 1) == 0 ? this.algorithm.combine(correnti[i], fratello)
+    						: this.algorithm.combine(fratello, correnti[i]);
+    			}
+    			posizioni[nuovi] = posizione >>> 1;
+    			correnti[nuovi++] = padre;
+    		}
+    		numero = nuovi;
+    		larghezzaLivello = (larghezzaLivello + 1) / 2;
+    	}
+
+    	// Tutti gli hash della prova devono essere stati utilizzati
+        return usati == this.hashes.length && correnti[0].equals(this.rootDigest);
+    }
+}
@@ -0,0 +1,158 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di test per la classe {@link MerkleMultiProof}. Questa classe
+ * verifica la costruzione delle prove per più foglie tramite
+ * {@link MerkleTree#getMerkleMultiProof(int...)} e la loro verifica. Di
+ * seguito, l'elenco dei test inclusi con una breve descrizione:
+ *
+ * <ul>
+ * <li>{@link #testAllSubsetsSmallTrees()}: Prova tutti i sottoinsiemi di
+ * foglie di alberi fino a 9 foglie e verifica le prove ottenute.</li>
+ *
+ * <li>{@link #testCompactness()}: Verifica che la prova contenga meno hash
+ * della somma delle prove indipendenti e nessuno per l'insieme di tutte le
+ * foglie.</li>
+ *
+ * <li>{@link #testInvalidData()}: Verifica che dati alterati, in ordine
+ * diverso o hash della prova mancanti o in eccesso rendano la prova non
+ * valida.</li>
+ *
+ * <li>{@link #testMultiProofByData()}: Costruisce la prova a partire dai dati,
+ * anche ripetuti, con un algoritmo e un encoder diversi da quelli
+ * predefiniti.</li>
+ *
+ * <li>{@link #testInvalidParameters()}: Verifica le eccezioni per parametri
+ * non validi.</li>
+ * </ul>
+ */
+class MerkleMultiProofTest {
+
+    /**
+     * Costruisce un albero con i dati "Dato 0", "Dato 1", ...
+     */
+    private static MerkleTree<String> alberoDi(int larghezza) {
+        HashLinkedList<String> lista = new HashLinkedList<>();
+        for (int i = 0; i < larghezza; i++) lista.addAtTail("Dato " + i);
+        return new MerkleTree<>(lista);
+    }
+
+    @Test
+    void testAllSubsetsSmallTrees() {
+        for (int larghezza = 1; larghezza <= 9; larghezza++) {
+            MerkleTree<String> albero = alberoDi(larghezza);
+            for (int insieme = 1; insieme < 1 << larghezza; insieme++) {
+                List<Integer> indici = new ArrayList<>();
+                List<String> dati = new ArrayList<>();
+                for (int i = 0; i < larghezza; i++) {
+                    if ((insieme & (1 << i)) != 0) {
+                        indici.add(i);
+                        dati.add("Dato " + i);
+                    }
+                }
+                MerkleMultiProof prova = albero.getMerkleMultiProof(indici.stream().mapToInt(i -> i).toArray());
+                assertTrue(prova.proveValidityOfData(dati),
+                        "Prova non valida per le foglie " + indici + " su " + larghezza);
+            }
+        }
+    }
+
+    @Test
+    void testCompactness() {
+        MerkleTree<String> albero = alberoDi(1000);
+        Random random = new Random(3);
+        int[] indici = random.ints(200, 0, 1000).toArray();
+        MerkleMultiProof prova = albero.getMerkleMultiProof(indici);
+
+        int provaSingola = 0;
+        for (int indice : prova.getLeafIndices()) provaSingola += albero.getMerkleProof(indice).getLength();
+        assertTrue(prova.getHashCount() < provaSingola / 2,
+                "La prova deve essere molto più piccola delle prove separate: " + prova.getHashCount());
+
+        List<String> dati = new ArrayList<>();
+        for (int indice : prova.getLeafIndices()) dati.add("Dato " + indice);
+        assertTrue(prova.proveValidityOfData(dati));
+
+        // Provando tutte le foglie la verifica non ha bisogno di altri hash
+        int[] tutte = new int[1000];
+        for (int i = 0; i < tutte.length; i++) tutte[i] = i;
+        assertEquals(0, albero.getMerkleMultiProof(tutte).getHashCount());
+    }
+
+    @Test
+    void testInvalidData() {
+        MerkleTree<String> albero = alberoDi(13);
+        MerkleMultiProof prova = albero.getMerkleMultiProof(2, 7, 12);
+        assertTrue(prova.proveValidityOfData(Arrays.asList("Dato 2", "Dato 7", "Dato 12")));
+        assertFalse(prova.proveValidityOfData(Arrays.asList("Dato 2", "Dato 8", "Dato 12")),
+                "Un dato alterato non deve essere valido.");
+        assertFalse(prova.proveValidityOfData(Arrays.asList("Dato 7", "Dato 2", "Dato 12")),
+                "I dati devono seguire l'ordine delle foglie.");
+
+        // La stessa prova ricostruita dai suoi componenti resta valida, ma non
+        // con un hash mancante o in eccesso
+        Digest radice = albero.getRoot().getDigest();
+        Digest[] hash = prova.getHashes();
+        Digest[] foglie = new Digest[3];
+        for (int i = 0; i < 3; i++) foglie[i] = HashAlgorithms.MD5.dataToDigest("Dato " + prova.getLeafIndices()[i]);
+        assertTrue(new MerkleMultiProof(radice, 13, prova.getLeafIndices(), hash, HashAlgorithms.MD5,
+                LeafEncoders.hashCodeEncoder()).proveValidityOfDigests(foglie));
+        MerkleMultiProof corta = new MerkleMultiProof(radice, 13, prova.getLeafIndices(),
+                Arrays.copyOf(hash, hash.length - 1), HashAlgorithms.MD5, LeafEncoders.hashCodeEncoder());
+        assertFalse(corta.proveValidityOfDigests(foglie));
+        Digest[] inEccesso = Arrays.copyOf(hash, hash.length + 1);
+        inEccesso[hash.length] = hash[0];
+        MerkleMultiProof lunga = new MerkleMultiProof(radice, 13, prova.getLeafIndices(), inEccesso,
+                HashAlgorithms.MD5, LeafEncoders.hashCodeEncoder());
+        assertFalse(lunga.proveValidityOfDigests(foglie));
+    }
+
+    @Test
+    void testMultiProofByData() {
+        HashLinkedList<String> lista = new HashLinkedList<>(HashAlgorithms.SHA_256, LeafEncoders.STRING);
+        for (String dato : new String[] { "Alice", "Bob", "Charlie", "Bob", "Diana", "Eve", "Frank" })
+            lista.addAtTail(dato);
+        MerkleTree<String> albero = new MerkleTree<>(lista);
+
+        MerkleMultiProof prova = albero.getMerkleMultiProof(Arrays.asList("Frank", "Bob", "Alice", "Bob"));
+        assertArrayEquals(new int[] { 0, 1, 6 }, prova.getLeafIndices(),
+                "Le foglie devono essere ordinate, senza ripetizioni e più a sinistra possibile.");
+        assertEquals(7, prova.getWidth());
+        assertEquals(HashAlgorithms.SHA_256, prova.getAlgorithm());
+        assertTrue(prova.proveValidityOfData(Arrays.asList("Alice", "Bob", "Frank")));
+        assertFalse(prova.proveValidityOfData(Arrays.asList("Alice", "Bob", "Eve")));
+        assertThrows(IllegalArgumentException.class,
+                () -> albero.getMerkleMultiProof(Collections.singletonList("Zoe")));
+    }
+
+    @Test
+    void testInvalidParameters() {
+        MerkleTree<String> albero = alberoDi(5);
+        assertThrows(IllegalArgumentException.class, () -> albero.getMerkleMultiProof(new int[0]));
+        assertThrows(IllegalArgumentException.class, () -> albero.getMerkleMultiProof((int[]) null));
+        assertThrows(IllegalArgumentException.class, () -> albero.getMerkleMultiProof(0, 5));
+        assertThrows(IllegalArgumentException.class, () -> albero.getMerkleMultiProof(-1));
+
+        MerkleMultiProof prova = albero.getMerkleMultiProof(1, 3);
+        assertThrows(IllegalArgumentException.class,
+                () -> prova.proveValidityOfData(Collections.singletonList("Dato 1")));
+        assertThrows(IllegalArgumentException.class, () -> prova.proveValidityOfData(Arrays.asList("Dato 1", null)));
+        assertThrows(IllegalArgumentException.class, () -> prova.proveValidityOfData(null));
+
+        Digest radice = albero.getRoot().getDigest();
+        assertThrows(IllegalArgumentException.class, () -> new MerkleMultiProof(radice, 5, new int[] { 3, 1 },
+                new Digest[0], HashAlgorithms.MD5, LeafEncoders.hashCodeEncoder()));
+        assertThrows(IllegalArgumentException.class, () -> new MerkleMultiProof(radice, 5, new int[] { 5 },
+                new Digest[0], HashAlgorithms.MD5, LeafEncoders.hashCodeEncoder()));
+        assertThrows(IllegalArgumentException.class, () -> new MerkleMultiProof(radice, 5, new int[] { 1 },
+                new Digest[] { null }, HashAlgorithms.MD5, LeafEncoders.hashCodeEncoder()));
+    }
+}
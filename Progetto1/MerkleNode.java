@@ -1,8 +1,21 @@
 /**
  * Rappresenta un nodo di un albero di Merkle.
+ *
+ * <p>
+ * I nodi restituiti da {@link MerkleTree} copiano il proprio hash dalla
+ * rappresentazione piatta dell'albero alla creazione e ridefiniscono i
+ * metodi di accesso ai figli, che vengono creati solo quando richiesti; dopo
+ * un aggiornamento dell'albero questi metodi lanciano
+ * {@link java.util.ConcurrentModificationException}. Per questo motivo i
+ * metodi di questa classe accedono ai figli sempre tramite i rispettivi
+ * metodi.
  */
 public class MerkleNode {
-    private final String hash; // Hash associato al nodo.
+    private final Digest digest; // Hash binario associato al nodo, null se
+                                 // l'hash fornito non è esadecimale.
+
+    private String hash; // Rappresentazione testuale dell'hash, calcolata
+                         // solo quando richiesta.
 
     private final MerkleNode left; // Figlio sinistro del nodo.
 
@@ -32,6 +45,36 @@ public class MerkleNode {
      */
     public MerkleNode(String hash, MerkleNode left, MerkleNode right) {
         this.hash = hash;
+        this.digest = Digest.parseHex(hash);
+        this.left = left;
+        this.right = right;
+    }
+
+    /**
+     * Costruisce un nodo Merkle foglia a partire da un hash binario.
+     *
+     * @param digest
+     *                   l'hash binario associato al nodo.
+     */
+    public MerkleNode(Digest digest) {
+        this(digest, null, null);
+    }
+
+    /**
+     * Costruisce un nodo Merkle con un hash binario e due figli. La
+     * rappresentazione esadecimale dell'hash viene calcolata solo se richiesta
+     * tramite {@link #getHash()}.
+     *
+     * @param digest
+     *                   l'hash binario associato al nodo.
+     * @param left
+     *                   il figlio sinistro.
+     * @param right
+     *                   il figlio destro.
+     */
+    public MerkleNode(Digest digest, MerkleNode left, MerkleNode right) {
+        this.digest = digest;
+        this.hash = null;
         this.left = left;
         this.right = right;
     }
@@ -42,9 +85,21 @@ public class MerkleNode {
      * @return l'hash associato al nodo.
      */
     public String getHash() {
+    	// Calcolo la rappresentazione esadecimale solo al primo accesso
+        if(this.hash == null && getDigest() != null) this.hash = getDigest().toHex();
         return this.hash;
     }
 
+    /**
+     * Restituisce l'hash binario associato al nodo, oppure null se il nodo è
+     * stato costruito con un hash che non è una stringa esadecimale.
+     *
+     * @return l'hash binario associato al nodo.
+     */
+    public Digest getDigest() {
+        return this.digest;
+    }
+
     /**
      * Restituisce il figlio sinistro del nodo.
      *
@@ -70,12 +125,12 @@ public class MerkleNode {
      */
     public boolean isLeaf() {
     	// Un nodo è una foglia se entrambi i figli sono null
-    	return this.left == null && this.right == null;
+    	return getLeft() == null && getRight() == null;
     }
 
     @Override
     public String toString() {
-        return this.hash;
+        return getHash();
     }
 
     /* due nodi sono uguali se hanno lo stesso hash */
@@ -93,9 +148,14 @@ public class MerkleNode {
         // Effettuo il cast dell'oggetto passato a MerkleNode
         MerkleNode altroNodo = (MerkleNode) obj;
         
+        // Se entrambi i nodi hanno un hash binario, li confronto direttamente
+        Digest digest = getDigest();
+        if(digest != null && altroNodo.getDigest() != null)
+        	return digest.equals(altroNodo.getDigest());
+        
         // Confronto l'hash dell'istanza corrente con l'hash dell'oggetto passato
         // Due nodi sono uguali se i loro hash sono uguali
-        return this.hash.equals(altroNodo.getHash());
+        return this.getHash().equals(altroNodo.getHash());
     }
 
     /* implementare in accordo a equals */
@@ -106,8 +166,14 @@ public class MerkleNode {
     	// Inizio il calcolo del codice hash con un valore iniziale
         int risultato = 1;
         
+        // Calcolo il codice hash sull'hash binario, se presente, in modo da
+        // essere coerente con equals
+        Digest digest = getDigest();
+        if(digest != null) return primo * risultato + digest.hashCode();
+        
         // Calcolo il codice hash sull'hash dell'oggetto corrente
         // Se l'hash è null, uso 0; altrimenti, uso il codice hash dell'hash stringa
-        return primo * risultato + (this.hash == null ? 0 : this.hash.hashCode());
+        String hash = getHash();
+        return primo * risultato + (hash == null ? 0 : hash.hashCode());
     }
 }
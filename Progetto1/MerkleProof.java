@@ -1,25 +1,59 @@
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
 /**
  * Una classe che rappresenta una prova di Merkle per un determinato albero di
  * Merkle ed un suo elemento o branch. Oggetti di questa classe rappresentano un
- * proccesso di verifica auto-contenuto, dato da una sequenza di oggetti
- * MerkleProofHash che rappresentano i passaggi necessari per validare un dato
- * elemento o branch in un albero di Merkle decisi al momento di costruzione
- * della prova.
+ * proccesso di verifica auto-contenuto, dato da una sequenza di passi (un hash
+ * e il lato su cui concatenarlo) necessari per validare un dato elemento o
+ * branch in un albero di Merkle decisi al momento di costruzione della prova.
+ *
+ * <p>
+ * Gli hash dei passi sono memorizzati in forma compatta, uno dopo l'altro in
+ * un unico array di byte dimensionato sulla lunghezza della prova, e i lati
+ * in un array di flag: l'aggiunta di un passo non crea oggetti né calcola
+ * hash, e la verifica combina gli hash
+ * direttamente in un buffer riutilizzato dal thread corrente, senza creare
+ * stringhe, digest o altri oggetti a ogni passo.
+ *
+ * <p>
+ * Una prova può essere trasmessa in un formato binario compatto con
+ * {@link #encode(ByteBuffer)} e ricostruita con
+ * {@link #decode(ByteBuffer, LeafEncoder)} o, senza copiarne gli hash, con
+ * {@link #MerkleProof(ByteBuffer, LeafEncoder)}. Il formato è composto, in
+ * ordine, da:
+ * <ul>
+ * <li>un byte con la versione del formato;</li>
+ * <li>un byte con la lunghezza del nome dell'algoritmo di hash, seguito dal
+ * nome in UTF-8;</li>
+ * <li>un byte con la lunghezza massima della prova e uno con il numero di
+ * passi;</li>
+ * <li>l'hash binario della radice;</li>
+ * <li>una maschera di bit con i lati dei passi (1 se l'hash va concatenato a
+ * sinistra) e una con i passi senza fratello, un bit per passo a partire dal
+ * bit meno significativo del primo byte;</li>
+ * <li>gli hash binari dei passi con fratello, concatenati.</li>
+ * </ul>
+ * Gli hash occupano la metà dello spazio della loro forma esadecimale e i
+ * lati dei passi un solo bit ciascuno.
  */
 public class MerkleProof {
 
-    /**
-     * La prova di Merkle, rappresentata come una lista concatenata di oggetti
-     * MerkleProofHash.
-     */
-    private final HashLinkedList<MerkleProofHash> proof;
-
     /**
      * L'hash della radice dell'albero di Merkle per il quale la prova è stata
      * costruita.
      */
     private final String rootHash;
 
+    /**
+     * L'hash binario della radice, null se l'hash fornito non è una stringa
+     * esadecimale valida (in tal caso nessuna verifica può avere successo).
+     */
+    private final Digest rootDigest;
+
     /**
      * Lunghezza massima della prova, dato dal numero di hash che la compongono
      * quando completa. Serve ad evitare che la prova venga modificata una volta
@@ -27,6 +61,64 @@ public class MerkleProof {
      */
     private final int length;
 
+    /**
+     * L'algoritmo di hash con cui combinare gli hash della prova.
+     */
+    private final HashAlgorithm algorithm;
+
+    /**
+     * L'encoder con cui vengono codificati i dati da validare.
+     */
+    private final LeafEncoder<Object> encoder;
+
+    /**
+     * Buffer di appoggio riutilizzato da ciascun thread durante la verifica.
+     */
+    private static final ThreadLocal<byte[]> APPOGGIO = ThreadLocal.withInitial(() -> new byte[64]);
+
+    /**
+     * Versione del formato binario della prova.
+     */
+    private static final int VERSIONE = 1;
+
+    /**
+     * Gli hash binari dei passi della prova, concatenati nell'ordine in cui
+     * sono stati aggiunti.
+     */
+    private byte[] passi;
+
+    /**
+     * La posizione in {@link #passi} in cui inizia l'hash del primo passo.
+     */
+    private int inizioPassi;
+
+    /**
+     * Indica se {@link #passi} è l'array di un buffer fornito dall'esterno,
+     * che va copiato prima di aggiungere altri passi.
+     */
+    private boolean passiCondivisi;
+
+    /**
+     * La posizione in {@link #passi} in cui termina l'hash di ciascun passo.
+     */
+    private final int[] finePassi;
+
+    /**
+     * Indica, per ciascun passo, se l'hash va concatenato a sinistra.
+     */
+    private final boolean[] sinistra;
+
+    /**
+     * Il numero di passi aggiunti alla prova.
+     */
+    private int numeroPassi;
+
+    /**
+     * Indica, per ciascun passo, se il suo hash non era esadecimale, il che
+     * rende la prova non valida. È null se tutti i passi sono validi.
+     */
+    private boolean[] passiNonValidi;
+
     /**
      * Costruisce una nuova prova di Merkle per un dato albero di Merkle,
      * specificando la radice dell'albero e la lunghezza massima della prova. La
@@ -39,11 +131,295 @@ public class MerkleProof {
      *                     la lunghezza massima della prova.
      */
     public MerkleProof(String rootHash, int length) {
+        this(rootHash, length, HashAlgorithms.MD5);
+    }
+
+    /**
+     * Costruisce una nuova prova di Merkle per un albero costruito con
+     * l'algoritmo di hash indicato.
+     *
+     * @param rootHash
+     *                      l'hash della radice dell'albero di Merkle.
+     * @param length
+     *                      la lunghezza massima della prova.
+     * @param algorithm
+     *                      l'algoritmo di hash dell'albero.
+     */
+    public MerkleProof(String rootHash, int length, HashAlgorithm algorithm) {
         if (rootHash == null)
             throw new IllegalArgumentException("The root hash is null");
-        this.proof = new HashLinkedList<>();
+        if (algorithm == null)
+            throw new IllegalArgumentException("The algorithm is null");
         this.rootHash = rootHash;
+        this.rootDigest = Digest.parseHex(rootHash);
         this.length = length;
+        this.algorithm = algorithm;
+        this.encoder = LeafEncoders.hashCodeEncoder();
+        this.passi = new byte[Math.max(length, 0) * algorithm.getDigestLength()];
+        this.finePassi = new int[Math.max(length, 0)];
+        this.sinistra = new boolean[Math.max(length, 0)];
+    }
+
+    /**
+     * Costruisce una nuova prova di Merkle a partire dall'hash binario della
+     * radice dell'albero e dalla lunghezza massima della prova.
+     *
+     * @param rootDigest
+     *                       l'hash binario della radice dell'albero di Merkle.
+     * @param length
+     *                       la lunghezza massima della prova.
+     */
+    public MerkleProof(Digest rootDigest, int length) {
+        this(rootDigest, length, HashAlgorithms.MD5);
+    }
+
+    /**
+     * Costruisce una nuova prova di Merkle a partire dall'hash binario della
+     * radice di un albero costruito con l'algoritmo di hash indicato.
+     *
+     * @param rootDigest
+     *                       l'hash binario della radice dell'albero di Merkle.
+     * @param length
+     *                       la lunghezza massima della prova.
+     * @param algorithm
+     *                       l'algoritmo di hash dell'albero.
+     */
+    public MerkleProof(Digest rootDigest, int length, HashAlgorithm algorithm) {
+        this(rootDigest, length, algorithm, LeafEncoders.hashCodeEncoder());
+    }
+
+    /**
+     * Costruisce una nuova prova di Merkle per un albero costruito con
+     * l'algoritmo di hash e l'encoder indicati. I dati passati a
+     * {@link #proveValidityOfData(Object)} devono essere del tipo accettato
+     * dall'encoder.
+     *
+     * @param rootDigest
+     *                       l'hash binario della radice dell'albero di Merkle.
+     * @param length
+     *                       la lunghezza massima della prova.
+     * @param algorithm
+     *                       l'algoritmo di hash dell'albero.
+     * @param encoder
+     *                       l'encoder con cui sono codificati i dati
+     *                       dell'albero.
+     */
+    @SuppressWarnings("unchecked")
+    public MerkleProof(Digest rootDigest, int length, HashAlgorithm algorithm, LeafEncoder<?> encoder) {
+        if (rootDigest == null)
+            throw new IllegalArgumentException("The root hash is null");
+        if (algorithm == null)
+            throw new IllegalArgumentException("The algorithm is null");
+        if (encoder == null)
+            throw new IllegalArgumentException("The encoder is null");
+        this.rootHash = rootDigest.toHex();
+        this.rootDigest = rootDigest;
+        this.length = length;
+        this.algorithm = algorithm;
+        this.encoder = (LeafEncoder<Object>) encoder;
+        this.passi = new byte[Math.max(length, 0) * algorithm.getDigestLength()];
+        this.finePassi = new int[Math.max(length, 0)];
+        this.sinistra = new boolean[Math.max(length, 0)];
+    }
+
+    /**
+     * Ricostruisce una prova di Merkle dal formato binario scritto da
+     * {@link #encode(ByteBuffer)}, a partire dalla posizione corrente del
+     * buffer. Se il buffer è nello heap e modificabile, gli hash dei passi non
+     * vengono copiati e la prova continua a leggerli dal buffer: il contenuto
+     * della prova non deve quindi essere modificato finché la prova viene
+     * utilizzata. Al termine la posizione del buffer si trova subito dopo la
+     * prova.
+     *
+     * @param buffer
+     *                    il buffer contenente la prova.
+     * @param encoder
+     *                    l'encoder con cui sono codificati i dati
+     *                    dell'albero.
+     * @throws IllegalArgumentException
+     *                                      se un parametro è null, se il
+     *                                      formato non è valido o se
+     *                                      l'algoritmo non è supportato; in
+     *                                      questo caso la posizione del
+     *                                      buffer non cambia.
+     */
+    public MerkleProof(ByteBuffer buffer, LeafEncoder<?> encoder) {
+        this(buffer, encoder, true);
+    }
+
+    /**
+     * Ricostruisce una prova di Merkle dal formato binario, condividendo
+     * l'array del buffer se richiesto e possibile.
+     */
+    @SuppressWarnings("unchecked")
+    private MerkleProof(ByteBuffer buffer, LeafEncoder<?> encoder, boolean condividi) {
+        if (buffer == null)
+            throw new IllegalArgumentException("The buffer is null");
+        if (encoder == null)
+            throw new IllegalArgumentException("The encoder is null");
+
+        // Leggo da una copia della posizione, così che in caso di errore il
+        // buffer resti invariato
+        ByteBuffer lettura = buffer.duplicate();
+        try {
+            if ((lettura.get() & 0xFF) != VERSIONE)
+                throw new IllegalArgumentException("Unsupported proof version");
+            byte[] nome = new byte[lettura.get() & 0xFF];
+            lettura.get(nome);
+            this.algorithm = HashAlgorithms.forName(new String(nome, StandardCharsets.UTF_8));
+            this.length = lettura.get() & 0xFF;
+            int passi = lettura.get() & 0xFF;
+            if (passi > this.length)
+                throw new IllegalArgumentException("Invalid proof encoding");
+
+            int lunghezzaHash = this.algorithm.getDigestLength();
+            byte[] radice = new byte[lunghezzaHash];
+            lettura.get(radice);
+            this.rootDigest = new Digest(radice);
+            this.rootHash = this.rootDigest.toHex();
+
+            // Leggo le maschere dei lati e dei passi senza fratello
+            int lunghezzaMaschera = (passi + 7) / 8;
+            int maschere = lettura.position();
+            lettura.position(maschere + 2 * lunghezzaMaschera);
+            this.finePassi = new int[this.length];
+            this.sinistra = new boolean[this.length];
+            int fine = 0;
+            for (int i = 0; i < passi; i++) {
+                this.sinistra[i] = (lettura.get(maschere + i / 8) & (1 << (i % 8))) != 0;
+                if ((lettura.get(maschere + lunghezzaMaschera + i / 8) & (1 << (i % 8))) == 0)
+                    fine += lunghezzaHash;
+                this.finePassi[i] = fine;
+            }
+            if (fine > lettura.remaining())
+                throw new BufferUnderflowException();
+
+            // Gli hash dei passi si trovano già nel formato usato per la verifica
+            if (condividi && lettura.hasArray() && !lettura.isReadOnly()) {
+                this.passi = lettura.array();
+                this.inizioPassi = lettura.arrayOffset() + lettura.position();
+                this.passiCondivisi = true;
+                for (int i = 0; i < passi; i++) this.finePassi[i] += this.inizioPassi;
+            }
+            else {
+                this.passi = new byte[Math.max(fine, this.length * lunghezzaHash)];
+                lettura.get(lettura.position(), this.passi, 0, fine);
+            }
+            lettura.position(lettura.position() + fine);
+            this.numeroPassi = passi;
+        }
+        catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated proof encoding", e);
+        }
+
+        this.encoder = (LeafEncoder<Object>) encoder;
+        buffer.position(lettura.position());
+    }
+
+    /**
+     * Ricostruisce una prova di Merkle dal formato binario scritto da
+     * {@link #encode(ByteBuffer)}, come
+     * {@link #MerkleProof(ByteBuffer, LeafEncoder)}, ma copiando gli hash dei
+     * passi: il buffer può essere riutilizzato subito dopo.
+     *
+     * @param buffer
+     *                    il buffer contenente la prova.
+     * @param encoder
+     *                    l'encoder con cui sono codificati i dati
+     *                    dell'albero.
+     * @return la prova letta dal buffer.
+     * @throws IllegalArgumentException
+     *                                      se un parametro è null, se il
+     *                                      formato non è valido o se
+     *                                      l'algoritmo non è supportato.
+     */
+    public static MerkleProof decode(ByteBuffer buffer, LeafEncoder<?> encoder) {
+        return new MerkleProof(buffer, encoder, false);
+    }
+
+    /**
+     * Restituisce il numero di byte occupati dalla prova nel formato binario.
+     *
+     * @return la dimensione della prova codificata.
+     * @throws IllegalStateException
+     *                                   se la prova non può essere codificata
+     *                                   (vedi {@link #encode(ByteBuffer)}).
+     */
+    public int encodedSize() {
+        int lunghezzaHash = this.algorithm.getDigestLength();
+        int lunghezzaMaschera = (this.numeroPassi + 7) / 8;
+        int fine = this.numeroPassi == 0 ? this.inizioPassi : this.finePassi[this.numeroPassi - 1];
+        return 4 + nomeAlgoritmo().length + lunghezzaHash + 2 * lunghezzaMaschera + fine - this.inizioPassi;
+    }
+
+    /**
+     * Scrive la prova nel formato binario compatto a partire dalla posizione
+     * corrente del buffer, che al termine si trova subito dopo la prova.
+     *
+     * @param buffer
+     *                   il buffer in cui scrivere la prova.
+     * @throws IllegalArgumentException
+     *                                      se il buffer è null.
+     * @throws IllegalStateException
+     *                                      se la prova non può essere
+     *                                      codificata: l'hash della radice o di
+     *                                      un passo non è esadecimale o non ha
+     *                                      la lunghezza dell'algoritmo, o la
+     *                                      prova supera i 255 passi.
+     * @throws BufferOverflowException
+     *                                      se il buffer non ha spazio
+     *                                      sufficiente; in questo caso nulla
+     *                                      viene scritto.
+     */
+    public void encode(ByteBuffer buffer) {
+    	if(buffer == null)
+    		throw new IllegalArgumentException("EN: parametro buffer null");
+
+    	int lunghezzaHash = this.algorithm.getDigestLength();
+    	if(this.rootDigest == null || this.rootDigest.length() != lunghezzaHash || this.passiNonValidi != null)
+    		throw new IllegalStateException("EN: hash non codificabili");
+    	if(this.length > 0xFF)
+    		throw new IllegalStateException("EN: prova troppo lunga");
+    	int inizio = this.inizioPassi;
+    	for(int i = 0; i < this.numeroPassi; i++) {
+    		int lunghezzaPasso = this.finePassi[i] - inizio;
+    		if(lunghezzaPasso != 0 && lunghezzaPasso != lunghezzaHash)
+    			throw new IllegalStateException("EN: hash non codificabili");
+    		inizio = this.finePassi[i];
+    	}
+    	if(buffer.remaining() < encodedSize())
+    		throw new BufferOverflowException();
+
+    	byte[] nome = nomeAlgoritmo();
+    	buffer.put((byte) VERSIONE).put((byte) nome.length).put(nome);
+    	buffer.put((byte) this.length).put((byte) this.numeroPassi).put(this.rootDigest.bytes());
+
+    	// Maschera dei lati e maschera dei passi senza fratello
+    	int lunghezzaMaschera = (this.numeroPassi + 7) / 8;
+    	for(int maschera = 0; maschera < 2; maschera++) {
+    		inizio = this.inizioPassi;
+    		for(int b = 0; b < lunghezzaMaschera; b++) {
+    			int bit = 0;
+    			for(int i = 8 * b; i < Math.min(8 * b + 8, this.numeroPassi); i++) {
+    				boolean valore = maschera == 0 ? this.sinistra[i] : this.finePassi[i] == inizio;
+    				if(valore) bit |= 1 << (i % 8);
+    				inizio = this.finePassi[i];
+    			}
+    			buffer.put((byte) bit);
+    		}
+    	}
+    	buffer.put(this.passi, this.inizioPassi, inizio - this.inizioPassi);
+    }
+
+    /**
+     * Restituisce il nome dell'algoritmo di hash in UTF-8, come scritto nel
+     * formato binario.
+     */
+    private byte[] nomeAlgoritmo() {
+        byte[] nome = this.algorithm.getName().getBytes(StandardCharsets.UTF_8);
+        if(nome.length > 0xFF)
+            throw new IllegalStateException("EN: nome dell'algoritmo troppo lungo");
+        return nome;
     }
 
     /**
@@ -56,6 +432,15 @@ public class MerkleProof {
         return this.length;
     }
 
+    /**
+     * Restituisce l'algoritmo di hash con cui viene verificata la prova.
+     *
+     * @return l'algoritmo di hash della prova.
+     */
+    public HashAlgorithm getAlgorithm() {
+        return this.algorithm;
+    }
+
     /**
      * Aggiunge un hash alla prova di Merkle, specificando se esso dovrebbe
      * essere concatenato a sinistra o a destra durante la verifica della prova.
@@ -76,23 +461,115 @@ public class MerkleProof {
     		throw new IllegalArgumentException("AH: parametro hash null");
 
     	// Verifico se la lunghezza massima della prova è già stata raggiunta
-        if(this.proof.getSize() >= this.length) return false;
+        if(this.numeroPassi >= this.length) return false;
 
-        // Aggiungo un nuovo MerkleProofHash alla coda della lista concatenata
-        this.proof.addAtTail(new MerkleProofHash(hash, isLeft));
+        // Aggiungo il passo in coda alla prova; una stringa non esadecimale
+        // rende la prova non valida
+        aggiungiPasso(Digest.parseHex(hash), isLeft);
         // Restituisco true per indicare che l'hash è stato aggiunto con successo
         return true;
     }
 
+    /**
+     * Aggiunge un hash binario alla prova di Merkle, specificando se esso
+     * dovrebbe essere concatenato a sinistra o a destra durante la verifica
+     * della prova. Per uno step senza fratello si utilizza
+     * {@link Digest#EMPTY}. Se la prova è già completa, l'hash non viene
+     * aggiunto e la funzione restituisce false.
+     *
+     * @param digest
+     *                   l'hash binario da aggiungere alla prova.
+     * @param isLeft
+     *                   true se l'hash dovrebbe essere concatenato a sinistra,
+     *                   false altrimenti.
+     * @return true se l'hash è stato aggiunto con successo, false altrimenti.
+     */
+    public boolean addHash(Digest digest, boolean isLeft) {
+    	// Controllo se l'hash fornito è null, se lo è lancio un'eccezione 
+    	if(digest == null)
+    		throw new IllegalArgumentException("AH2: parametro digest null");
+
+    	// Verifico se la lunghezza massima della prova è già stata raggiunta
+        if(this.numeroPassi >= this.length) return false;
+
+        aggiungiPasso(digest, isLeft);
+        return true;
+    }
+
+    /**
+     * Aggiunge l'hash di un passo in coda alla prova.
+     *
+     * @param digest
+     *                   l'hash binario del passo, null se non esadecimale.
+     * @param isLeft
+     *                   true se l'hash va concatenato a sinistra.
+     */
+    private void aggiungiPasso(Digest digest, boolean isLeft) {
+    	int inizio = this.numeroPassi == 0 ? this.inizioPassi : this.finePassi[this.numeroPassi - 1];
+    	if(this.passiCondivisi) {
+    		// Non modifico il buffer da cui è stata letta la prova
+    		this.passi = Arrays.copyOfRange(this.passi, this.inizioPassi,
+    				this.inizioPassi + Math.max(inizio - this.inizioPassi, this.length * this.algorithm.getDigestLength()));
+    		for(int i = 0; i < this.numeroPassi; i++) this.finePassi[i] -= this.inizioPassi;
+    		inizio -= this.inizioPassi;
+    		this.inizioPassi = 0;
+    		this.passiCondivisi = false;
+    	}
+    	if(digest == null) {
+    		// Il passo non potrà mai portare alla radice
+    		if(this.passiNonValidi == null) this.passiNonValidi = new boolean[this.sinistra.length];
+    		this.passiNonValidi[this.numeroPassi] = true;
+    	}
+    	else {
+    		// Gli hash hanno di norma la lunghezza dell'algoritmo, ma un passo
+    		// può essere vuoto o, se fornito come stringa, più lungo
+    		if(inizio + digest.length() > this.passi.length)
+    			this.passi = Arrays.copyOf(this.passi, Math.max(2 * this.passi.length, inizio + digest.length()));
+    		digest.copyTo(this.passi, inizio);
+    		inizio += digest.length();
+    	}
+    	this.finePassi[this.numeroPassi] = inizio;
+    	this.sinistra[this.numeroPassi++] = isLeft;
+    }
+
+    /**
+     * Restituisce l'i-esimo passo della prova, creando un oggetto
+     * MerkleProofHash con una copia del suo hash.
+     *
+     * @param i
+     *              la posizione del passo, a partire da 0.
+     * @return il passo indicato, oppure null se il suo hash non era una
+     *         stringa esadecimale.
+     * @throws IndexOutOfBoundsException
+     *                                       se la posizione non corrisponde
+     *                                       a un passo aggiunto.
+     */
+    MerkleProofHash getStep(int i) {
+    	if(i < 0 || i >= this.numeroPassi)
+    		throw new IndexOutOfBoundsException("GS: posizione non valida");
+    	if(this.passiNonValidi != null && this.passiNonValidi[i]) return null;
+
+    	int inizio = i == 0 ? this.inizioPassi : this.finePassi[i - 1];
+    	return new MerkleProofHash(new Digest(Arrays.copyOfRange(this.passi, inizio, this.finePassi[i])), this.sinistra[i]);
+    }
+
     /**
      * Rappresenta un singolo step di una prova di Merkle per la validazione di
      * un dato elemento.
      */
     public static class MerkleProofHash {
         /**
-         * L'hash dell'oggetto.
+         * L'hash dell'oggetto, calcolato dall'hash binario solo quando
+         * richiesto.
          */
-        private final String hash;
+        private String hash;
+
+        /**
+         * L'hash binario dell'oggetto, null se l'hash fornito non è una
+         * stringa esadecimale valida. La stringa vuota corrisponde a
+         * {@link Digest#EMPTY}.
+         */
+        private final Digest digest;
 
         /**
          * Indica se l'hash dell'oggetto dovrebbe essere concatenato a sinistra
@@ -105,6 +582,16 @@ public class MerkleProof {
                 throw new IllegalArgumentException("The hash cannot be null");
 
             this.hash = hash;
+            this.digest = Digest.parseHex(hash);
+            this.isLeft = isLeft;
+        }
+
+        public MerkleProofHash(Digest digest, boolean isLeft) {
+            if (digest == null)
+                throw new IllegalArgumentException("The hash cannot be null");
+
+            this.hash = null;
+            this.digest = digest;
             this.isLeft = isLeft;
         }
 
@@ -114,9 +601,21 @@ public class MerkleProof {
          * @return l'hash dell'oggetto MerkleProofHash.
          */
         public String getHash() {
+            if (hash == null)
+                hash = digest.toHex();
             return hash;
         }
 
+        /**
+         * Restituisce l'hash binario dell'oggetto MerkleProofHash, oppure null
+         * se l'hash con cui è stato costruito non è esadecimale.
+         *
+         * @return l'hash binario dell'oggetto MerkleProofHash.
+         */
+        public Digest getDigest() {
+            return digest;
+        }
+
         /**
          * Restituisce true se, durante la verifica della prova, l'hash
          * dell'oggetto dovrebbe essere concatenato a sinistra, false
@@ -147,12 +646,12 @@ public class MerkleProof {
             // Effettuo un cast sicuro a MerkleProofHash
             MerkleProofHash altroMerkleProofHash = (MerkleProofHash) obj;
             // Controllo l'uguaglianza dell'hash e del valore del flag isLeft
-            return this.hash.equals(altroMerkleProofHash.getHash()) && this.isLeft == altroMerkleProofHash.isLeft();
+            return this.getHash().equals(altroMerkleProofHash.getHash()) && this.isLeft == altroMerkleProofHash.isLeft();
         }
 
         @Override
         public String toString() {
-            return hash + (isLeft ? "L" : "R");
+            return getHash() + (isLeft ? "L" : "R");
         }
 
         /*
@@ -163,7 +662,7 @@ public class MerkleProof {
         	// Definisco un numero primo da usare nella generazione del codice hash
         	final int primo = 31;
         	// Ottenengo il valore hash dell'attributo 'hash'
-        	int risultato = this.hash.hashCode();
+        	int risultato = this.getHash().hashCode();
         	
         	// Moltiplico il risultato per 31 e sommo il valore corrispondente al flag 'isLeft'            
             // e restituisco il risultato finale del calcolo dell'hash
@@ -173,9 +672,9 @@ public class MerkleProof {
 
     /**
      * Valida un dato elemento per questa prova di Merkle. La verifica avviene
-     * combinando l'hash del dato con l'hash del primo oggetto MerkleProofHash
+     * combinando l'hash del dato con l'hash del primo passo della prova
      * in un nuovo hash, il risultato con il successivo e così via fino
-     * all'ultimo oggetto, e controllando che l'hash finale coincida con quello
+     * all'ultimo passo, e controllando che l'hash finale coincida con quello
      * del nodo radice dell'albero di Merkle orginale.
      *
      * @param data
@@ -183,34 +682,211 @@ public class MerkleProof {
      * @return true se il dato è valido secondo la prova; false altrimenti.
      * @throws IllegalArgumentException
      *                                      se il dato è null.
+     * @throws ClassCastException
+     *                                      se il dato non è del tipo accettato
+     *                                      dall'encoder della prova.
      */
     public boolean proveValidityOfData(Object data) {
     	// Controllo se l'oggetto fornito è null, se lo è lancio un'eccezione
     	if(data == null)
     		throw new IllegalArgumentException("PVD: parametro data null");
 
-    	// Calcolo l'hash del dato utilizzando il metodo di hashing definito in HashUtil
-        String hashCorrente = HashUtil.dataToHash(data);
-
-        // Itero su ciascun oggetto MerkleProofHash nella prova
-        for(MerkleProofHash hashProva : this.proof) {
-        	// Se l'hash deve essere concatenato a sinistra, calcolo il nuovo hash concatenando
-            // prima l'hash del proofHash e poi l'hash corrente
-            if(hashProva.isLeft()) hashCorrente = HashUtil.computeMD5((hashProva.getHash() + hashCorrente).getBytes());
-            // Altrimenti, se l'hash deve essere concatenato a destra, calcolo il nuovo hash concatenando
-            // prima l'hash corrente e poi l'hash del proofHash
-            else hashCorrente = HashUtil.computeMD5((hashCorrente + hashProva.getHash()).getBytes());
-        }
+    	// Scrivo l'hash del dato direttamente nel buffer di appoggio
+    	// e verifico il cammino fino alla radice
+    	int lunghezza = this.algorithm.getDigestLength();
+    	byte[] corrente = appoggio(lunghezza);
+    	this.encoder.digest(data, this.algorithm, corrente, 0);
+        return verificaPassi(corrente, lunghezza);
+    }
 
-        // Confronto l'hash risultante con l'hash della radice dell'albero Merkle. Se coincidono, il dato è valido
-        return hashCorrente.equals(this.rootHash);
+    /**
+     * Valida un dato elemento per questa prova di Merkle come
+     * {@link #proveValidityOfData(Object)}, fermandosi al primo nodo del
+     * cammino già verificato per la stessa radice e contenuto nella cache
+     * indicata. Se la verifica arriva alla radice con successo, i nodi del
+     * cammino vengono aggiunti alla cache.
+     *
+     * <p>
+     * Un cammino che raggiunge un nodo già verificato, con lo stesso hash nella
+     * stessa posizione, dimostra che il dato occupa nell'albero la foglia
+     * indicata dalla prova: in questo caso la prova è considerata valida senza
+     * esaminare gli hash dei passi successivi.
+     *
+     * @param data
+     *                  l'elemento da validare.
+     * @param cache
+     *                  la cache dei nodi verificati.
+     * @return true se il dato è valido secondo la prova; false altrimenti.
+     * @throws IllegalArgumentException
+     *                                      se il dato o la cache sono null.
+     * @throws ClassCastException
+     *                                      se il dato non è del tipo accettato
+     *                                      dall'encoder della prova.
+     */
+    public boolean proveValidityOfData(Object data, VerifiedNodeCache cache) {
+    	if(data == null || cache == null)
+    		throw new IllegalArgumentException("PVD2: parametri data/cache null");
+    	if(this.rootDigest == null || this.passiNonValidi != null) return false;
+    	// Senza una posizione della foglia i nodi non possono essere identificati
+    	if(this.numeroPassi >= Long.SIZE) return proveValidityOfData(data);
+
+    	// Conservo l'hash di ciascun livello per aggiungerlo alla cache
+    	int lunghezza = this.algorithm.getDigestLength();
+    	byte[] livelli = appoggio((this.numeroPassi + 1) * lunghezza);
+    	this.encoder.digest(data, this.algorithm, livelli, 0);
+    	long foglia = posizioneFoglia();
+    	int inizio = this.inizioPassi;
+    	for(int l = 0; l < this.numeroPassi; l++) {
+    		int corrente = l * lunghezza;
+    		if(cache.contains(this.rootDigest, l, foglia >>> l, livelli, corrente, lunghezza)) {
+    			// Anche i nodi calcolati fin qui risultano verificati
+    			for(int k = 0; k < l; k++) cache.add(this.rootDigest, k, foglia >>> k, livelli, k * lunghezza, lunghezza);
+    			return true;
+    		}
+
+    		int lunghezzaPasso = this.finePassi[l] - inizio;
+    		if(this.sinistra[l])
+    			this.algorithm.combine(this.passi, inizio, lunghezzaPasso, livelli, corrente, lunghezza, livelli, corrente + lunghezza);
+    		else
+    			this.algorithm.combine(livelli, corrente, lunghezza, this.passi, inizio, lunghezzaPasso, livelli, corrente + lunghezza);
+    		inizio = this.finePassi[l];
+    	}
+
+    	int radice = this.numeroPassi * lunghezza;
+    	if(lunghezza != this.rootDigest.length()
+    			|| !Arrays.equals(livelli, radice, radice + lunghezza, this.rootDigest.bytes(), 0, lunghezza))
+    		return false;
+    	for(int l = 0; l < this.numeroPassi; l++) cache.add(this.rootDigest, l, foglia >>> l, livelli, l * lunghezza, lunghezza);
+    	return true;
+    }
+
+    /**
+     * Valida un dato come {@link #proveValidityOfData(Object)}, riutilizzando
+     * il lavoro svolto per la prova verificata in precedenza dallo stesso
+     * chiamante. Se le due prove hanno la stessa radice e i loro cammini si
+     * uniscono in un antenato comune oltre il quale gli hash dei passi
+     * coincidono, basta calcolare gli hash fino a quel livello: se coincidono
+     * con quelli della prova precedente l'esito è lo stesso.
+     *
+     * @param data
+     *                            il dato da validare.
+     * @param precedente
+     *                            la prova verificata in precedenza con lo
+     *                            stesso buffer, oppure null.
+     * @param esitoPrecedente
+     *                            l'esito della prova precedente.
+     * @param livelli
+     *                            gli hash calcolati dalla prova precedente per
+     *                            ciascun livello, a partire dalla foglia; al
+     *                            termine contiene quelli di questa prova. Deve
+     *                            avere almeno {@link #dimensioneLivelli()}
+     *                            byte.
+     * @return true se il dato è valido secondo la prova; false altrimenti.
+     */
+    boolean proveValidityOfData(Object data, MerkleProof precedente, boolean esitoPrecedente, byte[] livelli) {
+    	if(data == null)
+    		throw new IllegalArgumentException("PVD: parametro data null");
+    	if(this.rootDigest == null || this.passiNonValidi != null) return false;
+
+    	int lunghezza = this.algorithm.getDigestLength();
+    	// L'hash del livello comune viene calcolato nell'ultima posizione del
+    	// buffer, per confrontarlo con quello della prova precedente
+    	int comune = livelloComune(precedente);
+    	int confronto = (this.numeroPassi + 1) * lunghezza;
+    	int inizio = this.inizioPassi;
+    	for(int l = 0; l <= this.numeroPassi; l++) {
+    		int uscita = l == comune ? confronto : l * lunghezza;
+    		if(l == 0) {
+    			this.encoder.digest(data, this.algorithm, livelli, uscita);
+    		}
+    		else {
+    			int lunghezzaPasso = this.finePassi[l - 1] - inizio;
+    			int corrente = (l - 1) * lunghezza;
+    			if(this.sinistra[l - 1])
+    				this.algorithm.combine(this.passi, inizio, lunghezzaPasso, livelli, corrente, lunghezza, livelli, uscita);
+    			else
+    				this.algorithm.combine(livelli, corrente, lunghezza, this.passi, inizio, lunghezzaPasso, livelli, uscita);
+    			inizio = this.finePassi[l - 1];
+    		}
+    		if(l == comune) {
+    			// Il resto del cammino è identico a quello della prova precedente
+    			int livello = l * lunghezza;
+    			if(Arrays.equals(livelli, confronto, confronto + lunghezza, livelli, livello, livello + lunghezza))
+    				return esitoPrecedente;
+    			System.arraycopy(livelli, confronto, livelli, livello, lunghezza);
+    		}
+    	}
+
+    	int radice = this.numeroPassi * lunghezza;
+    	return lunghezza == this.rootDigest.length()
+    			&& Arrays.equals(livelli, radice, radice + lunghezza, this.rootDigest.bytes(), 0, lunghezza);
+    }
+
+    /**
+     * Restituisce il livello a partire dal quale il cammino di questa prova
+     * coincide con quello della prova indicata: il primo antenato comune
+     * delle due foglie, o uno superiore se alcuni passi sopra di esso sono
+     * diversi. Restituisce -1 se le prove non sono confrontabili.
+     */
+    private int livelloComune(MerkleProof precedente) {
+    	if(precedente == null || precedente.rootDigest == null || precedente.passiNonValidi != null
+    			|| precedente.algorithm != this.algorithm || precedente.numeroPassi != this.numeroPassi
+    			|| this.numeroPassi >= Long.SIZE || !precedente.rootDigest.equals(this.rootDigest))
+    		return -1;
+
+    	// Sopra l'antenato comune i lati dei passi coincidono, resta da
+    	// controllare che coincidano anche gli hash
+    	int comune = Long.SIZE - Long.numberOfLeadingZeros(posizioneFoglia() ^ precedente.posizioneFoglia());
+    	for(int j = this.numeroPassi - 1; j >= comune; j--) {
+    		int inizio = j == 0 ? this.inizioPassi : this.finePassi[j - 1];
+    		int inizioPrecedente = j == 0 ? precedente.inizioPassi : precedente.finePassi[j - 1];
+    		if(!Arrays.equals(this.passi, inizio, this.finePassi[j],
+    				precedente.passi, inizioPrecedente, precedente.finePassi[j]))
+    			return j + 1;
+    	}
+    	return comune;
+    }
+
+    /**
+     * Restituisce la posizione della foglia provata, ricavata dai lati dei
+     * passi: un passo a sinistra indica che il nodo corrente è un figlio
+     * destro. Con più di 63 passi vengono considerati soltanto i primi.
+     */
+    long posizioneFoglia() {
+    	long posizione = 0;
+    	for(int i = 0; i < Math.min(this.numeroPassi, Long.SIZE - 1); i++) {
+    		if(this.sinistra[i]) posizione |= 1L << i;
+    	}
+    	return posizione;
+    }
+
+    /**
+     * Restituisce il numero di passi aggiunti alla prova.
+     */
+    int numeroPassi() {
+        return this.numeroPassi;
+    }
+
+    /**
+     * Restituisce l'hash binario della radice, null se non esadecimale.
+     */
+    Digest radice() {
+        return this.rootDigest;
+    }
+
+    /**
+     * Restituisce la dimensione minima del buffer dei livelli richiesto da
+     * {@link #proveValidityOfData(Object, MerkleProof, boolean, byte[])}.
+     */
+    int dimensioneLivelli() {
+        return (this.numeroPassi + 2) * this.algorithm.getDigestLength();
     }
 
     /**
      * Valida un dato branch per questa prova di Merkle. La verifica avviene
-     * combinando l'hash del branch con l'hash del primo oggetto MerkleProofHash
+     * combinando l'hash del branch con l'hash del primo passo della prova
      * in un nuovo hash, il risultato con il successivo e così via fino
-     * all'ultimo oggetto, e controllando che l'hash finale coincida con quello
+     * all'ultimo passo, e controllando che l'hash finale coincida con quello
      * del nodo radice dell'albero di Merkle orginale.
      *
      * @param branch
@@ -225,19 +901,64 @@ public class MerkleProof {
     		throw new IllegalArgumentException("PVB: parametro branch null");
 
     	// Ottengo l'hash del ramo da validare
-        String hashCorrente = branch.getHash();
-
-        // Itero su ciascun oggetto MerkleProofHash nella prova
-        for(MerkleProofHash hashProva : this.proof) {
-        	// Se l'hash deve essere concatenato a sinistra, calcolo il nuovo hash concatenando
-            // prima l'hash del proofHash e poi l'hash corrente
-            if(hashProva.isLeft()) hashCorrente = HashUtil.computeMD5((hashProva.getHash() + hashCorrente).getBytes());
-            // Altrimenti, se l'hash deve essere concatenato a destra, calcolo il nuovo hash concatenando
-            // prima l'hash corrente e poi l'hash del proofHash
-            else hashCorrente = HashUtil.computeMD5((hashCorrente + hashProva.getHash()).getBytes());
+        Digest hashCorrente = branch.getDigest();
+        // Un hash non esadecimale non può portare alla radice
+        if(hashCorrente == null) return false;
+
+        // Copio l'hash nel buffer di appoggio e verifico il cammino fino alla radice
+        byte[] corrente = appoggio(Math.max(hashCorrente.length(), this.algorithm.getDigestLength()));
+        hashCorrente.copyTo(corrente, 0);
+        return verificaPassi(corrente, hashCorrente.length());
+    }
+
+    /**
+     * Combina l'hash contenuto nel buffer fornito con gli hash della prova,
+     * nell'ordine in cui sono stati aggiunti, e controlla che il risultato
+     * coincida con l'hash della radice. Ogni passo scrive il nuovo hash al
+     * posto di quello corrente, quindi la verifica non alloca memoria.
+     *
+     * @param corrente
+     *                      il buffer contenente l'hash di partenza (dato o
+     *                      branch), lungo almeno quanto gli hash
+     *                      dell'algoritmo.
+     * @param lunghezza
+     *                      la lunghezza dell'hash di partenza.
+     * @return true se l'hash finale coincide con quello della radice, false
+     *         altrimenti.
+     */
+    private boolean verificaPassi(byte[] corrente, int lunghezza) {
+    	// Se l'hash della radice non è valido nessun dato può essere provato,
+    	// così come se uno step non è esadecimale
+    	if(this.rootDigest == null || this.passiNonValidi != null) return false;
+
+    	int inizio = this.inizioPassi;
+        for(int i = 0; i < this.numeroPassi; i++) {
+        	int lunghezzaPasso = this.finePassi[i] - inizio;
+        	// L'algoritmo legge entrambi gli hash prima di scrivere il risultato,
+        	// che può quindi sostituire l'hash corrente
+        	if(this.sinistra[i])
+        		this.algorithm.combine(this.passi, inizio, lunghezzaPasso, corrente, 0, lunghezza, corrente, 0);
+        	else
+        		this.algorithm.combine(corrente, 0, lunghezza, this.passi, inizio, lunghezzaPasso, corrente, 0);
+        	lunghezza = this.algorithm.getDigestLength();
+        	inizio = this.finePassi[i];
         }
 
         // Confronto l'hash risultante con l'hash della radice dell'albero Merkle. Se coincidono, il dato è valido
-        return hashCorrente.equals(this.rootHash);
+        return lunghezza == this.rootDigest.length()
+        		&& Arrays.equals(corrente, 0, lunghezza, this.rootDigest.bytes(), 0, lunghezza);
+    }
+
+    /**
+     * Restituisce il buffer di appoggio del thread corrente, con capacità di
+     * almeno {@code dimensione} byte.
+     */
+    private static byte[] appoggio(int dimensione) {
+        byte[] buffer = APPOGGIO.get();
+        if(buffer.length < dimensione) {
+            buffer = new byte[Math.max(dimensione, 2 * buffer.length)];
+            APPOGGIO.set(buffer);
+        }
+        return buffer;
     }
 }
@@ -1,8 +1,8 @@
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import java.lang.reflect.Field;
-import java.util.Iterator;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -21,6 +21,10 @@ import static org.junit.jupiter.api.Assertions.*;
  * <li>{@link #testBuildProof3()}: Verifica internamente che gli hash inseriti nella prova di Merkle
  * siano memorizzati correttamente e nella posizione corretta (sinistra o destra).</li>
  * 
+ * <li>{@link #testGetStep()}: Verifica i passi di una prova lunga, anche oltre il
+ * sessantaquattresimo, che i passi con hash non esadecimali non vengano restituiti e
+ * che le posizioni non valide generino un'eccezione.</li>
+ * 
  * <li>{@link #testVerifyProofOnData1()}: Verifica che la validità di un dato venga confermata
  * correttamente rispetto alla prova di Merkle costruita.</li>
  * 
@@ -29,6 +33,17 @@ import static org.junit.jupiter.api.Assertions.*;
  * 
  * <li>{@link #testVerifyProofOnData3()}: Verifica che un dato non valido venga correttamente respinto
  * dalla prova di Merkle.</li>
+ * 
+ * <li>{@link #testVerifyProofOnData4()}: Verifica, con algoritmi ed encoder diversi, le prove
+ * di tutte le foglie e dei branch di alberi di varie larghezze, e che hash non esadecimali
+ * rendano la prova non valida.</li>
+ * 
+ * <li>{@link #testEncodeDecode()}: Verifica che le prove codificate nel formato binario e ricostruite,
+ * con o senza copia degli hash, restino valide, occupino poco più della metà degli hash esadecimali
+ * e che un formato troncato venga respinto.</li>
+ * 
+ * <li>{@link #testEncodeInvalidProof()}: Verifica che una prova con hash non esadecimali non
+ * possa essere codificata e che l'aggiunta di hash a una prova letta da un buffer non lo modifichi.</li>
  * </ul>
  */
 public class MerkleProofTest {
@@ -63,24 +78,36 @@ public class MerkleProofTest {
 
     @Test
     void testBuildProof3() {
-        try {
-            MerkleProof proof =  new MerkleProof(rootHash1, 2);
-            proof.addHash(HashUtil.dataToHash("Alice paga Bob"), true);
-            proof.addHash(HashUtil.computeMD5((HashUtil.dataToHash("Charlie paga Diana")+HashUtil.dataToHash("Diana paga Alice")).getBytes()), false);
-            Class<?> clazz = proof.getClass();
-            Field privateField = clazz.getDeclaredField("proof");
-            privateField.setAccessible(true);
-
-            HashLinkedList<MerkleProof.MerkleProofHash> list = (HashLinkedList<MerkleProof.MerkleProofHash>) privateField.get(proof);
-
-            Iterator<MerkleProof.MerkleProofHash> itr = list.iterator();
-            assertTrue(itr.hasNext());
-            MerkleProof.MerkleProofHash next = itr.next();
-            assertEquals(next.getHash(), HashUtil.dataToHash("Alice paga Bob"), "L'hash dovrebbe essere inserito correttamente");
-            assertTrue(next.isLeft(), "L'hash dovrebbe essere inserito a sinistra");
-        } catch (Exception e) {
-            e.printStackTrace();
+        MerkleProof proof =  new MerkleProof(rootHash1, 2);
+        proof.addHash(HashUtil.dataToHash("Alice paga Bob"), true);
+        proof.addHash(HashUtil.computeMD5((HashUtil.dataToHash("Charlie paga Diana")+HashUtil.dataToHash("Diana paga Alice")).getBytes()), false);
+
+        MerkleProof.MerkleProofHash next = proof.getStep(0);
+        assertEquals(next.getHash(), HashUtil.dataToHash("Alice paga Bob"), "L'hash dovrebbe essere inserito correttamente");
+        assertTrue(next.isLeft(), "L'hash dovrebbe essere inserito a sinistra");
+    }
+
+    @Test
+    void testGetStep() {
+        MerkleProof proof = new MerkleProof(rootHash1, 70);
+        for (int i = 0; i < 70; i++) {
+            // Il secondo e il sessantaseiesimo hash non sono esadecimali
+            proof.addHash(i == 1 || i == 65 ? "Hash non esadecimale" : HashUtil.dataToHash("Dato " + i), i % 2 == 0);
         }
+
+        MerkleProof.MerkleProofHash next = proof.getStep(2);
+        assertEquals(HashUtil.dataToHash("Dato 2"), next.getHash(), "L'hash dovrebbe essere inserito correttamente");
+        assertTrue(next.isLeft(), "L'hash dovrebbe essere inserito a sinistra");
+        next = proof.getStep(69);
+        assertEquals(HashUtil.dataToHash("Dato 69"), next.getHash(), "L'hash dovrebbe essere inserito correttamente");
+        assertFalse(next.isLeft(), "L'hash dovrebbe essere inserito a destra");
+        assertNull(proof.getStep(1), "Un hash non esadecimale non ha un passo corrispondente");
+        assertNull(proof.getStep(65), "Un hash non esadecimale non ha un passo corrispondente");
+        assertNotNull(proof.getStep(64));
+        assertNotNull(proof.getStep(66));
+        assertThrows(IndexOutOfBoundsException.class, () -> proof.getStep(70));
+        assertThrows(IndexOutOfBoundsException.class, () -> proof.getStep(-1));
+        assertThrows(IndexOutOfBoundsException.class, () -> new MerkleProof(rootHash1, 2).getStep(0));
     }
 
     @Test
@@ -107,4 +134,108 @@ public class MerkleProofTest {
 
         assertFalse(proof.proveValidityOfData("Dato non valido"), "La prova di validità del dato non dovrebbe andare a buon fine");
     }
+
+    @Test
+    void testVerifyProofOnData4() {
+        HashAlgorithm[] algoritmi = { HashAlgorithms.MD5, HashAlgorithms.SHA_256 };
+        for (HashAlgorithm algoritmo : algoritmi) {
+            for (int larghezza = 1; larghezza <= 13; larghezza++) {
+                HashLinkedList<String> lista = new HashLinkedList<>(algoritmo, LeafEncoders.STRING);
+                for (int i = 0; i < larghezza; i++) lista.addAtTail("Dato " + i);
+                MerkleTree<String> albero = new MerkleTree<>(lista);
+
+                for (int i = 0; i < larghezza; i++) {
+                    MerkleProof proof = albero.getMerkleProof("Dato " + i);
+                    assertTrue(proof.proveValidityOfData("Dato " + i), "La prova della foglia " + i + " dovrebbe essere valida");
+                    assertFalse(proof.proveValidityOfData("Dato " + (i + 1)), "Il dato alterato non dovrebbe essere valido");
+                    // Verifiche ripetute riutilizzano lo stesso buffer e restano corrette
+                    assertTrue(proof.proveValidityOfData("Dato " + i));
+                }
+                MerkleNode radice = albero.getRoot();
+                for (MerkleNode figlio : new MerkleNode[] { radice.getLeft(), radice.getRight() }) {
+                    if (figlio != null) assertTrue(albero.getMerkleProof(figlio).proveValidityOfBranch(figlio),
+                            "La prova del branch dovrebbe essere valida");
+                }
+            }
+        }
+
+        MerkleProof proof = new MerkleProof(rootHash1, 2);
+        proof.addHash("Hash non esadecimale", true);
+        proof.addHash(HashUtil.computeMD5((HashUtil.dataToHash("Charlie paga Diana")+HashUtil.dataToHash("Diana paga Alice")).getBytes()), false);
+        assertFalse(proof.proveValidityOfData("Bob paga Charlie"), "Un hash non esadecimale rende la prova non valida");
+    }
+
+    @Test
+    void testEncodeDecode() {
+        HashLinkedList<String> lista = new HashLinkedList<>(HashAlgorithms.SHA_256, LeafEncoders.STRING);
+        for (int i = 0; i < 1000; i++) lista.addAtTail("Dato " + i);
+        MerkleTree<String> albero = new MerkleTree<>(lista);
+
+        for (int i = 0; i < 1000; i += 37) {
+            MerkleProof proof = albero.getMerkleProof(i);
+            ByteBuffer buffer = ByteBuffer.allocate(proof.encodedSize() + 3);
+            buffer.put((byte) 7);
+            proof.encode(buffer);
+            assertEquals(1 + proof.encodedSize(), buffer.position(), "La dimensione codificata non è corretta");
+            // Gli hash binari occupano la metà di quelli esadecimali e
+            // l'intestazione con i lati dei passi solo pochi byte
+            assertTrue(proof.encodedSize() <= (proof.getLength() + 1) * 32 + 16, "La prova codificata è troppo grande");
+
+            buffer.flip().position(1);
+            MerkleProof letta = new MerkleProof(buffer, LeafEncoders.STRING);
+            assertEquals(1 + proof.encodedSize(), buffer.position(), "Il buffer dovrebbe trovarsi dopo la prova");
+            buffer.position(1);
+            MerkleProof copiata = MerkleProof.decode(buffer, LeafEncoders.STRING);
+            ByteBuffer diretto = ByteBuffer.allocateDirect(proof.encodedSize());
+            proof.encode(diretto);
+            MerkleProof daDiretto = MerkleProof.decode(diretto.flip(), LeafEncoders.STRING);
+
+            for (MerkleProof p : new MerkleProof[] { letta, copiata, daDiretto }) {
+                assertEquals(proof.getLength(), p.getLength());
+                assertEquals(HashAlgorithms.SHA_256, p.getAlgorithm());
+                assertTrue(p.proveValidityOfData("Dato " + i), "La prova letta dovrebbe essere valida");
+                assertFalse(p.proveValidityOfData("Dato " + (i + 1)), "Il dato alterato non dovrebbe essere valido");
+            }
+
+            // La prova letta senza copia legge gli hash dal buffer, quella copiata no
+            buffer.put(buffer.limit() - 1, (byte) ~buffer.get(buffer.limit() - 1));
+            assertFalse(letta.proveValidityOfData("Dato " + i), "La prova dovrebbe leggere gli hash dal buffer");
+            assertTrue(copiata.proveValidityOfData("Dato " + i), "La prova copiata non dovrebbe dipendere dal buffer");
+        }
+
+        // Il nodo senza fratello di un livello dispari non occupa spazio
+        MerkleProof ultima = albero.getMerkleProof(999);
+        ByteBuffer buffer = ByteBuffer.allocate(ultima.encodedSize());
+        ultima.encode(buffer);
+        assertTrue(MerkleProof.decode(buffer.flip(), LeafEncoders.STRING).proveValidityOfData("Dato 999"));
+
+        // Un formato troncato viene respinto senza modificare la posizione
+        ByteBuffer troncato = ByteBuffer.wrap(buffer.array(), 0, buffer.capacity() - 1);
+        assertThrows(IllegalArgumentException.class, () -> new MerkleProof(troncato, LeafEncoders.STRING));
+        assertEquals(0, troncato.position(), "La posizione non dovrebbe cambiare");
+        assertThrows(IllegalArgumentException.class, () -> MerkleProof.decode(ByteBuffer.wrap(new byte[] { 9 }), LeafEncoders.STRING));
+        assertThrows(IllegalArgumentException.class, () -> MerkleProof.decode(null, LeafEncoders.STRING));
+        assertThrows(IllegalArgumentException.class, () -> MerkleProof.decode(buffer, null));
+        assertThrows(BufferOverflowException.class, () -> ultima.encode(ByteBuffer.allocate(ultima.encodedSize() - 1)));
+    }
+
+    @Test
+    void testEncodeInvalidProof() {
+        MerkleProof proof = new MerkleProof(rootHash1, 2);
+        proof.addHash("Hash non esadecimale", true);
+        assertThrows(IllegalStateException.class, () -> proof.encode(ByteBuffer.allocate(1000)));
+        assertThrows(IllegalArgumentException.class, () -> proof.encode(null));
+
+        // Una prova incompleta può essere completata dopo la lettura senza modificare il buffer
+        MerkleProof incompleta = new MerkleProof(rootHash1, 2);
+        incompleta.addHash(HashUtil.dataToHash("Alice paga Bob"), true);
+        ByteBuffer buffer = ByteBuffer.allocate(incompleta.encodedSize() + 16);
+        incompleta.encode(buffer);
+        byte[] contenuto = buffer.array().clone();
+        MerkleProof letta = new MerkleProof(buffer.flip(), LeafEncoders.hashCodeEncoder());
+        assertTrue(letta.addHash(HashUtil.computeMD5((HashUtil.dataToHash("Charlie paga Diana")+HashUtil.dataToHash("Diana paga Alice")).getBytes()), false));
+        assertFalse(letta.addHash(HashUtil.dataToHash("Alice paga Bob"), true), "La prova letta dovrebbe essere completa");
+        assertTrue(letta.proveValidityOfData("Bob paga Charlie"), "La prova completata dovrebbe essere valida");
+        assertArrayEquals(contenuto, buffer.array(), "Il buffer non dovrebbe essere modificato");
+    }
 }
@@ -0,0 +1,202 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Verificatore di grandi quantità di prove di Merkle. Ogni prova viene
+ * validata sul dato corrispondente come con
+ * {@link MerkleProof#proveValidityOfData(Object)}, e gli esiti vengono
+ * restituiti in un {@link BitSet}.
+ *
+ * <p>
+ * Le prove vengono raggruppate per radice e, all'interno di ciascun gruppo,
+ * ordinate per posizione della foglia: due prove consecutive dello stesso
+ * albero condividono il cammino dall'antenato comune delle loro foglie fino
+ * alla radice, che viene quindi calcolato una sola volta. Le prove ordinate
+ * vengono divise in blocchi verificati in parallelo su un
+ * {@link ForkJoinPool}.
+ *
+ * <p>
+ * Con una {@link VerifiedNodeCache} ogni prova viene invece verificata con
+ * {@link MerkleProof#proveValidityOfData(Object, VerifiedNodeCache)}: la
+ * cache conserva i nodi verificati tra una chiamata e l'altra, e conviene
+ * quando la maggior parte delle prove riguarda poche radici.
+ */
+public class MerkleProofVerifier {
+
+    private final ForkJoinPool pool; // Pool su cui verificare i blocchi, null per verificarli sequenzialmente
+
+    private final int soglia; // Numero di prove verificate da un singolo compito
+
+    private final VerifiedNodeCache cache; // Nodi già verificati, null se non utilizzata
+
+    /**
+     * Crea un verificatore che verifica le prove sequenzialmente nel thread
+     * chiamante.
+     */
+    public MerkleProofVerifier() {
+        this(null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Crea un verificatore che verifica le prove in parallelo sul pool
+     * indicato, in blocchi di al più {@code threshold} prove.
+     *
+     * @param pool
+     *                      il pool su cui verificare le prove, oppure null
+     *                      per verificarle sequenzialmente.
+     * @param threshold
+     *                      il numero di prove verificate da un singolo
+     *                      compito.
+     * @throws IllegalArgumentException
+     *                                      se la soglia non è positiva.
+     */
+    public MerkleProofVerifier(ForkJoinPool pool, int threshold) {
+        this(pool, threshold, null);
+    }
+
+    /**
+     * Crea un verificatore che verifica le prove in parallelo sul pool
+     * indicato, in blocchi di al più {@code threshold} prove, fermandosi ai
+     * nodi già verificati contenuti nella cache.
+     *
+     * @param pool
+     *                      il pool su cui verificare le prove, oppure null
+     *                      per verificarle sequenzialmente.
+     * @param threshold
+     *                      il numero di prove verificate da un singolo
+     *                      compito.
+     * @param cache
+     *                      la cache dei nodi verificati, oppure null per non
+     *                      utilizzarla.
+     * @throws IllegalArgumentException
+     *                                      se la soglia non è positiva.
+     */
+    public MerkleProofVerifier(ForkJoinPool pool, int threshold, VerifiedNodeCache cache) {
+    	if(threshold <= 0)
+    		throw new IllegalArgumentException("MPV: soglia non valida");
+
+        this.pool = pool;
+        this.soglia = threshold;
+        this.cache = cache;
+    }
+
+    /**
+     * Valida ciascun dato con la prova nella stessa posizione. Il bit i del
+     * risultato vale 1 se e solo se l'i-esimo dato è valido secondo
+     * l'i-esima prova.
+     *
+     * @param proofs
+     *                   le prove da verificare.
+     * @param data
+     *                   i dati corrispondenti alle prove.
+     * @return l'insieme delle posizioni dei dati validi.
+     * @throws IllegalArgumentException
+     *                                      se le liste, una prova o un dato
+     *                                      sono null, o se le liste hanno
+     *                                      dimensioni diverse.
+     * @throws ClassCastException
+     *                                      se un dato non è del tipo
+     *                                      accettato dall'encoder della sua
+     *                                      prova.
+     */
+    public BitSet verify(List<? extends MerkleProof> proofs, List<?> data) {
+    	if(proofs == null || data == null)
+    		throw new IllegalArgumentException("V: parametri proofs/data null");
+    	if(proofs.size() != data.size())
+    		throw new IllegalArgumentException("V: numero di prove e di dati diverso");
+
+    	// Copio le liste in array per un accesso in tempo costante
+    	MerkleProof[] prove = proofs.toArray(new MerkleProof[0]);
+    	Object[] dati = data.toArray();
+    	for(int i = 0; i < prove.length; i++) {
+    		if(prove[i] == null || dati[i] == null)
+    			throw new IllegalArgumentException("V: prova o dato null");
+    	}
+
+    	int[] ordine = ordina(prove);
+    	boolean[] esiti = new boolean[prove.length];
+    	int blocchi = (int) ((prove.length + (long) this.soglia - 1) / this.soglia);
+    	if(this.pool == null || blocchi <= 1) {
+    		verificaBlocco(prove, dati, ordine, 0, prove.length, esiti, this.cache);
+    	}
+    	else {
+    		// Ogni blocco scrive gli esiti di posizioni diverse
+    		MerkleLayout.parallelFor(this.pool, blocchi, 1, b -> verificaBlocco(prove, dati, ordine,
+    				b * this.soglia, (int) Math.min((long) (b + 1) * this.soglia, prove.length), esiti, this.cache));
+    	}
+
+    	BitSet validi = new BitSet(prove.length);
+    	for(int i = 0; i < esiti.length; i++) {
+    		if(esiti[i]) validi.set(i);
+    	}
+        return validi;
+    }
+
+    /**
+     * Restituisce le posizioni delle prove raggruppate per radice e, in
+     * ciascun gruppo, ordinate per posizione della foglia.
+     */
+    private static int[] ordina(MerkleProof[] prove) {
+        // Assegno a ciascuna radice un gruppo, nell'ordine in cui compare;
+        // le prove con una radice non valida formano un gruppo a sé
+        Map<Digest, Integer> gruppi = new HashMap<>();
+        int[] gruppo = new int[prove.length];
+        int[] dimensioni = new int[prove.length + 1];
+        for(int i = 0; i < prove.length; i++) {
+            Digest radice = prove[i].radice();
+            gruppo[i] = radice == null ? 0 : gruppi.computeIfAbsent(radice, r -> gruppi.size() + 1);
+            dimensioni[gruppo[i]]++;
+        }
+
+        // Ordino per gruppo con un conteggio, poi ciascun gruppo per foglia
+        int[] inizio = new int[gruppi.size() + 2];
+        for(int g = 0; g <= gruppi.size(); g++) inizio[g + 1] = inizio[g] + dimensioni[g];
+        long[] chiavi = new long[prove.length];
+        int[] libero = Arrays.copyOf(inizio, inizio.length);
+        for(int i = 0; i < prove.length; i++) {
+            // La posizione della foglia è al più di 31 bit per gli alberi
+            // costruiti da MerkleTree, e occupa la parte alta della chiave
+            long foglia = prove[i].numeroPassi() < Integer.SIZE ? prove[i].posizioneFoglia() : 0;
+            chiavi[libero[gruppo[i]]++] = foglia << Integer.SIZE | i;
+        }
+        int[] ordine = new int[prove.length];
+        for(int g = 0; g <= gruppi.size(); g++) {
+            Arrays.sort(chiavi, inizio[g], inizio[g + 1]);
+        }
+        for(int i = 0; i < ordine.length; i++) ordine[i] = (int) chiavi[i];
+        return ordine;
+    }
+
+    /**
+     * Verifica sequenzialmente le prove dalla posizione {@code da} (inclusa) alla
+     * posizione {@code a} (esclusa) dell'ordine, riutilizzando per ciascuna il
+     * cammino della prova precedente o, se indicata, la cache dei nodi
+     * verificati.
+     */
+    private static void verificaBlocco(MerkleProof[] prove, Object[] dati, int[] ordine, int da, int a,
+            boolean[] esiti, VerifiedNodeCache cache) {
+        if(cache != null) {
+            for(int i = da; i < a; i++) esiti[ordine[i]] = prove[ordine[i]].proveValidityOfData(dati[ordine[i]], cache);
+            return;
+        }
+
+        byte[] livelli = new byte[0];
+        MerkleProof precedente = null;
+        boolean esitoPrecedente = false;
+        for(int i = da; i < a; i++) {
+            MerkleProof prova = prove[ordine[i]];
+            if(livelli.length < prova.dimensioneLivelli()) {
+                // Un nuovo buffer non contiene più il cammino precedente
+                livelli = new byte[Math.max(prova.dimensioneLivelli(), 2 * livelli.length)];
+                precedente = null;
+            }
+            esitoPrecedente = prova.proveValidityOfData(dati[ordine[i]], precedente, esitoPrecedente, livelli);
+            esiti[ordine[i]] = esitoPrecedente;
+            precedente = prova;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di test per la classe {@link MerkleProofVerifier}. Questa classe
+ * verifica che la verifica a blocchi delle prove produca gli stessi esiti
+ * della verifica di una prova alla volta. Di seguito, l'elenco dei test
+ * inclusi con una breve descrizione:
+ *
+ * <ul>
+ * <li>{@link #testMatchesSingleVerification()}: Verifica, sequenzialmente e in
+ * parallelo, prove di alberi diversi mescolate, ripetute e con dati alterati,
+ * confrontando gli esiti con quelli delle singole prove.</li>
+ *
+ * <li>{@link #testSharedPathWithAlteredHash()}: Verifica che una prova con un
+ * hash alterato sopra l'antenato comune con una prova valida non venga
+ * considerata valida.</li>
+ *
+ * <li>{@link #testInvalidParameters()}: Verifica le eccezioni per parametri
+ * non validi.</li>
+ * </ul>
+ */
+class MerkleProofVerifierTest {
+
+    @Test
+    void testMatchesSingleVerification() {
+        HashLinkedList<String> lista1 = new HashLinkedList<>(HashAlgorithms.SHA_256, LeafEncoders.STRING);
+        HashLinkedList<String> lista2 = new HashLinkedList<>();
+        for (int i = 0; i < 300; i++) lista1.addAtTail("Dato " + i);
+        for (int i = 0; i < 77; i++) lista2.addAtTail("Altro dato " + i);
+        MerkleTree<String> albero1 = new MerkleTree<>(lista1);
+        MerkleTree<String> albero2 = new MerkleTree<>(lista2);
+
+        List<MerkleProof> prove = new ArrayList<>();
+        List<String> dati = new ArrayList<>();
+        Random random = new Random(23);
+        for (int i = 0; i < 2000; i++) {
+            boolean primo = random.nextBoolean();
+            int foglia = random.nextInt(primo ? 300 : 77);
+            String dato = (primo ? "Dato " : "Altro dato ") + foglia;
+            prove.add(primo ? albero1.getMerkleProof(foglia) : albero2.getMerkleProof(foglia));
+            // Circa un dato su cinque viene alterato
+            dati.add(random.nextInt(5) == 0 ? dato + "!" : dato);
+        }
+        // Una prova con una radice non esadecimale non è mai valida
+        prove.add(new MerkleProof("radice non valida", 0));
+        dati.add("Dato 0");
+
+        BitSet attesi = new BitSet();
+        for (int i = 0; i < prove.size(); i++) {
+            if (prove.get(i).proveValidityOfData(dati.get(i))) attesi.set(i);
+        }
+        assertTrue(attesi.cardinality() > 1000 && attesi.cardinality() < 2000, "Il test deve contenere dati validi e non");
+
+        assertEquals(attesi, new MerkleProofVerifier().verify(prove, dati), "Esiti sequenziali diversi");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertEquals(attesi, new MerkleProofVerifier(pool, 7).verify(prove, dati), "Esiti paralleli diversi");
+        } finally {
+            pool.shutdown();
+        }
+        assertTrue(new MerkleProofVerifier().verify(Collections.emptyList(), Collections.emptyList()).isEmpty());
+    }
+
+    @Test
+    void testSharedPathWithAlteredHash() {
+        HashLinkedList<String> lista = new HashLinkedList<>(HashAlgorithms.SHA_256, LeafEncoders.STRING);
+        for (int i = 0; i < 16; i++) lista.addAtTail("Dato " + i);
+        MerkleTree<String> albero = new MerkleTree<>(lista);
+
+        // Altero l'ultimo hash della prova della foglia 1, che la prova della
+        // foglia 0 condivide
+        MerkleProof prova = albero.getMerkleProof(1);
+        ByteBuffer buffer = ByteBuffer.allocate(prova.encodedSize());
+        prova.encode(buffer);
+        buffer.put(buffer.limit() - 1, (byte) ~buffer.get(buffer.limit() - 1));
+        MerkleProof alterata = MerkleProof.decode(buffer.flip(), LeafEncoders.STRING);
+        assertFalse(alterata.proveValidityOfData("Dato 1"));
+
+        List<MerkleProof> prove = Arrays.asList(albero.getMerkleProof(0), alterata, albero.getMerkleProof(1),
+                alterata);
+        BitSet esiti = new MerkleProofVerifier().verify(prove, Arrays.asList("Dato 0", "Dato 1", "Dato 1", "Dato 1"));
+        BitSet attesi = new BitSet();
+        attesi.set(0);
+        attesi.set(2);
+        assertEquals(attesi, esiti, "Solo le prove non alterate devono essere valide");
+    }
+
+    @Test
+    void testInvalidParameters() {
+        MerkleProofVerifier verificatore = new MerkleProofVerifier();
+        HashLinkedList<String> lista = new HashLinkedList<>();
+        lista.addAtTail("Alice paga Bob");
+        MerkleProof prova = new MerkleTree<>(lista).getMerkleProof(0);
+
+        assertThrows(IllegalArgumentException.class, () -> verificatore.verify(null, Collections.emptyList()));
+        assertThrows(IllegalArgumentException.class, () -> verificatore.verify(Collections.emptyList(), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> verificatore.verify(Collections.singletonList(prova), Collections.emptyList()));
+        assertThrows(IllegalArgumentException.class,
+                () -> verificatore.verify(Collections.singletonList(null), Collections.singletonList("Alice paga Bob")));
+        assertThrows(IllegalArgumentException.class,
+                () -> verificatore.verify(Collections.singletonList(prova), Collections.singletonList(null)));
+        assertThrows(IllegalArgumentException.class, () -> new MerkleProofVerifier(null, 0));
+    }
+}
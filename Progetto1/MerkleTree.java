@@ -1,4 +1,13 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * Un Merkle Tree, noto anche come hash tree binario, è una struttura dati per
@@ -6,29 +15,95 @@ import java.util.*;
  * all'interno di un set di dati più ampio. Viene costruito eseguendo l'hashing
  * ricorsivo di coppie di dati (valori hash crittografici) fino a ottenere un
  * singolo hash root. In questa implementazione la verifica di dati avviene
- * utilizzando hash MD5.
+ * utilizzando l'algoritmo di hash della lista da cui l'albero è costruito
+ * (MD5 se non indicato diversamente).
+ *
+ * <p>
+ * Durante la costruzione l'albero registra in un indice la posizione di
+ * ciascun hash foglia, così che la ricerca dell'indice di un dato e la sua
+ * validazione richiedano tempo O(1) atteso invece di una visita completa
+ * dell'albero.
+ *
+ * <p>
+ * Gli hash di tutti i nodi sono memorizzati in un unico buffer di byte,
+ * livello per livello a partire dalle foglie (si veda {@link MerkleLayout}):
+ * l'albero non contiene quindi oggetti per i singoli nodi, e i
+ * {@link MerkleNode} restituiti da {@link #getRoot()} e dai suoi discendenti
+ * sono nodi leggeri creati al momento, che copiano l'hash dal buffer. La
+ * prova di Merkle di una foglia si ottiene in tempo O(log n) dalla sua
+ * posizione, con {@link #getMerkleProof(int)}.
+ *
+ * <p>
+ * L'albero può essere aggiornato sostituendo il dato di una o più foglie con
+ * {@link #updateLeaf(int, Object)} e {@link #updateLeaves(Map)}, che
+ * ricalcolano soltanto gli hash dei nodi sul cammino verso la radice. I nodi
+ * restituiti prima di un aggiornamento conservano il proprio hash, come
+ * valori, ma non permettono più di raggiungere i figli.
+ *
+ * <p>
+ * Con {@link #save(Path)} gli hash di tutti i nodi vengono salvati in un file
+ * binario, che {@link #load(Path, LeafEncoder)} mappa in memoria senza
+ * leggerlo: l'albero caricato è disponibile subito e legge gli hash
+ * direttamente dalla cache delle pagine del sistema operativo.
  *
  * @param <T>
  *                il tipo di dati su cui l'albero è costruito.
  */
 public class MerkleTree<T> {
-    /**
-     * Nodo radice dell'albero.
-     */
-    private final MerkleNode root;
+    // Identificativo dei file degli alberi, "MKLT" in ASCII
+    private static final int MAGIA = 0x4D4B4C54;
+
+    // Versione del formato dei file degli alberi
+    private static final int VERSIONE = 1;
+
 
     /**
      * Larghezza dell'albero, ovvero il numero di nodi nell'ultimo livello.
      */
     private final int width;
 
+    /**
+     * Algoritmo di hash con cui è costruito l'albero.
+     */
+    private final HashAlgorithm algorithm;
+
+    /**
+     * Encoder con cui vengono codificati i dati prima del calcolo dell'hash.
+     */
+    private final LeafEncoder<? super T> encoder;
+
+    /**
+     * Hash di tutti i nodi dell'albero, livello per livello.
+     */
+    private final MerkleLayout layout;
+
+    /**
+     * Indice che associa a ogni hash foglia la posizione della prima foglia
+     * che lo contiene. Per gli alberi caricati da file viene costruito al
+     * primo utilizzo.
+     */
+    private volatile LeafIndex indiceFoglie;
+
+    /**
+     * Indice di tutti i nodi dell'albero, numerati livello per livello a
+     * partire dalle foglie. Viene costruito al primo utilizzo.
+     */
+    private volatile LeafIndex indiceNodi;
+
+    /**
+     * Numero di aggiornamenti eseguiti sull'albero, per riconoscere i nodi
+     * restituiti prima dell'ultimo aggiornamento.
+     */
+    private int modifiche;
+
     /**
      * Costruisce un albero di Merkle a partire da un oggetto HashLinkedList,
      * utilizzando direttamente gli hash presenti nella lista per costruire le
      * foglie. Si noti che gli hash dei nodi intermedi dovrebbero essere
      * ottenuti da quelli inferiori concatenando hash adiacenti due a due e
      * applicando direttmaente la funzione di hash MD5 al risultato della
-     * concatenazione in bytes.
+     * concatenazione in bytes. L'albero utilizza lo stesso algoritmo di hash
+     * e lo stesso encoder della lista fornita.
      *
      * @param hashList
      *                     un oggetto HashLinkedList contenente i dati e i
@@ -37,59 +112,88 @@ public class MerkleTree<T> {
      *                                      se la lista è null o vuota.
      */
     public MerkleTree(HashLinkedList<T> hashList) {
+        this(hashList, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Costruisce un albero di Merkle a partire da un oggetto HashLinkedList,
+     * come {@link #MerkleTree(HashLinkedList)}, distribuendo il calcolo sul
+     * pool fork-join indicato. Gli hash delle foglie ancora da calcolare e
+     * gli hash di ciascun livello vengono suddivisi in intervalli di al più
+     * {@code threshold} nodi, eseguiti in parallelo; il grado di
+     * parallelismo è quello del pool, ad esempio
+     * {@code new ForkJoinPool(32)} oppure {@link ForkJoinPool#commonPool()}.
+     * L'albero ottenuto è identico a quello costruito sequenzialmente.
+     *
+     * @param hashList
+     *                      un oggetto HashLinkedList contenente i dati e i
+     *                      relativi hash.
+     * @param pool
+     *                      il pool su cui costruire l'albero, oppure null
+     *                      per costruirlo sequenzialmente.
+     * @param threshold
+     *                      il numero di nodi al di sotto del quale un
+     *                      intervallo viene calcolato sequenzialmente.
+     * @throws IllegalArgumentException
+     *                                      se la lista è null o vuota, o se
+     *                                      la soglia non è positiva.
+     */
+    public MerkleTree(HashLinkedList<T> hashList, ForkJoinPool pool, int threshold) {
     	// Controllo se la lista di hash è null o vuota
     	// e genero un'eccezione in tal caso
     	if(hashList == null || hashList.getSize() == 0)
     		throw new IllegalArgumentException("MT: parametro hashList null");
+    	if(threshold <= 0)
+    		throw new IllegalArgumentException("MT: soglia non valida");
 
-    	// Creo una lista di nodi foglia a partire dagli elementi nella lista di hash
-        List<MerkleNode> nodifoglie = new ArrayList<MerkleNode>();
-        // Itero per ogni elemento della lista hash
-        for(T data : hashList) {
-        	// Calcolo l'hash di ogni elemento della lista
-            String hash = HashUtil.dataToHash(data);
-            // Creo un nodo foglia con l'hash calcolato
-            nodifoglie.add(new MerkleNode(hash));
-        }
+    	// Utilizzo lo stesso algoritmo con cui sono stati calcolati gli hash della lista
+    	this.algorithm = hashList.getAlgorithm();
+    	this.encoder = hashList.getEncoder();
 
-        // Inizio con le foglie e costruisco gli strati del Merkle Tree
-        List<MerkleNode> nodi = nodifoglie;
-        while(nodi.size() > 1) {
-        	// Creo una nuova lista per i nodi genitori
-            List<MerkleNode> nodiGenitori = new ArrayList<MerkleNode>();
-            for(int i = 0; i < nodi.size(); i += 2) {
-                if(i + 1 < nodi.size()) {
-                	// Se ci sono due nodi, combino i loro hash
-                    MerkleNode sinistra = nodi.get(i);
-                    MerkleNode destra = nodi.get(i + 1);
-                    String hashCombinato = HashUtil.computeMD5((sinistra.getHash() + destra.getHash()).getBytes());
-                    // Creo un nodo genitore con l'hash combinato e i due figli
-                    nodiGenitori.add(new MerkleNode(hashCombinato, sinistra, destra));
-                }
-                else {
-                	// Se c'è un nodo dispari, creo un genitore con un solo figlio
-                    MerkleNode figlioUnico = nodi.get(i);
-                    String hashCombinato = HashUtil.computeMD5((figlioUnico.getHash() + "").getBytes());
-                    // Il secondo figlio è null
-                    nodiGenitori.add(new MerkleNode(hashCombinato, figlioUnico, null));
-                }
-            }
-            // Aggiorno la lista di nodi con i genitori appena creati
-            nodi = nodiGenitori;
+    	// Calcolo sul pool gli eventuali hash della lista non ancora calcolati:
+    	// il calcolo parallelo della lista viene eseguito nel pool corrente
+    	if(pool != null && hashList.getPendingHashCount() > 0)
+    		pool.invoke(ForkJoinTask.adapt(hashList::computePendingHashes));
+
+    	// Scrivo gli hash binari già calcolati dalla lista come foglie
+    	// della rappresentazione piatta dell'albero
+    	this.width = hashList.getSize();
+    	this.layout = new MerkleLayout(this.width, this.algorithm.getDigestLength());
+    	List<Digest> foglie = hashList.getAllDigests();
+
+        // Calcolo gli hash dei livelli superiori fino alla radice
+        if(pool == null) {
+            for(int i = 0; i < this.width; i++) this.layout.set(i, foglie.get(i));
+            this.layout.build(this.algorithm);
         }
-        // Imposto la radice dell'albero con il primo elemento della lista
-        this.root = nodi.get(0);
-        // Salvo il numero di foglie iniziali come larghezza dell'albero
-        this.width = nodifoglie.size();
+        else {
+            MerkleLayout.parallelFor(pool, this.width, threshold, i -> this.layout.set(i, foglie.get(i)));
+            this.layout.build(this.algorithm, pool, threshold);
+        }
+
+        // Indicizzo gli hash delle foglie per le ricerche successive
+        this.indiceFoglie = new LeafIndex(this.width, this.layout);
     }
 
     /**
-     * Restituisce il nodo radice dell'albero.
+     * Costruisce un albero sugli hash già calcolati della rappresentazione
+     * indicata. L'indice delle foglie viene costruito al primo utilizzo.
+     */
+    private MerkleTree(MerkleLayout layout, HashAlgorithm algorithm, LeafEncoder<? super T> encoder) {
+        this.algorithm = algorithm;
+        this.encoder = encoder;
+        this.layout = layout;
+        this.width = layout.width(0);
+    }
+
+    /**
+     * Restituisce il nodo radice dell'albero, con l'hash attuale della
+     * radice.
      *
      * @return il nodo radice.
      */
     public MerkleNode getRoot() {
-        return root;
+        return new NodeView(this, this.layout.levels() - 1, 0);
     }
 
     /**
@@ -101,25 +205,32 @@ public class MerkleTree<T> {
         return width;
     }
 
+    /**
+     * Restituisce l'algoritmo di hash con cui è costruito l'albero.
+     *
+     * @return l'algoritmo di hash dell'albero.
+     */
+    public HashAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Restituisce l'encoder con cui vengono codificati i dati dell'albero.
+     *
+     * @return l'encoder dell'albero.
+     */
+    public LeafEncoder<? super T> getEncoder() {
+        return encoder;
+    }
+
     /**
      * Restituisce l'altezza dell'albero.
      *
      * @return l'altezza dell'albero.
      */    
     public int getHeight() {
-    	// Inizializzo l'altezza a 0
-    	int height = 0;
-    	// Partendo dal nodo radice dell'albero Merkle
-        MerkleNode corrente = this.root;
-        // Itero finché il nodo corrente ha almeno un figlio
-        while(corrente.getLeft() != null || corrente.getRight() != null) {
-        	// Incremento il valore dell'altezza
-            height++;
-            // Memorizzo il figlio sinistro se esiste, altrimenti il figlio destro
-            corrente = corrente.getLeft() != null ? corrente.getLeft() : corrente.getRight();
-        }
-        // Restituisco l'altezza dell'albero
-        return height;
+    	// Tutte le foglie si trovano alla stessa profondità
+        return this.layout.levels() - 1;
     }
 
     /**
@@ -131,7 +242,9 @@ public class MerkleTree<T> {
      * fornito rappresenta un indice relativo a quel sottoalbero, ovvero un
      * offset rispetto all'indice del primo elemento del blocco di dati che
      * rappresenta. Se l'hash dell'elemento non è presente come dato
-     * dell'albero, viene restituito -1.
+     * dell'albero, viene restituito -1. Se il branch è un nodo di questo
+     * albero l'indice viene ottenuto dall'indice delle foglie, altrimenti il
+     * branch viene visitato.
      *
      * @param branch
      *                   la radice dell'albero di Merkle.
@@ -150,8 +263,13 @@ public class MerkleTree<T> {
     	if(branch == null || data == null)
     		throw new IllegalArgumentException("GID: parametri branch/data null");
 
-    	// Calcolo l'hash del dato utilizzando la funzione HashUtil
-        String dataHash = HashUtil.dataToHash(data);
+    	// Calcolo l'hash del dato utilizzando l'algoritmo dell'albero
+        Digest dataHash = this.encoder.digest(data, this.algorithm);
+        // Per i nodi di questo albero utilizzo l'indice delle foglie
+        if(isOwnNode(branch)) {
+        	NodeView nodo = (NodeView) branch;
+        	return getIndexInSubtree(nodo.livello, nodo.posizione, dataHash);
+        }
         // Chiamo il metodo ricorsivo per trovare l'indice del dato, partendo dall'indice 0
         return getIndexOfDataRec(branch, dataHash, 0);
     }
@@ -181,12 +299,12 @@ public class MerkleTree<T> {
      * 									del dato è null
      * 
      */
-    private int getIndexOfDataRec(MerkleNode nodo, String dataHash, int indice) {
+    private int getIndexOfDataRec(MerkleNode nodo, Digest dataHash, int indice) {
     	// Se il nodo è null, ritorno -1 per indicare che il dato non è stato trovato
         if(nodo == null) return -1;
 
         // Se l'hash del nodo corrisponde a quello del dato, ritorno l'indice corrente
-        if(nodo.getHash().equals(dataHash)) return indice;
+        if(dataHash.equals(nodo.getDigest())) return indice;
 
         // Cerco ricorsivamente nel figlio sinistro, moltiplicando l'indice per 2
         int indiceSinistro = getIndexOfDataRec(nodo.getLeft(), dataHash, indice * 2);
@@ -197,13 +315,45 @@ public class MerkleTree<T> {
         return getIndexOfDataRec(nodo.getRight(), dataHash, indice * 2 + 1);
     }
 
+    /**
+     * Restituisce l'indice, relativo al sottoalbero, della prima foglia del
+     * sottoalbero con radice nel nodo indicato che contiene l'hash fornito.
+     * Se la prima occorrenza dell'hash nell'albero cade nel sottoalbero
+     * l'indice è immediato; altrimenti vengono scorse le foglie del
+     * sottoalbero.
+     *
+     * @param livello
+     *                      il livello della radice del sottoalbero.
+     * @param posizione
+     *                      la posizione della radice nel suo livello.
+     * @param dataHash
+     *                      l'hash da cercare.
+     * @return l'indice relativo della foglia, oppure -1 se l'hash non è
+     *         presente nel sottoalbero.
+     */
+    private int getIndexInSubtree(int livello, int posizione, Digest dataHash) {
+    	// Intervallo delle foglie coperte dal sottoalbero
+    	int prima = (int) Math.min((long) posizione << livello, this.width);
+    	int ultima = (int) Math.min((long) (posizione + 1) << livello, this.width);
+    	
+    	int indice = getIndiceFoglie().indexOf(dataHash);
+    	if(indice < 0 || indice >= ultima) return -1;
+    	if(indice >= prima) return indice - prima;
+    	
+    	// La prima occorrenza è a sinistra del sottoalbero: cerco tra le sue foglie
+    	for(int i = prima; i < ultima; i++)
+    		if(this.layout.matches(i, dataHash)) return i - prima;
+    	return -1;
+    }
+
     /**
      * Restituisce l'indice di un elemento secondo questo albero di Merkle. Gli
      * indici forniti partono da 0 e corrispondono all'ordine degli hash
      * corrispondenti agli elementi nell'ultimo livello dell'albero da sinistra
      * a destra (e quindi l'ordine degli elementi forniti alla costruzione). Se
      * l'hash dell'elemento non è presente come dato dell'albero, viene
-     * restituito -1.
+     * restituito -1. Se lo stesso hash compare in più foglie viene restituita
+     * la posizione della prima.
      *
      * @param data
      *                 l'elemento da cercare.
@@ -217,10 +367,10 @@ public class MerkleTree<T> {
     	if(data == null)
     		throw new IllegalArgumentException("GID2: parametro data null");
     	
-    	// Calcolo l'hash del dato utilizzando la funzione HashUtil
-        String dataHash = HashUtil.dataToHash(data);
-        // Chiamo il metodo ricorsivo per trovare l'indice del dato, partendo dall'indice 0
-        return getIndexOfDataRec(this.root, dataHash, 0);
+    	// Calcolo l'hash del dato utilizzando l'algoritmo dell'albero
+        Digest dataHash = this.encoder.digest(data, this.algorithm);
+        // Cerco l'hash nell'indice delle foglie
+        return getIndiceFoglie().indexOf(dataHash);
     }
 
     /**
@@ -239,40 +389,10 @@ public class MerkleTree<T> {
     	if(data == null)
     		throw new IllegalArgumentException("VD: parametro data null");
     	
-    	// Calcolo l'hash del dato utilizzando la funzione HashUtil
-        String dataHash = HashUtil.dataToHash(data);
-        // Chiamo il metodo per la validazione ricorsiva partendo dalla radice
-        return validateDataRec(this.root, dataHash);
-    }
-
-    /**
-     * Verifica ricorsivamente se un dato con l'hash specificato esiste in una
-     * struttura ad albero Merkle. Questo metodo esplora l'albero Merkle a
-     * partire dal nodo fornito, confrontando l'hash di ciascun nodo con l'hash
-     * del dato da verificare. Se l'hash del nodo corrente corrisponde all'hash
-     * del dato, viene restituito true. Se il nodo corrente è null o se l'hash
-     * del nodo corrente non corrisponde, il metodo continua la ricerca
-     * ricorsiva nei figli sinistro e destro del nodo.
-     *
-     * @param nodo     il nodo corrente dell'albero Merkle in cui cercare il dato
-     * 
-     * @param dataHash l'hash del dato da verificare
-     * 
-     * @return true se l'hash del dato è trovato in un nodo dell'albero, false
-     * 				altrimenti
-     * 
-     * @throws IllegalArgumentException se il nodo o l'hash del dato sono null
-     * 
-     */
-    private boolean validateDataRec(MerkleNode nodo, String dataHash) {
-    	// Se il nodo corrente è null, restituisco false
-        if(nodo == null) return false;
-        
-        // Se l'hash del nodo corrente corrisponde all'hash del dato, restituisco true
-        if(nodo.getHash().equals(dataHash)) return true;
-
-        // Continuo la ricerca ricorsiva nei figli sinistro e destro
-        return validateDataRec(nodo.getLeft(), dataHash) || validateDataRec(nodo.getRight(), dataHash);
+    	// Calcolo l'hash del dato utilizzando l'algoritmo dell'albero
+        Digest dataHash = this.encoder.digest(data, this.algorithm);
+        // Il dato è valido se il suo hash compare tra le foglie
+        return getIndiceFoglie().indexOf(dataHash) >= 0;
     }
 
     /**
@@ -280,7 +400,8 @@ public class MerkleTree<T> {
      * quindi a un blocco di dati, per verificare se è valido rispetto a questo
      * albero e ai suoi hash. Un sottoalbero è valido se l'hash della sua radice
      * è uguale all'hash di un qualsiasi nodo intermedio di questo albero. Si
-     * noti che il sottoalbero fornito può corrispondere a una foglia.
+     * noti che il sottoalbero fornito può corrispondere a una foglia. L'hash
+     * viene cercato nell'indice di tutti i nodi dell'albero.
      *
      * @param branch
      *                   la radice del sottoalbero di Merkle da validare.
@@ -293,51 +414,22 @@ public class MerkleTree<T> {
     		throw new IllegalArgumentException("VB: parametro branch null");
 
     	// Ottengo l'hash del nodo branch
-        String branchHash = branch.getHash();
-        // Chiamo il metodo per la validazione ricorsiva partendo dalla radice
-        return validateBranchRec(this.root, branchHash);
-    }
-
-    /**
-     * Verifica ricorsivamente se un nodo con l'hash specificato esiste in un
-     * ramo dell'albero Merkle. Questo metodo esplora l'albero Merkle a partire
-     * dal nodo fornito, confrontando l'hash di ciascun nodo con l'hash del ramo
-     * da verificare. Se l'hash del nodo corrente corrisponde all'hash del ramo,
-     * viene restituito true. Se il nodo corrente è null o se l'hash del nodo
-     * corrente non corrisponde, il metodo continua la ricerca ricorsiva nei
-     * figli sinistro e destro del nodo.
-     *
-     * @param nodo       il nodo corrente dell'albero Merkle in cui cercare
-     * 					 l'hash del ramo
-     * 
-     * @param branchHash l'hash del ramo da verificare
-     * 
-     * @return true se l'hash del ramo è trovato in un nodo dell'albero,
-     * 				false altrimenti
-     * 
-     * @throws IllegalArgumentException se il nodo o l'hash del ramo sono null
-     * 
-     */
-    private boolean validateBranchRec(MerkleNode nodo, String branchHash) {
-    	// Se il nodo corrente è null, restituisco false
-        if(nodo == null) return false;
-
-        // Se l'hash del nodo corrente corrisponde all'hash del branch, restituisco true
-        if(nodo.getHash().equals(branchHash)) return true;
-
-        // Eseguo la ricerca nel sottoalbero sinistro
-        boolean validSinistra = validateBranchRec(nodo.getLeft(), branchHash);
-        // Se trovo nel sottoalbero sinistro, restituisce true
-        if(validSinistra) return true;
-
-        // Altrimenti, eseguo la ricerca nel sottoalbero destro
-        return validateBranchRec(nodo.getRight(), branchHash);
+        Digest branchHash = branch.getDigest();
+        // Un hash non esadecimale non può essere parte dell'albero
+        if(branchHash == null) return false;
+        // Cerco l'hash tra quelli di tutti i nodi dell'albero
+        return getIndiceNodi().indexOf(branchHash) >= 0;
     }
 
     /**
      * Sottopone a validazione un dato albero di Merkle per verificare se è
      * valido rispetto a questo albero e ai suoi hash. Grazie alle proprietà
-     * degli alberi di Merkle, ciò può essere fatto in tempo costante.
+     * degli alberi di Merkle, ciò può essere fatto in tempo costante. I due
+     * alberi sono validi l'uno rispetto all'altro se hanno la stessa
+     * struttura, cioè lo stesso numero di foglie, e gli stessi hash: poiché
+     * la radice dipende da tutti gli altri hash, è sufficiente confrontare
+     * le radici. La coerenza interna degli alberi non viene ricalcolata; per
+     * verificarla si usi {@link #validateTree(MerkleTree, ForkJoinPool, int)}.
      *
      * @param otherTree
      *                      il nodo radice dell'altro albero di Merkle da
@@ -352,47 +444,76 @@ public class MerkleTree<T> {
     	if(otherTree == null)
     		throw new IllegalArgumentException("VT: parametro otherTree null");
 
-    	// Ottengo la radice dell'altro albero
-        MerkleNode altraRoot = otherTree.getRoot();
-        // Chiamo il metodo per la validazione ricorsiva partendo dalla radice
-        return validateTreeRec(this.root, altraRoot);
+    	// Le radici riassumono tutti gli hash degli alberi: se coincidono non
+    	// è necessario confrontare gli altri nodi
+    	return this.width == otherTree.width
+    			&& this.layout.matches(this.layout.root(), otherTree.layout, otherTree.layout.root());
     }
 
     /**
-     * Valida ricorsivamente due alberi Merkle verificando se hanno la stessa
-     * struttura e gli stessi hash. Questo metodo verifica se due alberi Merkle
-     * sono identici a partire dai nodi forniti. Un albero è considerato valido
-     * rispetto all'altro se entrambi i nodi in ciascuna posizione
-     * corrispondente hanno lo stesso hash e la stessa struttura. Il metodo
-     * utilizza un approccio ricorsivo per confrontare ogni coppia di nodi.
+     * Sottopone a validazione un dato albero di Merkle come
+     * {@link #validateTree(MerkleTree)} e verifica inoltre la coerenza
+     * interna di entrambi gli alberi con {@link #checkConsistency(ForkJoinPool, int)},
+     * così da rilevare anche nodi interni alterati, ad esempio in un file
+     * danneggiato. Se le radici sono diverse la verifica termina subito.
      *
-     * @param nodo      il nodo corrente del primo albero Merkle
-     * 
-     * @param altroNodo il nodo corrente del secondo albero Merkle
-     * 
-     * @return true se gli alberi sono identici in termini di struttura e hash,
-     * 				false altrimenti
-     * 
-     * @throws IllegalArgumentException se uno dei nodi forniti è null
-     * 
+     * @param otherTree
+     *                      l'altro albero di Merkle da validare.
+     * @param pool
+     *                      il pool su cui ricalcolare gli hash, oppure null
+     *                      per ricalcolarli sequenzialmente.
+     * @param threshold
+     *                      il numero di nodi verificati da un singolo
+     *                      compito.
+     * @return true se l'altro albero è valido e i due alberi sono coerenti;
+     *         false altrimenti.
+     * @throws IllegalArgumentException
+     *                                      se l'albero fornito è null o la
+     *                                      soglia non è positiva.
      */
-    private boolean validateTreeRec(MerkleNode nodo, MerkleNode altroNodo) {
-    	// Caso base:
-    	// entrambi i nodi sono null, l'albero è valido in questa posizione
-        if(nodo == null && altroNodo == null) return true;
-        // Caso base:
-        // uno dei due nodi è null, l'albero non è valido
-        if(nodo == null || altroNodo == null) return false;
+    public boolean validateTree(MerkleTree<T> otherTree, ForkJoinPool pool, int threshold) {
+    	// Controllo la soglia prima di confrontare le radici, così che
+    	// l'eccezione non dipenda dai dati degli alberi
+    	if(threshold <= 0)
+    		throw new IllegalArgumentException("VT2: soglia non valida");
 
-        // Verifico se gli hash dei due nodi non corrispondono
-        if(!nodo.getHash().equals(altroNodo.getHash())) return false;
+        return validateTree(otherTree) && checkConsistency(pool, threshold)
+                && otherTree.checkConsistency(pool, threshold);
+    }
 
-        // Valido ricorsivamente i sotto-alberi sinistro e destro
-        boolean validSinistra = validateTreeRec(nodo.getLeft(), altroNodo.getLeft());
-        boolean validDestra = validateTreeRec(nodo.getRight(), altroNodo.getRight());
+    /**
+     * Verifica la coerenza interna dell'albero, ricalcolando l'hash di ogni
+     * nodo interno a partire da quelli dei suoi figli e confrontandolo con
+     * quello memorizzato. Si veda {@link #checkConsistency(ForkJoinPool, int)}.
+     *
+     * @return true se tutti gli hash sono coerenti; false altrimenti.
+     */
+    public boolean checkConsistency() {
+        return checkConsistency(null, Integer.MAX_VALUE);
+    }
 
-        // L'albero è valido se entrambi i sotto-alberi sono validi
-        return validSinistra && validDestra;
+    /**
+     * Verifica la coerenza interna dell'albero, ricalcolando l'hash di ogni
+     * nodo interno a partire da quelli dei suoi figli e confrontandolo con
+     * quello memorizzato. Ogni nodo dipende soltanto dagli hash memorizzati
+     * dei figli, quindi tutti i nodi possono essere verificati in parallelo;
+     * la verifica si interrompe al primo nodo incoerente.
+     *
+     * @param pool
+     *                      il pool su cui ricalcolare gli hash, oppure null
+     *                      per ricalcolarli sequenzialmente.
+     * @param threshold
+     *                      il numero di nodi verificati da un singolo
+     *                      compito.
+     * @return true se tutti gli hash sono coerenti; false altrimenti.
+     * @throws IllegalArgumentException
+     *                                      se la soglia non è positiva.
+     */
+    public boolean checkConsistency(ForkJoinPool pool, int threshold) {
+    	if(threshold <= 0)
+    		throw new IllegalArgumentException("CC: soglia non valida");
+
+        return this.layout.isConsistent(this.algorithm, pool, threshold);
     }
 
     /**
@@ -421,53 +542,63 @@ public class MerkleTree<T> {
         if(otherTree == null || otherTree.getWidth() != this.width)
         	throw new IllegalArgumentException("FIDI: parametro otherTree null");
 
-        // Insieme per memorizzare gli indici dei nodi con dati non validi
+        // Confronto gli alberi e converto l'insieme di bit degli indici non validi
         Set<Integer> indiciInvalidi = new HashSet<Integer>();
-        // Chiamo il confronto dei nodi a partire dalla radice
-        compareNodes(this.root, otherTree.getRoot(), 0, indiciInvalidi);
-        // Restituisco l'insieme degli indici dei nodi non validi
+        diffLeaves(otherTree).stream().forEach(indiciInvalidi::add);
         return indiciInvalidi;
     }
 
     /**
-     * Confronta ricorsivamente due nodi Merkle e identifica le differenze nei
-     * loro hash. Questo metodo confronta due nodi Merkle e i loro rispettivi
-     * sottoalberi, aggiungendo l'indice dei nodi con hash diversi a un insieme
-     * di indici non validi. Se uno dei nodi è nullo, l'indice viene aggiunto
-     * direttamente. Se gli hash dei nodi non corrispondono, il metodo verifica
-     * se entrambi i nodi sono foglie; in tal caso, l'indice viene aggiunto,
-     * altrimenti la ricerca continua ricorsivamente nei figli sinistro e destro.
+     * Confronta questo albero con un altro e restituisce le posizioni delle
+     * foglie diverse, come {@link #findInvalidDataIndices(MerkleTree)}, ma
+     * sotto forma di insieme di bit, più compatto di un insieme di interi. A
+     * differenza di {@link #findInvalidDataIndices(MerkleTree)} gli alberi
+     * possono avere larghezze diverse: le foglie presenti in uno solo dei due
+     * alberi sono considerate diverse. Il confronto scende soltanto nei
+     * sottoalberi con radici diverse.
      *
-     * @param nodo1        il primo nodo Merkle da confrontare
-     * 
-     * @param nodo2        il secondo nodo Merkle da confrontare
-     * 
-     * @param indice       l'indice corrente nel confronto
-     * 
-     * @param indiciInvalidi l'insieme degli indici dei nodi non validi
-     * 
-     * @throws IllegalArgumentException se uno dei nodi forniti è null
-     * 
+     * @param otherTree
+     *                      l'altro albero.
+     * @return l'insieme delle posizioni delle foglie diverse.
+     * @throws IllegalArgumentException
+     *                                      se l'altro albero è null.
      */
-    private void compareNodes(MerkleNode nodo1, MerkleNode nodo2, int indice, Set<Integer> indiciInvalidi) {
-    	// Se uno dei due nodi è nullo
-        if(nodo1 == null || nodo2 == null) {
-        	// Aggiungo l'indice ai nodi non validi se i nodi sono diversi
-            if(nodo1 != nodo2) indiciInvalidi.add(indice);
-            // Termino il confronto per questo ramo
-            return;
-        }
+    public BitSet diffLeaves(MerkleTree<T> otherTree) {
+        return diffLeaves(otherTree, null, 1);
+    }
 
-        // Confronto gli hash dei due nodi
-        if(!nodo1.getHash().equals(nodo2.getHash())) {
-        	// Se entrambi i nodi sono foglie ed hanno hash diversi, aggiungo l'indice
-            if(nodo1.isLeaf() && nodo2.isLeaf()) indiciInvalidi.add(indice);
-            else {
-            	// Altrimenti, confronto ricorsivamente i figli sinistri e destri
-                compareNodes(nodo1.getLeft(), nodo2.getLeft(), indice * 2, indiciInvalidi);
-                compareNodes(nodo1.getRight(), nodo2.getRight(), indice * 2 + 1, indiciInvalidi);
-            }
-        }
+    /**
+     * Confronta questo albero con un altro come
+     * {@link #diffLeaves(MerkleTree)}, distribuendo il confronto sul pool
+     * fork-join indicato: ogni sottoalbero con radici diverse nei due alberi
+     * viene confrontato in un compito separato, finché i sottoalberi non
+     * contengono al più {@code threshold} foglie (e comunque almeno 64).
+     *
+     * @param otherTree
+     *                      l'altro albero.
+     * @param pool
+     *                      il pool su cui eseguire il confronto, oppure null
+     *                      per eseguirlo sequenzialmente.
+     * @param threshold
+     *                      il numero di foglie dei sottoalberi confrontati da
+     *                      un singolo thread.
+     * @return l'insieme delle posizioni delle foglie diverse.
+     * @throws IllegalArgumentException
+     *                                      se l'altro albero è null o la
+     *                                      soglia non è positiva.
+     */
+    public BitSet diffLeaves(MerkleTree<T> otherTree, ForkJoinPool pool, int threshold) {
+    	if(otherTree == null)
+    		throw new IllegalArgumentException("DL: parametro otherTree null");
+    	if(threshold <= 0)
+    		throw new IllegalArgumentException("DL: soglia non valida");
+
+    	// I sottoalberi dei compiti paralleli devono coprire almeno 64 foglie,
+    	// così che ogni compito scriva parole diverse dell'insieme di bit
+    	int livelloSequenziale = Math.max(6, 32 - Integer.numberOfLeadingZeros(threshold - 1));
+    	long[] bit = new long[(Math.max(this.width, otherTree.width) + 63) >>> 6];
+    	this.layout.diff(otherTree.layout, bit, pool, livelloSequenziale);
+    	return BitSet.valueOf(bit);
     }
 
     /**
@@ -479,7 +610,8 @@ public class MerkleTree<T> {
      * con il successivo e così via fino all'ultimo oggetto, si possa ottenere
      * l'hash del nodo padre dell'albero. Nel caso in cui non ci, in determinati
      * step della prova non ci siano due hash distinti da combinare, l'hash deve
-     * comunque ricalcolato sulla base dell'unico hash disponibile.
+     * comunque ricalcolato sulla base dell'unico hash disponibile. Se il dato
+     * compare in più foglie, la prova riguarda la prima.
      *
      * @param data
      *                 l'elemento per cui generare la prova di Merkle.
@@ -493,74 +625,147 @@ public class MerkleTree<T> {
         if(data == null)
         	throw new IllegalArgumentException("GMP1: parametro data null");
         
-        // Calcolo l'hash del dato
-        String hash = HashUtil.dataToHash(data);
-        // Lista per memorizzare i MerkleProofHash trovati
-        List<MerkleProof.MerkleProofHash> hashesProva = new ArrayList<MerkleProof.MerkleProofHash>();
-        
-        // Costruisco il MerkleProof verificando se il nodo corrispondente si trova nell'albero
-        if(!buildMerkleProofRec(this.root, hash, hashesProva))
+        // Cerco la foglia del dato nell'indice delle foglie
+        int indice = getIndiceFoglie().indexOf(this.encoder.digest(data, this.algorithm));
+        if(indice < 0)
         	throw new IllegalArgumentException("GMP1.2: output false");
         
-        // Creo un oggetto MerkleProof utilizzando l'hash della radice e il numero di elementi trovati
-        MerkleProof prova = new MerkleProof(this.root.getHash(), hashesProva.size());
-        for(MerkleProof.MerkleProofHash provaHash : hashesProva) {
-        	// Aggiungo ciascun hash al MerkleProof
-        	prova.addHash(provaHash.getHash(), provaHash.isLeft());
+        // Costruisco la prova a partire dalla posizione della foglia
+        return buildMerkleProof(0, indice);
+    }
+
+    /**
+     * Restituisce la prova di Merkle per la foglia nella posizione indicata,
+     * con gli stessi passi di {@link #getMerkleProof(Object)}. La prova viene
+     * costruita in tempo O(log n), leggendo direttamente il fratello del nodo
+     * a ogni livello del cammino verso la radice.
+     *
+     * @param leafIndex
+     *                      la posizione della foglia, a partire da 0.
+     * @return la prova di Merkle per la foglia.
+     * @throws IllegalArgumentException
+     *                                      se la posizione non corrisponde a
+     *                                      una foglia dell'albero.
+     */
+    public MerkleProof getMerkleProof(int leafIndex) {
+    	if(leafIndex < 0 || leafIndex >= this.width)
+    		throw new IllegalArgumentException("GMP3: indice non valido");
+    	
+        return buildMerkleProof(0, leafIndex);
+    }
+
+    /**
+     * Costruisce la prova di Merkle per il nodo nella posizione e nel livello
+     * indicati, aggiungendo per ogni livello, dal nodo verso la radice,
+     * l'hash del fratello del nodo corrente. Se il fratello destro manca,
+     * viene aggiunto un hash vuoto, così che l'hash venga ricalcolato
+     * sull'unico figlio.
+     *
+     * @param livello
+     *                     il livello del nodo, 0 per le foglie.
+     * @param posizione
+     *                     la posizione del nodo nel suo livello.
+     * @return la prova di Merkle per il nodo.
+     */
+    private MerkleProof buildMerkleProof(int livello, int posizione) {
+    	int altezza = this.layout.levels() - 1;
+        MerkleProof prova = new MerkleProof(this.layout.digest(this.layout.root()), altezza - livello,
+        		this.algorithm, this.encoder);
+        for(int l = livello; l < altezza; l++) {
+        	if((posizione & 1) == 0) {
+        		// Il nodo è un figlio sinistro: aggiungo il fratello destro se esiste
+        		prova.addHash(posizione + 1 < this.layout.width(l)
+        				? this.layout.digest(this.layout.node(l, posizione + 1)) : Digest.EMPTY, false);
+        	}
+        	else {
+        		// Il nodo è un figlio destro: aggiungo il fratello sinistro
+        		prova.addHash(this.layout.digest(this.layout.node(l, posizione - 1)), true);
+        	}
+        	// Passo al nodo padre
+        	posizione >>= 1;
         }
-        
-        // Restituisco il MerkleProof
         return prova;
     }
 
     /**
-     * Costruisce ricorsivamente una prova Merkle per un dato con l'hash
-     * specificato in una struttura ad albero Merkle. Questo metodo esplora
-     * l'albero Merkle a partire dal nodo fornito, cercando un nodo con l'hash
-     * specificato. Se viene trovato un nodo con l'hash corrispondente, il
-     * metodo aggiunge gli hash dei nodi fratelli alla lista delle prove,
-     * costruendo così una prova Merkle. Il metodo controlla sia i sottoalberi
-     * sinistro che destro e aggiunge gli hash corrispondenti alla lista delle
-     * prove per ricostruire il percorso di verifica.
+     * Restituisce una prova di Merkle unica per le foglie nelle posizioni
+     * indicate. Ogni hash necessario compare nella prova una sola volta,
+     * anche se serve a più foglie, e gli hash dei nodi che la verifica può
+     * calcolare dalle foglie stesse vengono omessi; la prova si costruisce in
+     * tempo O(k log n) per k foglie. Le posizioni possono essere fornite in
+     * qualsiasi ordine e con ripetizioni: la prova le riporta ordinate e
+     * senza ripetizioni.
      *
-     * @param nodo        il nodo corrente dell'albero Merkle in cui cercare
-     * 					  l'hash del dato
-     * 
-     * @param hash        l'hash del dato da verificare
-     * 
-     * @param hashesProva la lista delle prove Merkle per il dato
-     * 
-     * @return true se l'hash del dato è trovato e la prova Merkle è costruita,
-     * 				false altrimenti
-     * 
-     * @throws IllegalArgumentException se il nodo o l'hash del dato sono null
-     * 
+     * @param leafIndices
+     *                        le posizioni delle foglie da provare.
+     * @return la prova di Merkle delle foglie indicate.
+     * @throws IllegalArgumentException
+     *                                      se l'array è null o vuoto o una
+     *                                      posizione non è valida.
      */
-    private boolean buildMerkleProofRec(MerkleNode nodo, String hash, List<MerkleProof.MerkleProofHash> hashesProva) {
-    	// Se il nodo è null, ritorno false
-        if(nodo == null) return false;
-        
-        // Se l'hash del nodo corrisponde all'hash cercato, ritorno true
-        if(nodo.getHash().equals(hash)) return true;
-        
-        // Controllo il sottoalbero sinistro
-        if(nodo.getLeft() != null && buildMerkleProofRec(nodo.getLeft(), hash, hashesProva)) {
-        	// Aggiungo l'hash del sottoalbero destro (se esiste) alla lista
-        	hashesProva.add(new MerkleProof.MerkleProofHash(nodo.getRight() != null ? nodo.getRight().getHash() : "", false));
-        	// Ritorno true
-            return true;
-        }
-        
-        // Controllo il sottoalbero destro
-        if(nodo.getRight() != null && buildMerkleProofRec(nodo.getRight(), hash, hashesProva)) {
-        	// Aggiungo l'hash del sottoalbero sinistro (se esiste) alla lista
-        	hashesProva.add(new MerkleProof.MerkleProofHash(nodo.getLeft() != null ? nodo.getLeft().getHash() : "", true));
-        	// Ritorno true
-        	return true;
-        }
-        
-        // Se nessun nodo corrisponde, ritorno false
-        return false;
+    public MerkleMultiProof getMerkleMultiProof(int... leafIndices) {
+    	if(leafIndices == null || leafIndices.length == 0)
+    		throw new IllegalArgumentException("GMMP: parametro leafIndices null o vuoto");
+
+    	// Ordino le posizioni ed elimino le ripetizioni
+    	int[] foglie = leafIndices.clone();
+    	Arrays.sort(foglie);
+    	int numero = 0;
+    	for(int foglia : foglie) {
+    		if(foglia < 0 || foglia >= this.width)
+    			throw new IllegalArgumentException("GMMP: indice non valido");
+    		if(numero == 0 || foglie[numero - 1] != foglia) foglie[numero++] = foglia;
+    	}
+    	foglie = Arrays.copyOf(foglie, numero);
+
+    	// Risalgo i livelli raccogliendo i fratelli che non sono già noti,
+    	// nello stesso ordine in cui la verifica li utilizzerà
+    	List<Digest> hash = new ArrayList<>();
+    	int[] posizioni = foglie.clone();
+    	for(int l = 0; l < this.layout.levels() - 1; l++) {
+    		int nuovi = 0;
+    		for(int i = 0; i < numero; i++) {
+    			int posizione = posizioni[i];
+    			int fratello = posizione ^ 1;
+    			if((posizione & 1) == 0 && i + 1 < numero && posizioni[i + 1] == fratello) i++;
+    			else if(fratello < this.layout.width(l)) hash.add(this.layout.digest(this.layout.node(l, fratello)));
+    			posizioni[nuovi++] = posizione >>> 1;
+    		}
+    		numero = nuovi;
+    	}
+
+        return new MerkleMultiProof(this.layout.digest(this.layout.root()), this.width, foglie,
+        		hash.toArray(new Digest[0]), this.algorithm, this.encoder);
+    }
+
+    /**
+     * Restituisce una prova di Merkle unica per i dati indicati, come
+     * {@link #getMerkleMultiProof(int...)}. Per i dati ripetuti viene provata
+     * la foglia più a sinistra.
+     *
+     * @param data
+     *                 i dati da provare.
+     * @return la prova di Merkle dei dati indicati.
+     * @throws IllegalArgumentException
+     *                                      se la collezione è null o vuota, o
+     *                                      se un dato è null o non è presente
+     *                                      nell'albero.
+     */
+    public MerkleMultiProof getMerkleMultiProof(Collection<? extends T> data) {
+    	if(data == null || data.isEmpty())
+    		throw new IllegalArgumentException("GMMP2: parametro data null o vuoto");
+
+    	int[] indici = new int[data.size()];
+    	int numero = 0;
+    	for(T dato : data) {
+    		if(dato == null)
+    			throw new IllegalArgumentException("GMMP2: dato null");
+    		int indice = getIndiceFoglie().indexOf(this.encoder.digest(dato, this.algorithm));
+    		if(indice < 0)
+    			throw new IllegalArgumentException("GMMP2: dato non presente");
+    		indici[numero++] = indice;
+    	}
+        return getMerkleMultiProof(indici);
     }
 
     /**
@@ -587,23 +792,375 @@ public class MerkleTree<T> {
         if(branch == null)
         	throw new IllegalArgumentException("GMP2: parametro branch null");
         
-        // Ottengo l'hash del nodo branch
-        String hash = branch.getHash();
-        // Lista per memorizzare i MerkleProofHash trovati
-        List<MerkleProof.MerkleProofHash> hashesProva = new ArrayList<MerkleProof.MerkleProofHash>();
+        // Per i nodi di questo albero la posizione è già nota
+        if(isOwnNode(branch)) {
+        	NodeView nodo = (NodeView) branch;
+        	return buildMerkleProof(nodo.livello, nodo.posizione);
+        }
         
-        // Creo il MerkleProof verificando se il nodo corrispondente si trova nell'albero
-        if(!buildMerkleProofRec(this.root, hash, hashesProva))
+        // Ottengo l'hash del nodo branch
+        Digest hash = branch.getDigest();
+        // Cerco il nodo con lo stesso hash nell'indice dei nodi
+        int nodo = hash == null ? -1 : getIndiceNodi().indexOf(hash);
+        if(nodo < 0)
         	throw new IllegalArgumentException("GMP2.2: output false");
         
-        // Creo un oggetto MerkleProof utilizzando l'hash della radice e il numero di elementi trovati
-        MerkleProof prova = new MerkleProof(this.root.getHash(), hashesProva.size());
-        for(MerkleProof.MerkleProofHash provaHash : hashesProva) {
-        	// Aggiungo ciascun hash al MerkleProof
-        	prova.addHash(provaHash.getHash(), provaHash.isLeft());
-        }
-        
-        // Restituisco il MerkleProof
-        return prova;
+        // Ricavo livello e posizione del nodo dalla sua posizione globale
+        int livello = this.layout.levelOf(nodo);
+        return buildMerkleProof(livello, nodo - this.layout.node(livello, 0));
+    }
+
+    /**
+     * Sostituisce il dato della foglia indicata e ricalcola soltanto gli hash
+     * dei nodi sul cammino dalla foglia alla radice, in tempo O(log n). La
+     * lista da cui l'albero è stato costruito non viene modificata. I nodi e
+     * le prove restituiti in precedenza restano quelli del vecchio albero:
+     * i nodi conservano il proprio hash, ma {@link MerkleNode#getLeft()} e
+     * {@link MerkleNode#getRight()} lanciano
+     * {@link java.util.ConcurrentModificationException}, e per ottenere i
+     * nuovi hash occorre ripartire da {@link #getRoot()}. L'aggiornamento
+     * non deve essere eseguito contemporaneamente ad altre operazioni
+     * sull'albero.
+     *
+     * @param index
+     *                    l'indice della foglia da aggiornare.
+     * @param newData
+     *                    il nuovo dato della foglia.
+     * @throws IllegalArgumentException
+     *                                      se l'indice non è valido o il dato
+     *                                      è null.
+     * @throws UnsupportedOperationException
+     *                                      se l'albero è stato caricato da
+     *                                      file.
+     */
+    public void updateLeaf(int index, T newData) {
+    	if(newData == null)
+    		throw new IllegalArgumentException("UL: parametro newData null");
+    	if(index < 0 || index >= this.width)
+    		throw new IllegalArgumentException("UL2: indice non valido");
+    	if(this.layout.isReadOnly())
+    		throw new UnsupportedOperationException("UL3: albero in sola lettura");
+
+    	if(aggiornaFoglia(index, this.encoder.digest(newData, this.algorithm)))
+    		ricalcolaAntenati(new int[] { index }, 1);
+    }
+
+    /**
+     * Sostituisce i dati di più foglie e ricalcola gli hash dei loro
+     * antenati, come {@link #updateLeaf(int, Object)}. Gli antenati comuni a
+     * più foglie vengono ricalcolati una sola volta, livello per livello,
+     * quindi aggiornare k foglie richiede O(k log n) operazioni nel caso
+     * peggiore e molte meno se le foglie sono vicine. Se un parametro non è
+     * valido l'albero non viene modificato.
+     *
+     * @param updates
+     *                    i nuovi dati, associati agli indici delle foglie da
+     *                    aggiornare.
+     * @throws IllegalArgumentException
+     *                                      se la mappa, un indice o un dato
+     *                                      sono null o un indice non è
+     *                                      valido.
+     * @throws UnsupportedOperationException
+     *                                      se l'albero è stato caricato da
+     *                                      file.
+     */
+    public void updateLeaves(Map<Integer, ? extends T> updates) {
+    	if(updates == null)
+    		throw new IllegalArgumentException("ULS: parametro updates null");
+    	if(this.layout.isReadOnly())
+    		throw new UnsupportedOperationException("ULS3: albero in sola lettura");
+
+    	// Controllo tutti i parametri e calcolo gli hash prima di modificare l'albero
+    	int[] indici = new int[updates.size()];
+    	Digest[] hash = new Digest[updates.size()];
+    	int numero = 0;
+    	for(Map.Entry<Integer, ? extends T> aggiornamento : updates.entrySet()) {
+    		Integer indice = aggiornamento.getKey();
+    		if(indice == null || aggiornamento.getValue() == null)
+    			throw new IllegalArgumentException("ULS: indice o dato null");
+    		if(indice < 0 || indice >= this.width)
+    			throw new IllegalArgumentException("ULS2: indice non valido");
+    		indici[numero] = indice;
+    		hash[numero++] = this.encoder.digest(aggiornamento.getValue(), this.algorithm);
+    	}
+
+    	// Aggiorno le foglie, tenendo solo quelle il cui hash è cambiato
+    	int modificate = 0;
+    	for(int i = 0; i < numero; i++)
+    		if(aggiornaFoglia(indici[i], hash[i])) indici[modificate++] = indici[i];
+
+    	Arrays.sort(indici, 0, modificate);
+    	ricalcolaAntenati(indici, modificate);
+    }
+
+    /**
+     * Scrive il nuovo hash nella foglia indicata aggiornando l'indice delle
+     * foglie e, se è già stato costruito, quello di tutti i nodi.
+     *
+     * @return true se l'hash della foglia è cambiato.
+     */
+    private boolean aggiornaFoglia(int indice, Digest hash) {
+    	if(this.layout.matches(indice, hash)) return false;
+
+    	LeafIndex indiceFoglie = getIndiceFoglie();
+    	// Le foglie occupano le prime posizioni globali dei nodi
+    	LeafIndex indiceNodi = this.indiceNodi;
+    	indiceFoglie.remove(indice);
+    	if(indiceNodi != null) indiceNodi.remove(indice);
+    	this.layout.set(indice, hash);
+    	indiceFoglie.add(indice);
+    	if(indiceNodi != null) indiceNodi.add(indice);
+    	// I nodi restituiti in precedenza non appartengono più all'albero
+    	this.modifiche++;
+    	return true;
+    }
+
+    /**
+     * Ricalcola gli hash degli antenati delle foglie indicate, livello per
+     * livello, aggiornando l'indice di tutti i nodi se è già stato costruito.
+     * Le posizioni devono essere ordinate in modo crescente; l'array viene
+     * riutilizzato per le posizioni dei livelli superiori.
+     *
+     * @param posizioni
+     *                      le posizioni delle foglie modificate.
+     * @param numero
+     *                      il numero di posizioni valide nell'array.
+     */
+    private void ricalcolaAntenati(int[] posizioni, int numero) {
+    	LeafIndex indiceNodi = this.indiceNodi;
+    	for(int l = 1; l < this.layout.levels(); l++) {
+    		// Due posizioni adiacenti possono avere lo stesso padre: lo tengo una volta sola
+    		int distinti = 0;
+    		for(int i = 0; i < numero; i++) {
+    			int padre = posizioni[i] >>> 1;
+    			if(distinti == 0 || posizioni[distinti - 1] != padre) posizioni[distinti++] = padre;
+    		}
+    		numero = distinti;
+
+    		for(int i = 0; i < numero; i++) {
+    			if(indiceNodi != null) indiceNodi.remove(this.layout.node(l, posizioni[i]));
+    			this.layout.combine(this.algorithm, l, posizioni[i]);
+    			if(indiceNodi != null) indiceNodi.add(this.layout.node(l, posizioni[i]));
+    		}
+    	}
+    }
+
+    /**
+     * Salva l'albero nel file indicato, che viene creato o sovrascritto. Il
+     * file contiene un'intestazione con l'identificativo del formato, la
+     * versione, la lunghezza degli hash, la larghezza dell'albero e il nome
+     * dell'algoritmo, seguita dagli hash di tutti i nodi livello per livello,
+     * dalle foglie alla radice. I dati delle foglie e l'encoder non vengono
+     * salvati.
+     *
+     * @param file
+     *                 il file in cui salvare l'albero.
+     * @throws IllegalArgumentException
+     *                                      se il file è null.
+     * @throws IOException
+     *                                      se si verifica un errore di
+     *                                      scrittura.
+     */
+    public void save(Path file) throws IOException {
+    	if(file == null)
+    		throw new IllegalArgumentException("SV: parametro file null");
+
+    	byte[] nome = this.algorithm.getName().getBytes(StandardCharsets.UTF_8);
+    	ByteBuffer intestazione = ByteBuffer.allocate(5 * Integer.BYTES + nome.length);
+    	intestazione.putInt(MAGIA).putInt(VERSIONE).putInt(this.layout.digestLength()).putInt(this.width)
+    			.putInt(nome.length).put(nome).flip();
+
+    	try(FileChannel canale = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+    			StandardOpenOption.TRUNCATE_EXISTING)) {
+    		ByteBuffer hash = this.layout.buffer();
+    		while(intestazione.hasRemaining() || hash.hasRemaining())
+    			canale.write(new ByteBuffer[] { intestazione, hash });
+    	}
+    }
+
+    /**
+     * Carica un albero salvato con {@link #save(Path)}, calcolando l'hash
+     * dei dati sul loro {@code hashCode()}. Si veda
+     * {@link #load(Path, LeafEncoder)}.
+     *
+     * @param <T>
+     *                 il tipo di dati dell'albero.
+     * @param file
+     *                 il file da caricare.
+     * @return l'albero caricato.
+     * @throws IOException
+     *                         se si verifica un errore di lettura o il file
+     *                         non è valido.
+     */
+    public static <T> MerkleTree<T> load(Path file) throws IOException {
+        return load(file, LeafEncoders.hashCodeEncoder());
+    }
+
+    /**
+     * Carica un albero salvato con {@link #save(Path)}. Il file viene mappato
+     * in memoria in sola lettura, quindi il caricamento non dipende dalla
+     * dimensione dell'albero: gli hash vengono letti dal file solo quando
+     * servono. L'albero caricato non può essere aggiornato e il file non deve
+     * essere modificato finché l'albero è in uso.
+     *
+     * @param <T>
+     *                    il tipo di dati dell'albero.
+     * @param file
+     *                    il file da caricare.
+     * @param encoder
+     *                    l'encoder con cui codificare i dati, che deve
+     *                    essere quello usato per costruire l'albero salvato.
+     * @return l'albero caricato.
+     * @throws IllegalArgumentException
+     *                                      se un parametro è null.
+     * @throws IOException
+     *                                      se si verifica un errore di
+     *                                      lettura o il file non è valido.
+     */
+    public static <T> MerkleTree<T> load(Path file, LeafEncoder<? super T> encoder) throws IOException {
+    	if(file == null || encoder == null)
+    		throw new IllegalArgumentException("LD: parametri file/encoder null");
+
+    	MappedByteBuffer mappa;
+    	try(FileChannel canale = FileChannel.open(file, StandardOpenOption.READ)) {
+    		if(canale.size() > Integer.MAX_VALUE)
+    			throw new IOException("LD: file troppo grande");
+    		// La mappatura resta valida anche dopo la chiusura del canale
+    		mappa = canale.map(FileChannel.MapMode.READ_ONLY, 0, canale.size());
+    	}
+
+    	// Leggo e controllo l'intestazione
+    	if(mappa.remaining() < 5 * Integer.BYTES || mappa.getInt() != MAGIA)
+    		throw new IOException("LD: formato non valido");
+    	if(mappa.getInt() != VERSIONE)
+    		throw new IOException("LD: versione non supportata");
+    	int lunghezza = mappa.getInt();
+    	int larghezza = mappa.getInt();
+    	int lunghezzaNome = mappa.getInt();
+    	if(larghezza <= 0 || lunghezzaNome < 0 || lunghezzaNome > mappa.remaining())
+    		throw new IOException("LD: intestazione non valida");
+    	byte[] nome = new byte[lunghezzaNome];
+    	mappa.get(nome);
+
+    	HashAlgorithm algoritmo;
+    	MerkleLayout layout;
+    	try {
+    		algoritmo = HashAlgorithms.forName(new String(nome, StandardCharsets.UTF_8));
+    		if(algoritmo.getDigestLength() != lunghezza)
+    			throw new IOException("LD: lunghezza degli hash non valida");
+    		layout = new MerkleLayout(mappa, larghezza, lunghezza);
+    	}
+    	catch(IllegalArgumentException e) {
+    		// Algoritmo sconosciuto o file troncato
+    		throw new IOException("LD: " + e.getMessage(), e);
+    	}
+    	if((long) layout.numeroNodi() * lunghezza != mappa.remaining())
+    		throw new IOException("LD: dimensione del file non valida");
+
+    	return new MerkleTree<>(layout, algoritmo, encoder);
+    }
+
+    /**
+     * Restituisce l'indice delle foglie, costruendolo se necessario.
+     *
+     * @return l'indice delle foglie.
+     */
+    private LeafIndex getIndiceFoglie() {
+    	LeafIndex indice = this.indiceFoglie;
+    	if(indice == null) {
+    		// Come per l'indice dei nodi, una costruzione concorrente
+    		// produce comunque lo stesso risultato
+    		indice = new LeafIndex(this.width, this.layout);
+    		this.indiceFoglie = indice;
+    	}
+    	return indice;
+    }
+
+    /**
+     * Restituisce l'indice di tutti i nodi dell'albero, costruendolo al primo
+     * utilizzo. I nodi sono numerati livello per livello a partire dalle
+     * foglie, quindi per ogni hash l'indice restituisce il nodo più a
+     * sinistra del livello più basso che lo contiene.
+     *
+     * @return l'indice dei nodi dell'albero.
+     */
+    private LeafIndex getIndiceNodi() {
+    	LeafIndex indice = this.indiceNodi;
+    	if(indice == null) {
+    		// Le posizioni globali dei nodi seguono già l'ordine per livelli
+    		indice = new LeafIndex(this.layout.numeroNodi(), this.layout);
+    		// Più thread possono costruire l'indice contemporaneamente,
+    		// ottenendo comunque lo stesso risultato
+    		this.indiceNodi = indice;
+    	}
+    	return indice;
+    }
+
+    /**
+     * Verifica se il nodo fornito è un nodo di questo albero, restituito dopo
+     * l'ultimo aggiornamento.
+     *
+     * @param nodo
+     *                 il nodo da verificare.
+     * @return true se il nodo appartiene a questo albero.
+     */
+    private boolean isOwnNode(MerkleNode nodo) {
+    	return nodo instanceof NodeView && ((NodeView) nodo).albero == this
+    			&& ((NodeView) nodo).modifiche == this.modifiche;
+    }
+
+    /**
+     * Nodo della rappresentazione piatta dell'albero. L'hash viene copiato dal
+     * buffer alla creazione, mentre i figli vengono creati a ogni richiesta,
+     * quindi il nodo occupa soltanto pochi byte oltre al proprio hash. Dopo un
+     * aggiornamento dell'albero il nodo conserva il vecchio hash, ma non
+     * permette più di raggiungere i figli, che potrebbero non corrispondere.
+     */
+    private static final class NodeView extends MerkleNode {
+
+    	private final MerkleTree<?> albero; // Albero a cui appartiene il nodo
+
+    	private final int livello; // Livello del nodo, 0 per le foglie
+
+    	private final int posizione; // Posizione del nodo nel suo livello
+
+    	private final int modifiche; // Aggiornamenti dell'albero alla creazione del nodo
+
+    	private NodeView(MerkleTree<?> albero, int livello, int posizione) {
+    		super(albero.layout.digest(albero.layout.node(livello, posizione)), null, null);
+    		this.albero = albero;
+    		this.livello = livello;
+    		this.posizione = posizione;
+    		this.modifiche = albero.modifiche;
+    	}
+
+    	@Override
+    	public MerkleNode getLeft() {
+    		if(this.livello == 0) return null;
+    		controllaModifiche();
+    		return new NodeView(this.albero, this.livello - 1, 2 * this.posizione);
+    	}
+
+    	@Override
+    	public MerkleNode getRight() {
+    		// Il figlio destro manca se il livello inferiore ha un numero dispari di nodi
+    		if(this.livello == 0 || 2 * this.posizione + 1 >= this.albero.layout.width(this.livello - 1)) return null;
+    		controllaModifiche();
+    		return new NodeView(this.albero, this.livello - 1, 2 * this.posizione + 1);
+    	}
+
+    	/**
+    	 * Lancia un'eccezione se l'albero è stato aggiornato dopo la creazione
+    	 * del nodo.
+    	 */
+    	private void controllaModifiche() {
+    		if(this.modifiche != this.albero.modifiche)
+    			throw new ConcurrentModificationException("NV: albero aggiornato");
+    	}
+
+    	@Override
+    	public boolean isLeaf() {
+    		return this.livello == 0;
+    	}
     }
 }
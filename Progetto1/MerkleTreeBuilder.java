@@ -0,0 +1,218 @@
+/**
+ * Costruttore incrementale della radice di un albero di Merkle. Le foglie
+ * vengono aggiunte una alla volta, o a blocchi, nello stesso ordine in cui
+ * comparirebbero in una {@link HashLinkedList}, e in qualsiasi momento è
+ * possibile ottenere la radice dell'albero costruito sulle foglie aggiunte
+ * fino a quel punto: la radice coincide con quella di un {@link MerkleTree}
+ * costruito sugli stessi dati, con lo stesso algoritmo e lo stesso encoder.
+ *
+ * <p>
+ * Il costruttore non conserva né i dati né le foglie, ma soltanto la
+ * frontiera dell'albero: per ogni livello, al più un sottoalbero completo
+ * ancora in attesa del fratello destro. La memoria occupata è quindi
+ * O(log n), e permette di calcolare la radice di insiemi di dati più grandi
+ * dello heap, letti ad esempio da un file o da una connessione di rete.
+ *
+ * @param <T>
+ *                il tipo di dati delle foglie.
+ */
+public class MerkleTreeBuilder<T> {
+
+    private final HashAlgorithm algoritmo; // Algoritmo di hash delle foglie e dei nodi
+
+    private final LeafEncoder<? super T> encoder; // Codifica dei dati prima dell'hash
+
+    private final Digest[] frontiera; // Sottoalbero completo in attesa, per livello
+
+    private long numeroFoglie; // Numero di foglie aggiunte
+
+    /**
+     * Crea un costruttore che utilizza l'algoritmo MD5 e calcola l'hash dei
+     * dati sul loro {@code hashCode()}, come una {@link HashLinkedList}
+     * creata con il costruttore senza parametri.
+     */
+    public MerkleTreeBuilder() {
+        this(HashAlgorithms.MD5);
+    }
+
+    /**
+     * Crea un costruttore che utilizza l'algoritmo di hash indicato e calcola
+     * l'hash dei dati sul loro {@code hashCode()}.
+     *
+     * @param algorithm
+     *                      l'algoritmo di hash.
+     * @throws NullPointerException
+     *                                  se l'algoritmo è null.
+     */
+    public MerkleTreeBuilder(HashAlgorithm algorithm) {
+        this(algorithm, LeafEncoders.hashCodeEncoder());
+    }
+
+    /**
+     * Crea un costruttore che utilizza l'algoritmo di hash e l'encoder
+     * indicati.
+     *
+     * @param algorithm
+     *                      l'algoritmo di hash.
+     * @param encoder
+     *                      l'encoder con cui codificare i dati prima del
+     *                      calcolo dell'hash.
+     * @throws NullPointerException
+     *                                  se l'algoritmo o l'encoder sono null.
+     */
+    public MerkleTreeBuilder(HashAlgorithm algorithm, LeafEncoder<? super T> encoder) {
+    	if(algorithm == null)
+    		throw new NullPointerException("MTB: parametro algorithm null");
+    	if(encoder == null)
+    		throw new NullPointerException("MTB: parametro encoder null");
+
+        this.algoritmo = algorithm;
+        this.encoder = encoder;
+        // Con un long non si possono superare 63 livelli oltre le foglie
+        this.frontiera = new Digest[Long.SIZE];
+    }
+
+    /**
+     * Restituisce l'algoritmo di hash utilizzato.
+     *
+     * @return l'algoritmo di hash.
+     */
+    public HashAlgorithm getAlgorithm() {
+        return this.algoritmo;
+    }
+
+    /**
+     * Restituisce il numero di foglie aggiunte.
+     *
+     * @return il numero di foglie.
+     */
+    public long getLeafCount() {
+        return this.numeroFoglie;
+    }
+
+    /**
+     * Aggiunge una foglia con il dato indicato.
+     *
+     * @param data
+     *                 il dato da aggiungere.
+     * @return questo costruttore.
+     * @throws NullPointerException
+     *                                  se il dato è null.
+     */
+    public MerkleTreeBuilder<T> add(T data) {
+    	if(data == null)
+    		throw new NullPointerException("A: parametro data null");
+
+        aggiungiFoglia(this.encoder.digest(data, this.algoritmo));
+        return this;
+    }
+
+    /**
+     * Aggiunge una foglia per ciascuno dei dati indicati, nell'ordine di
+     * iterazione.
+     *
+     * @param data
+     *                 i dati da aggiungere.
+     * @return questo costruttore.
+     * @throws NullPointerException
+     *                                  se i dati o uno dei dati sono null; in
+     *                                  questo caso le foglie che lo
+     *                                  precedono restano aggiunte.
+     */
+    public MerkleTreeBuilder<T> addAll(Iterable<? extends T> data) {
+    	if(data == null)
+    		throw new NullPointerException("AA: parametro data null");
+
+        for(T dato : data) add(dato);
+        return this;
+    }
+
+    /**
+     * Aggiunge una foglia con l'hash indicato, già calcolato con l'algoritmo
+     * del costruttore.
+     *
+     * @param leafHash
+     *                     l'hash della foglia.
+     * @return questo costruttore.
+     * @throws NullPointerException
+     *                                      se l'hash è null.
+     * @throws IllegalArgumentException
+     *                                      se la lunghezza dell'hash non è
+     *                                      quella dell'algoritmo.
+     */
+    public MerkleTreeBuilder<T> addDigest(Digest leafHash) {
+    	if(leafHash == null)
+    		throw new NullPointerException("AD: parametro leafHash null");
+    	if(leafHash.length() != this.algoritmo.getDigestLength())
+    		throw new IllegalArgumentException("AD: lunghezza dell'hash non valida");
+
+        aggiungiFoglia(leafHash);
+        return this;
+    }
+
+    /**
+     * Restituisce l'hash della radice dell'albero costruito sulle foglie
+     * aggiunte finora. Il costruttore non viene modificato e può ricevere
+     * altre foglie.
+     *
+     * @return l'hash della radice.
+     * @throws IllegalStateException
+     *                                   se non è stata aggiunta alcuna
+     *                                   foglia.
+     */
+    public Digest getRootDigest() {
+    	if(this.numeroFoglie == 0)
+    		throw new IllegalStateException("GRD: nessuna foglia aggiunta");
+
+        // Risalgo i livelli portando con me l'ultimo nodo del livello, che è
+        // incompleto se le foglie non sono una potenza di 2. A ogni livello
+        // l'ultimo nodo si combina con il sottoalbero in attesa, se c'è,
+        // altrimenti resta da solo e viene combinato con l'hash vuoto
+        Digest ultimo = null;
+        for(int livello = 0; ; livello++) {
+            Digest inAttesa = this.frontiera[livello];
+            boolean altriLivelli = (this.numeroFoglie >>> (livello + 1)) != 0;
+
+            if(inAttesa != null && ultimo != null)
+                ultimo = this.algoritmo.combine(inAttesa, ultimo);
+            else if(inAttesa != null || ultimo != null) {
+                Digest unico = inAttesa != null ? inAttesa : ultimo;
+                // Un nodo senza fratello e senza livelli superiori è la radice
+                if(!altriLivelli) return unico;
+                ultimo = this.algoritmo.combine(unico, Digest.EMPTY);
+            }
+        }
+    }
+
+    /**
+     * Restituisce la radice dell'albero costruito sulle foglie aggiunte
+     * finora, senza i nodi figli.
+     *
+     * @return il nodo radice.
+     * @throws IllegalStateException
+     *                                   se non è stata aggiunta alcuna
+     *                                   foglia.
+     */
+    public MerkleNode getRoot() {
+        return new MerkleNode(getRootDigest());
+    }
+
+    /**
+     * Aggiunge l'hash di una foglia alla frontiera, combinando i sottoalberi
+     * completi che formano una coppia come nell'incremento di un contatore
+     * binario.
+     */
+    private void aggiungiFoglia(Digest hash) {
+        if(this.numeroFoglie == Long.MAX_VALUE)
+            throw new IllegalStateException("AF: troppe foglie");
+
+        Digest nodo = hash;
+        int livello = 0;
+        while(this.frontiera[livello] != null) {
+            nodo = this.algoritmo.combine(this.frontiera[livello], nodo);
+            this.frontiera[livello++] = null;
+        }
+        this.frontiera[livello] = nodo;
+        this.numeroFoglie++;
+    }
+}
@@ -0,0 +1,79 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di test per la classe {@link MerkleTreeBuilder}. Questa classe
+ * verifica che la radice calcolata in modo incrementale coincida con quella
+ * di un {@link MerkleTree} costruito sugli stessi dati. Di seguito, l'elenco
+ * dei test inclusi con una breve descrizione:
+ *
+ * <ul>
+ * <li>{@link #testRootMatchesMerkleTree()}: Aggiunge le foglie una alla volta
+ * e, dopo ogni aggiunta, confronta la radice con quella dell'albero
+ * costruito sugli stessi dati.</li>
+ *
+ * <li>{@link #testAddAllAndDigests()}: Aggiunge le foglie a blocchi e tramite
+ * hash già calcolati, con un algoritmo e un encoder diversi da quelli
+ * predefiniti.</li>
+ *
+ * <li>{@link #testInvalidParameters()}: Verifica le eccezioni per parametri
+ * non validi e per la richiesta della radice senza foglie.</li>
+ * </ul>
+ */
+class MerkleTreeBuilderTest {
+
+    @Test
+    void testRootMatchesMerkleTree() {
+        MerkleTreeBuilder<String> builder = new MerkleTreeBuilder<>();
+        HashLinkedList<String> lista = new HashLinkedList<>();
+        for (int i = 0; i < 70; i++) {
+            builder.add("Dato " + i);
+            lista.addAtTail("Dato " + i);
+
+            assertEquals(i + 1, builder.getLeafCount());
+            assertEquals(new MerkleTree<>(lista).getRoot(), builder.getRoot(),
+                    "La radice non corrisponde con " + (i + 1) + " foglie.");
+        }
+    }
+
+    @Test
+    void testAddAllAndDigests() {
+        List<Long> dati = new ArrayList<>();
+        for (long i = 0; i < 1000; i++) dati.add(i * 31);
+        HashLinkedList<Long> lista = new HashLinkedList<>(HashAlgorithms.SHA_256, LeafEncoders.LONG);
+        lista.addAllAtTail(dati);
+        MerkleTree<Long> albero = new MerkleTree<>(lista);
+
+        // Aggiungo i dati a blocchi di dimensione variabile
+        MerkleTreeBuilder<Long> builder = new MerkleTreeBuilder<>(HashAlgorithms.SHA_256, LeafEncoders.LONG);
+        for (int inizio = 0; inizio < dati.size(); inizio += 37)
+            builder.addAll(dati.subList(inizio, Math.min(inizio + 37, dati.size())));
+        assertEquals(albero.getRoot().getDigest(), builder.getRootDigest());
+
+        // Gli hash già calcolati producono la stessa radice
+        MerkleTreeBuilder<Long> daHash = new MerkleTreeBuilder<>(HashAlgorithms.SHA_256);
+        lista.getAllDigests().forEach(daHash::addDigest);
+        assertEquals(albero.getRoot(), daHash.getRoot());
+        assertEquals(1000, daHash.getLeafCount());
+    }
+
+    @Test
+    void testInvalidParameters() {
+        MerkleTreeBuilder<String> builder = new MerkleTreeBuilder<>();
+        assertThrows(IllegalStateException.class, builder::getRoot, "Senza foglie non esiste una radice.");
+        assertThrows(NullPointerException.class, () -> builder.add(null));
+        assertThrows(NullPointerException.class, () -> builder.addAll(null));
+        assertThrows(NullPointerException.class, () -> builder.addAll(Arrays.asList("Alice paga Bob", null)));
+        assertEquals(1, builder.getLeafCount(), "I dati che precedono quello null restano aggiunti.");
+        assertThrows(NullPointerException.class, () -> builder.addDigest(null));
+        assertThrows(IllegalArgumentException.class,
+                () -> builder.addDigest(HashAlgorithms.SHA_256.hash(new byte[] { 1 })));
+        assertThrows(NullPointerException.class, () -> new MerkleTreeBuilder<String>(null));
+        assertThrows(NullPointerException.class, () -> new MerkleTreeBuilder<String>(HashAlgorithms.MD5, null));
+    }
+}
@@ -1,11 +1,20 @@
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
-import java.lang.reflect.Field;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -50,6 +59,9 @@ import static org.junit.jupiter.api.Assertions.*;
  * {@link #testValidateTree4()}: Verificano la validità di un MerkleTree rispetto a un altro,
  * sia in caso di alberi identici che diversi.</li>
  * 
+ * <li>{@link #testValidateTree5()}: Verifica che la validazione con verifica della coerenza
+ * rifiuti una soglia non positiva anche per alberi con radici diverse.</li>
+ * 
  * <li>{@link #testFindInvalidDataIndices1()}, {@link #testFindInvalidDataIndices2()},
  * {@link #testFindInvalidDataIndices3()}, {@link #testFindInvalidDataIndices4()}: Verificano che
  * gli indici dei dati invalidi vengano identificati correttamente rispetto a un altro albero.</li>
@@ -75,6 +87,53 @@ import static org.junit.jupiter.api.Assertions.*;
  * 
  * <li>{@link #testSingleLeafTree()}: Verifica il comportamento del MerkleTree per un singolo elemento,
  * controllando larghezza, altezza e validità dei dati.</li>
+ * 
+ * <li>{@link #testGetIndexOfDataDuplicates()}: Verifica che per dati ripetuti
+ * venga restituito l'indice della prima occorrenza.</li>
+ * 
+ * <li>{@link #testGetIndexOfDataLargeTree()}: Verifica gli indici e la
+ * validazione di tutti i dati di un albero di 1000 foglie.</li>
+ * 
+ * <li>{@link #testGetMerkleProofByIndex()}: Verifica le prove generate a
+ * partire dalla posizione delle foglie.</li>
+ * 
+ * <li>{@link #testGetMerkleProofAllBranches()}: Verifica le prove generate per
+ * tutti i nodi dell'albero.</li>
+ * 
+ * <li>{@link #testNodeStructure()}: Visita i nodi dell'albero e verifica che
+ * ogni nodo interno abbia l'hash ottenuto combinando quelli dei figli.</li>
+ * 
+ * <li>{@link #testParallelConstruction()}: Verifica che la costruzione su un
+ * pool fork-join, con soglie diverse e anche da una lista con hash pigri,
+ * produca lo stesso albero della costruzione sequenziale.</li>
+ * 
+ * <li>{@link #testUpdateLeaf()}: Aggiorna singole foglie e verifica che
+ * l'albero coincida con quello ricostruito da zero, anche per le ricerche
+ * di dati ripetuti, e che i nodi restituiti in precedenza conservino il
+ * vecchio hash.</li>
+ * 
+ * <li>{@link #testUpdateLeaves()}: Aggiorna più foglie insieme e verifica il
+ * risultato e la gestione dei parametri non validi.</li>
+ * 
+ * <li>{@link #testRandomUpdates()}: Esegue molti aggiornamenti casuali su un
+ * insieme ridotto di valori, confrontando ogni volta indici e radice con un
+ * albero ricostruito e verificando che l'indice di tutti i nodi resti
+ * aggiornato.</li>
+ * 
+ * <li>{@link #testSaveAndLoad()}: Salva un albero su file, lo carica e
+ * verifica che l'albero caricato si comporti come l'originale e non possa
+ * essere aggiornato.</li>
+ * 
+ * <li>{@link #testLoadInvalidFile()}: Verifica che il caricamento di file
+ * troncati o non validi generi un'eccezione.</li>
+ * 
+ * <li>{@link #testDiffLeaves()}: Confronta alberi con foglie modificate e
+ * larghezze diverse, in sequenza e in parallelo, verificando il risultato
+ * rispetto al confronto foglia per foglia.</li>
+ * 
+ * <li>{@link #testCheckConsistency()}: Altera un nodo interno e la radice di
+ * un albero salvato su file e verifica che la validazione basata sulla
+ * radice e quella con il ricalcolo degli hash lo rilevino correttamente.</li>
  * </ul>
  */
 class MerkleTreeTest {
@@ -354,6 +413,21 @@ class MerkleTreeTest {
                 "Gli alberi diversi non dovrebbero essere validi.");
     }
 
+    @Test
+    void testValidateTree5() {
+        HashLinkedList<String> list1 = new HashLinkedList<>();
+        list1.addAtTail("Alice paga Bob");
+        HashLinkedList<String> list2 = new HashLinkedList<>();
+        list2.addAtTail("Dato diverso");
+        MerkleTree<String> tree1 = new MerkleTree<>(list1);
+        MerkleTree<String> tree2 = new MerkleTree<>(list2);
+
+        assertFalse(tree1.validateTree(tree2, null, 1), "Gli alberi diversi non dovrebbero essere validi.");
+        assertThrows(IllegalArgumentException.class, () -> tree1.validateTree(tree2, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> tree1.validateTree(tree2, null, -1));
+        assertThrows(IllegalArgumentException.class, () -> tree1.validateTree(new MerkleTree<>(list1), null, 0));
+    }
+
     @Test
     void testFindInvalidDataIndices1() {
         HashLinkedList<String> modifiedList = new HashLinkedList<>();
@@ -488,41 +562,20 @@ class MerkleTreeTest {
 
     @Test
     void testVerifyProofData4(){
-        try {
-            MerkleProof proof =  merkleTree1.getMerkleProof("Alice paga Bob");
-            Class<?> clazz = proof.getClass();
-            Field privateField = clazz.getDeclaredField("proof");
-            privateField.setAccessible(true);
-
-            HashLinkedList<MerkleProof.MerkleProofHash> list = (HashLinkedList<MerkleProof.MerkleProofHash>) privateField.get(proof);
-
-            Iterator<MerkleProof.MerkleProofHash> itr = list.iterator();
-            assertTrue(itr.hasNext());
-            MerkleProof.MerkleProofHash hash = itr.next();
-            assertEquals(HashUtil.dataToHash("Bob paga Charlie"), hash.getHash(), "L'hash dovrebbe essere uguale a quello di 'Bob paga Charlie'");
-            assertFalse(hash.isLeft(), "L'hash dovrebbe essere concatenato a destra");
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        MerkleProof proof =  merkleTree1.getMerkleProof("Alice paga Bob");
+
+        MerkleProof.MerkleProofHash hash = proof.getStep(0);
+        assertEquals(HashUtil.dataToHash("Bob paga Charlie"), hash.getHash(), "L'hash dovrebbe essere uguale a quello di 'Bob paga Charlie'");
+        assertFalse(hash.isLeft(), "L'hash dovrebbe essere concatenato a destra");
     }
 
     @Test
     void testVerifyProofData5(){
-        try {
-            MerkleProof proof =  merkleTree2.getMerkleProof(1443L);
-            Class<?> clazz = proof.getClass();
-            Field privateField = clazz.getDeclaredField("proof");
-            privateField.setAccessible(true);
-
-            HashLinkedList<MerkleProof.MerkleProofHash> list = (HashLinkedList<MerkleProof.MerkleProofHash>) privateField.get(proof);
-
-            Iterator<MerkleProof.MerkleProofHash> itr = list.iterator();
-            assertTrue(itr.hasNext() && itr.next().getHash().equals(""));
-            assertTrue(itr.hasNext() && itr.next().getHash().equals(""));
-            assertTrue(itr.hasNext() && !itr.next().getHash().equals(""));
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        MerkleProof proof =  merkleTree2.getMerkleProof(1443L);
+
+        assertEquals("", proof.getStep(0).getHash());
+        assertEquals("", proof.getStep(1).getHash());
+        assertNotEquals("", proof.getStep(2).getHash());
     }
 
     @Test
@@ -574,4 +627,401 @@ class MerkleTreeTest {
         assertTrue(singleTree.validateData("Alice paga Bob"),
                 "Il dato dovrebbe essere valido.");
     }
+
+    @Test
+    void testGetIndexOfDataDuplicates() {
+        HashLinkedList<String> lista = new HashLinkedList<>();
+        lista.addAtTail("Alice paga Bob");
+        lista.addAtTail("Bob paga Charlie");
+        lista.addAtTail("Alice paga Bob");
+        lista.addAtTail("Bob paga Charlie");
+        lista.addAtTail("Charlie paga Diana");
+        MerkleTree<String> albero = new MerkleTree<>(lista);
+
+        assertEquals(0, albero.getIndexOfData("Alice paga Bob"), "Deve essere restituita la prima occorrenza.");
+        assertEquals(1, albero.getIndexOfData("Bob paga Charlie"), "Deve essere restituita la prima occorrenza.");
+        assertEquals(4, albero.getIndexOfData("Charlie paga Diana"));
+        assertEquals(1, albero.getIndexOfData(albero.getRoot(), "Bob paga Charlie"));
+        assertTrue(albero.validateData("Charlie paga Diana"));
+        assertFalse(albero.validateData("Diana paga Alice"));
+    }
+
+    @Test
+    void testGetIndexOfDataLargeTree() {
+        HashLinkedList<Long> lista = new HashLinkedList<>();
+        for (long i = 0; i < 1000; i++) lista.addAtTail(i * 7);
+        MerkleTree<Long> albero = new MerkleTree<>(lista);
+
+        for (long i = 0; i < 1000; i++) {
+            assertEquals((int) i, albero.getIndexOfData(i * 7), "Indice errato per il dato " + i * 7);
+            assertTrue(albero.validateData(i * 7));
+        }
+        assertEquals(-1, albero.getIndexOfData(3L));
+        assertFalse(albero.validateData(3L));
+
+        // Nel sottoalbero destro della radice l'indice è relativo al sottoalbero
+        assertEquals(1000 - 512 - 1, albero.getIndexOfData(albero.getRoot().getRight(), 999L * 7));
+    }
+
+    @Test
+    void testGetMerkleProofByIndex() {
+        for (int i = 0; i < 13; i++) {
+            MerkleProof proof = merkleTree2.getMerkleProof(i);
+            assertEquals(merkleTree2.getHeight(), proof.getLength(), "La prova deve avere un passo per livello.");
+            assertTrue(proof.proveValidityOfData(111L * (i + 1)), "La prova della foglia " + i + " non è valida.");
+            assertFalse(proof.proveValidityOfData(111L * ((i + 1) % 13 + 1)),
+                    "La prova non deve valere per un altro dato.");
+        }
+        assertTrue(merkleTree3.getMerkleProof(0).proveValidityOfData(true));
+        assertThrows(IllegalArgumentException.class, () -> merkleTree2.getMerkleProof(13));
+        assertThrows(IllegalArgumentException.class, () -> merkleTree2.getMerkleProof(-1));
+    }
+
+    @Test
+    void testGetMerkleProofAllBranches() {
+        // Visito tutti i nodi dell'albero e verifico la prova di ciascuno
+        ArrayDeque<MerkleNode> daVisitare = new ArrayDeque<>();
+        daVisitare.add(merkleTree2.getRoot());
+        int visitati = 0;
+        while (!daVisitare.isEmpty()) {
+            MerkleNode nodo = daVisitare.poll();
+            assertTrue(merkleTree2.getMerkleProof(nodo).proveValidityOfBranch(nodo),
+                    "La prova del branch " + nodo + " non è valida.");
+            if (nodo.getLeft() != null) daVisitare.add(nodo.getLeft());
+            if (nodo.getRight() != null) daVisitare.add(nodo.getRight());
+            visitati++;
+        }
+        assertEquals(13 + 7 + 4 + 2 + 1, visitati);
+        assertThrows(IllegalArgumentException.class,
+                () -> merkleTree2.getMerkleProof(merkleTree1.getRoot()),
+                "Un branch di un altro albero non ha una prova.");
+    }
+
+    @Test
+    void testNodeStructure() {
+        HashLinkedList<Long> lista = new HashLinkedList<>(HashAlgorithms.SHA_256);
+        for (long i = 0; i < 21; i++) lista.addAtTail(i);
+        MerkleTree<Long> albero = new MerkleTree<>(lista);
+
+        // Ogni nodo interno deve avere l'hash della combinazione dei figli
+        ArrayDeque<MerkleNode> daVisitare = new ArrayDeque<>();
+        daVisitare.add(albero.getRoot());
+        int foglie = 0;
+        while (!daVisitare.isEmpty()) {
+            MerkleNode nodo = daVisitare.poll();
+            if (nodo.isLeaf()) {
+                assertEquals(lista.getAllDigests().get(foglie++), nodo.getDigest(),
+                        "Le foglie devono seguire l'ordine della lista.");
+                continue;
+            }
+            MerkleNode destro = nodo.getRight();
+            assertEquals(HashAlgorithms.SHA_256.combine(nodo.getLeft().getDigest(),
+                    destro == null ? Digest.EMPTY : destro.getDigest()), nodo.getDigest(),
+                    "L'hash del nodo non corrisponde a quello dei figli.");
+            daVisitare.add(nodo.getLeft());
+            if (destro != null) daVisitare.add(destro);
+        }
+        assertEquals(21, foglie);
+        assertEquals(new MerkleNode(albero.getRoot().getDigest()), albero.getRoot(),
+                "La radice deve essere uguale a un nodo con lo stesso hash.");
+        assertEquals(albero.getRoot().getHash(), albero.getRoot().toString());
+    }
+
+    @Test
+    void testParallelConstruction() {
+        HashLinkedList<Long> lista = new HashLinkedList<>(HashAlgorithms.SHA_256, LeafEncoders.LONG);
+        HashLinkedList<Long> listaPigra = new HashLinkedList<>(HashAlgorithms.SHA_256, LeafEncoders.LONG,
+                HashLinkedList.HashingMode.LAZY);
+        for (long i = 0; i < 5003; i++) {
+            lista.addAtTail(i);
+            listaPigra.addAtTail(i);
+        }
+        MerkleTree<Long> sequenziale = new MerkleTree<>(lista);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int soglia : new int[] { 1, 7, 256, 10000 }) {
+                MerkleTree<Long> parallelo = new MerkleTree<>(lista, pool, soglia);
+                assertEquals(sequenziale.getRoot(), parallelo.getRoot(),
+                        "La radice non corrisponde con soglia " + soglia);
+                assertTrue(sequenziale.validateTree(parallelo), "Gli alberi devono coincidere.");
+                assertEquals(4321, parallelo.getIndexOfData(4321L));
+            }
+
+            // Gli hash della lista pigra vengono calcolati durante la costruzione
+            MerkleTree<Long> pigro = new MerkleTree<>(listaPigra, pool, 64);
+            assertEquals(0, listaPigra.getPendingHashCount());
+            assertEquals(sequenziale.getRoot(), pigro.getRoot(), "La radice non corrisponde per la lista pigra.");
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new MerkleTree<>(lista, ForkJoinPool.commonPool(), 0));
+        assertEquals(sequenziale.getRoot(), new MerkleTree<>(lista, null, 1).getRoot(),
+                "Senza pool l'albero deve essere costruito sequenzialmente.");
+    }
+
+    /**
+     * Costruisce un albero sui valori indicati, con l'encoder dei long.
+     */
+    private static MerkleTree<Long> alberoDi(long[] valori) {
+        HashLinkedList<Long> lista = new HashLinkedList<>(HashAlgorithms.SHA_256, LeafEncoders.LONG);
+        for (long valore : valori) lista.addAtTail(valore);
+        return new MerkleTree<>(lista);
+    }
+
+    @Test
+    void testUpdateLeaf() {
+        long[] valori = { 1, 2, 3, 2, 5, 6, 7, 8, 9, 10, 11, 12, 13 };
+        MerkleTree<Long> albero = alberoDi(valori);
+        MerkleNode radice = albero.getRoot();
+        MerkleNode foglia = radice.getLeft().getLeft().getLeft().getLeft();
+        int codice = radice.hashCode();
+
+        valori[1] = 42;
+        albero.updateLeaf(1, 42L);
+        assertEquals(alberoDi(valori).getRoot(), albero.getRoot(), "La radice non è stata ricalcolata.");
+        // I nodi già restituiti conservano il vecchio hash
+        assertEquals(alberoDi(new long[] { 1, 2, 3, 2, 5, 6, 7, 8, 9, 10, 11, 12, 13 }).getRoot(), radice,
+                "I nodi già restituiti non devono cambiare.");
+        assertEquals(codice, radice.hashCode());
+        assertNotEquals(albero.getRoot(), radice);
+        assertThrows(ConcurrentModificationException.class, radice::getLeft);
+        assertThrows(ConcurrentModificationException.class, radice::getRight);
+        assertFalse(albero.validateBranch(radice), "La vecchia radice non appartiene più all'albero.");
+        // Una foglia invariata viene ancora trovata tramite il suo hash
+        assertTrue(albero.getMerkleProof(foglia).proveValidityOfData(1L));
+        assertEquals(3, albero.getIndexOfData(2L), "Deve essere trovata l'occorrenza rimasta.");
+        assertEquals(1, albero.getIndexOfData(42L));
+        assertTrue(albero.validateTree(alberoDi(valori)));
+        assertTrue(albero.validateBranch(albero.getRoot().getLeft()));
+
+        // L'ultima foglia non ha un fratello
+        valori[12] = 1;
+        albero.updateLeaf(12, 1L);
+        assertEquals(alberoDi(valori).getRoot(), albero.getRoot());
+        assertEquals(0, albero.getIndexOfData(1L));
+        assertEquals(-1, albero.getIndexOfData(13L));
+        assertTrue(albero.getMerkleProof(12).proveValidityOfData(1L));
+
+        assertThrows(IllegalArgumentException.class, () -> albero.updateLeaf(13, 1L));
+        assertThrows(IllegalArgumentException.class, () -> albero.updateLeaf(-1, 1L));
+        assertThrows(IllegalArgumentException.class, () -> albero.updateLeaf(0, null));
+    }
+
+    @Test
+    void testUpdateLeaves() {
+        long[] valori = new long[37];
+        for (int i = 0; i < valori.length; i++) valori[i] = i;
+        MerkleTree<Long> albero = alberoDi(valori);
+
+        Map<Integer, Long> aggiornamenti = new HashMap<>();
+        for (int i : new int[] { 0, 1, 2, 3, 17, 36 }) {
+            valori[i] = 100 + i;
+            aggiornamenti.put(i, 100L + i);
+        }
+        aggiornamenti.put(20, 20L); // Dato invariato
+        albero.updateLeaves(aggiornamenti);
+        assertTrue(albero.validateTree(alberoDi(valori)), "L'albero non coincide con quello ricostruito.");
+        assertEquals(17, albero.getIndexOfData(117L));
+        assertEquals(-1, albero.getIndexOfData(17L));
+
+        // Con un parametro non valido l'albero non deve cambiare
+        MerkleNode radice = new MerkleNode(albero.getRoot().getDigest());
+        Map<Integer, Long> nonValidi = new HashMap<>();
+        nonValidi.put(5, 500L);
+        nonValidi.put(37, 700L);
+        assertThrows(IllegalArgumentException.class, () -> albero.updateLeaves(nonValidi));
+        nonValidi.put(37, null);
+        assertThrows(IllegalArgumentException.class, () -> albero.updateLeaves(nonValidi));
+        assertThrows(IllegalArgumentException.class, () -> albero.updateLeaves(null));
+        assertEquals(radice, albero.getRoot());
+        albero.updateLeaves(new HashMap<>());
+        assertEquals(radice, albero.getRoot());
+    }
+
+    @Test
+    void testRandomUpdates() {
+        // Con pochi valori distinti alcuni scompaiono e ricompaiono spesso
+        int valoriDistinti = 60;
+        Random random = new Random(42);
+        long[] valori = new long[101];
+        for (int i = 0; i < valori.length; i++) valori[i] = random.nextInt(valoriDistinti);
+        MerkleTree<Long> albero = alberoDi(valori);
+        // Costruisco l'indice di tutti i nodi, che gli aggiornamenti mantengono
+        assertTrue(albero.validateBranch(new MerkleNode(albero.getRoot().getDigest())));
+
+        for (int giro = 0; giro < 200; giro++) {
+            Digest radicePrecedente = albero.getRoot().getDigest();
+            if (giro % 2 == 0) {
+                int indice = random.nextInt(valori.length);
+                valori[indice] = random.nextInt(valoriDistinti);
+                albero.updateLeaf(indice, valori[indice]);
+            } else {
+                Map<Integer, Long> aggiornamenti = new HashMap<>();
+                for (int k = 0; k < 8; k++) {
+                    int indice = random.nextInt(valori.length);
+                    valori[indice] = random.nextInt(valoriDistinti);
+                    aggiornamenti.put(indice, valori[indice]);
+                }
+                albero.updateLeaves(aggiornamenti);
+            }
+
+            MerkleTree<Long> atteso = alberoDi(valori);
+            assertEquals(atteso.getRoot(), albero.getRoot(), "Radice errata al giro " + giro);
+            for (long valore = 0; valore < valoriDistinti; valore++)
+                assertEquals(atteso.getIndexOfData(valore), albero.getIndexOfData(valore),
+                        "Indice errato per " + valore + " al giro " + giro);
+
+            // Ogni nodo dell'albero ricostruito viene trovato tramite il suo hash
+            ArrayDeque<MerkleNode> nodi = new ArrayDeque<>();
+            nodi.add(atteso.getRoot());
+            while (!nodi.isEmpty()) {
+                MerkleNode nodo = nodi.poll();
+                MerkleNode esterno = new MerkleNode(nodo.getDigest());
+                assertTrue(albero.validateBranch(esterno), "Nodo non trovato al giro " + giro);
+                assertNotNull(albero.getMerkleProof(esterno));
+                if (nodo.getLeft() != null) nodi.add(nodo.getLeft());
+                if (nodo.getRight() != null) nodi.add(nodo.getRight());
+            }
+            if (!radicePrecedente.equals(albero.getRoot().getDigest()))
+                assertFalse(albero.validateBranch(new MerkleNode(radicePrecedente)),
+                        "La vecchia radice non deve essere trovata al giro " + giro);
+        }
+    }
+
+    @Test
+    void testSaveAndLoad(@TempDir Path cartella) throws IOException {
+        HashLinkedList<String> lista = new HashLinkedList<>(HashAlgorithms.SHA_256, LeafEncoders.STRING);
+        for (int i = 0; i < 27; i++) lista.addAtTail("Dato " + i);
+        MerkleTree<String> albero = new MerkleTree<>(lista);
+
+        Path file = cartella.resolve("albero.mkl");
+        albero.save(file);
+        assertEquals(20 + "SHA-256".length() + (27 + 14 + 7 + 4 + 2 + 1) * 32, Files.size(file),
+                "Il file deve contenere l'intestazione e gli hash di tutti i nodi.");
+
+        MerkleTree<String> caricato = MerkleTree.load(file, LeafEncoders.STRING);
+        assertEquals(albero.getRoot(), caricato.getRoot(), "La radice non corrisponde.");
+        assertEquals(27, caricato.getWidth());
+        assertEquals(albero.getHeight(), caricato.getHeight());
+        assertEquals(HashAlgorithms.SHA_256, caricato.getAlgorithm());
+        assertEquals(13, caricato.getIndexOfData("Dato 13"));
+        assertTrue(caricato.validateTree(albero));
+        assertTrue(albero.validateTree(caricato));
+        assertTrue(caricato.validateBranch(caricato.getRoot().getLeft().getRight()));
+        assertTrue(caricato.getMerkleProof("Dato 26").proveValidityOfData("Dato 26"));
+        assertTrue(caricato.getMerkleProof(5).proveValidityOfData("Dato 5"));
+
+        MerkleTree<String> modificato = new MerkleTree<>(lista);
+        modificato.updateLeaf(3, "Dato modificato");
+        assertEquals(Set.of(3), caricato.findInvalidDataIndices(modificato));
+
+        assertThrows(UnsupportedOperationException.class, () -> caricato.updateLeaf(0, "Nuovo"));
+        assertThrows(UnsupportedOperationException.class, () -> caricato.updateLeaves(Map.of(0, "Nuovo")));
+        assertThrows(IllegalArgumentException.class, () -> albero.save(null));
+        assertThrows(IllegalArgumentException.class, () -> MerkleTree.load(file, null));
+    }
+
+    @Test
+    void testLoadInvalidFile(@TempDir Path cartella) throws IOException {
+        HashLinkedList<String> lista = new HashLinkedList<>();
+        for (int i = 0; i < 5; i++) lista.addAtTail("Dato " + i);
+        Path file = cartella.resolve("albero.mkl");
+        new MerkleTree<>(lista).save(file);
+        byte[] contenuto = Files.readAllBytes(file);
+
+        // Ogni variante viene scritta in un file nuovo, poiché un file
+        // mappato in memoria potrebbe non essere sovrascrivibile
+        byte[] identificativo = contenuto.clone();
+        identificativo[0] = 0;
+        byte[] algoritmo = contenuto.clone();
+        algoritmo[20] = 'X';
+        byte[][] varianti = {
+            Arrays.copyOf(contenuto, contenuto.length - 1), // File troncato
+            Arrays.copyOf(contenuto, contenuto.length + 1), // Byte in eccesso
+            identificativo, // Identificativo del formato errato
+            algoritmo, // Algoritmo sconosciuto
+            { 0x4D, 0x4B } // Intestazione incompleta
+        };
+        for (int i = 0; i < varianti.length; i++) {
+            Path variante = cartella.resolve("variante" + i + ".mkl");
+            Files.write(variante, varianti[i]);
+            assertThrows(IOException.class, () -> MerkleTree.load(variante), "Variante " + i);
+        }
+    }
+
+    @Test
+    void testDiffLeaves() {
+        Random random = new Random(7);
+        long[] valori = new long[3000];
+        for (int i = 0; i < valori.length; i++) valori[i] = i;
+        MerkleTree<Long> albero = alberoDi(valori);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (int larghezza : new int[] { 3000, 2999, 3001, 1, 64, 4100 }) {
+                long[] altri = new long[larghezza];
+                for (int i = 0; i < larghezza; i++)
+                    altri[i] = random.nextInt(50) == 0 ? -i : i;
+                MerkleTree<Long> altro = alberoDi(altri);
+
+                // Confronto foglia per foglia
+                BitSet atteso = new BitSet();
+                for (int i = 0; i < Math.max(larghezza, valori.length); i++)
+                    if (i >= larghezza || i >= valori.length || altri[i] != valori[i]) atteso.set(i);
+                atteso.clear(0); // -0 coincide con 0
+
+                assertEquals(atteso, albero.diffLeaves(altro), "Differenze errate con larghezza " + larghezza);
+                assertEquals(atteso, altro.diffLeaves(albero), "Il confronto deve essere simmetrico.");
+                for (int soglia : new int[] { 1, 100, 100000 })
+                    assertEquals(atteso, albero.diffLeaves(altro, pool, soglia),
+                            "Differenze errate in parallelo con soglia " + soglia);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertTrue(albero.diffLeaves(alberoDi(valori)).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> albero.diffLeaves(null));
+        assertThrows(IllegalArgumentException.class, () -> albero.diffLeaves(albero, null, 0));
+    }
+
+    @Test
+    void testCheckConsistency(@TempDir Path cartella) throws IOException {
+        HashLinkedList<String> lista = new HashLinkedList<>();
+        for (int i = 0; i < 3001; i++) lista.addAtTail("Dato " + i);
+        MerkleTree<String> albero = new MerkleTree<>(lista);
+        assertTrue(albero.checkConsistency());
+
+        // Altero l'hash del secondo nodo del primo livello interno
+        Path file = cartella.resolve("albero.mkl");
+        albero.save(file);
+        byte[] contenuto = Files.readAllBytes(file);
+        int intestazione = 20 + "MD5".length();
+        contenuto[intestazione + (3001 + 1) * 16] ^= 1;
+        Files.write(file, contenuto);
+        MerkleTree<String> alterato = MerkleTree.load(file);
+
+        assertTrue(albero.validateTree(alterato), "La validazione semplice confronta solo le radici.");
+        assertFalse(alterato.checkConsistency(), "Il nodo alterato deve essere rilevato.");
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            assertTrue(albero.checkConsistency(pool, 64));
+            assertTrue(albero.validateTree(new MerkleTree<>(lista), pool, 64));
+            for (int soglia : new int[] { 1, 64, 100000 }) {
+                assertFalse(alterato.checkConsistency(pool, soglia), "Soglia " + soglia);
+                assertFalse(albero.validateTree(alterato, pool, soglia));
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        // Con la radice alterata la validazione termina al primo confronto
+        contenuto[contenuto.length - 1] ^= 1;
+        Path radiceAlterata = cartella.resolve("radice.mkl");
+        Files.write(radiceAlterata, contenuto);
+        assertFalse(albero.validateTree(MerkleTree.load(radiceAlterata)));
+        assertThrows(IllegalArgumentException.class, () -> albero.checkConsistency(null, 0));
+    }
 }
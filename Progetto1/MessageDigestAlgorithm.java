@@ -0,0 +1,101 @@
+import java.nio.ByteBuffer;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Implementazione di {@link HashAlgorithm} basata su un algoritmo di
+ * {@link MessageDigest} della piattaforma Java (ad esempio MD5 o SHA-256).
+ * Ogni thread utilizza una propria istanza di MessageDigest, creata una sola
+ * volta e riutilizzata per tutte le chiamate successive.
+ */
+public final class MessageDigestAlgorithm implements HashAlgorithm {
+
+    private final String name; // Nome dell'algoritmo
+
+    private final int digestLength; // Lunghezza degli hash in byte
+
+    private final ThreadLocal<MessageDigest> digest; // Istanza per thread
+
+    /**
+     * Costruisce un algoritmo di hash a partire dal nome di un algoritmo di
+     * MessageDigest.
+     *
+     * @param name
+     *                 il nome dell'algoritmo, ad esempio "SHA-256".
+     * @throws IllegalArgumentException
+     *                                      se l'algoritmo non è disponibile.
+     */
+    public MessageDigestAlgorithm(String name) {
+        if(name == null)
+            throw new IllegalArgumentException("MDA: parametro name null");
+
+        // Creo subito un'istanza per verificare che l'algoritmo sia disponibile
+        this.name = name;
+        this.digestLength = newMessageDigest(name).getDigestLength();
+        this.digest = ThreadLocal.withInitial(() -> newMessageDigest(name));
+    }
+
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    @Override
+    public int getDigestLength() {
+        return this.digestLength;
+    }
+
+    @Override
+    public void hash(byte[] in, int off, int len, byte[] out, int outOff) {
+        MessageDigest md = this.digest.get();
+        md.update(in, off, len);
+        try {
+            md.digest(out, outOff, this.digestLength);
+        } catch (DigestException e) {
+        	// L'unico caso possibile è un array di output troppo corto
+            md.reset();
+            throw new IllegalArgumentException("H: array di output troppo corto", e);
+        }
+    }
+
+    @Override
+    public void hash(ByteBuffer in, byte[] out, int outOff) {
+    	// MessageDigest legge direttamente anche i buffer fuori dallo heap
+        MessageDigest md = this.digest.get();
+        md.update(in.duplicate());
+        try {
+            md.digest(out, outOff, this.digestLength);
+        } catch (DigestException e) {
+            md.reset();
+            throw new IllegalArgumentException("H: array di output troppo corto", e);
+        }
+    }
+
+    @Override
+    public Digest hash(byte[] input) {
+        return new Digest(this.digest.get().digest(input));
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+
+    /**
+     * Restituisce una nuova istanza di MessageDigest per l'algoritmo indicato.
+     *
+     * @param name
+     *                 il nome dell'algoritmo.
+     * @return un oggetto MessageDigest per l'algoritmo.
+     * @throws IllegalArgumentException
+     *                                      se l'algoritmo non è disponibile.
+     */
+    private static MessageDigest newMessageDigest(String name) {
+        try {
+            return MessageDigest.getInstance(name);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalArgumentException(name + " algorithm not found", e);
+        }
+    }
+}
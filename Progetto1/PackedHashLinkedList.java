@@ -0,0 +1,436 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Variante di {@link HashLinkedList} basata su array anziché su nodi
+ * concatenati. Offre le stesse operazioni principali (inserimento in testa e
+ * in coda, rimozione per dato, estrazione degli hash e iteratore fail-fast),
+ * ma memorizza i dati in un buffer circolare e gli hash, in forma binaria,
+ * in un unico array di {@code long} parallelo a quello dei dati.
+ *
+ * <p>
+ * Ogni hash occupa {@code ceil(lunghezza / 8)} long consecutivi (due per
+ * MD5); non vengono quindi creati oggetti per i nodi né per gli hash, e la
+ * scansione della lista accede alla memoria in modo sequenziale. Gli
+ * inserimenti in testa e in coda richiedono tempo O(1) ammortizzato, mentre
+ * la rimozione di un elemento interno richiede lo spostamento degli elementi
+ * successivi, come avviene per un ArrayList.
+ *
+ * @param <T>
+ *                il tipo generico dei dati contenuti nella lista.
+ */
+public class PackedHashLinkedList<T> implements Iterable<T> {
+
+    private static final int CAPACITA_INIZIALE = 16;
+
+    private Object[] dati; // Buffer circolare dei dati
+
+    private long[] hash; // Hash impacchettati, parallelo ai dati
+
+    private int testa; // Posizione del primo elemento nel buffer
+
+    private int size; // Numero di elementi della lista
+
+    private int numeroModifiche; // Numero di modifiche effettuate sulla lista
+                                 // per l'implementazione dell'iteratore
+                                 // fail-fast
+
+    private final HashAlgorithm algoritmo; // Algoritmo usato per gli hash
+
+    private final LeafEncoder<? super T> encoder; // Codifica dei dati
+
+    private final int passo; // Numero di long occupati da ciascun hash
+
+    public PackedHashLinkedList() {
+        this(HashAlgorithms.MD5);
+    }
+
+    /**
+     * Costruisce una lista vuota che calcola gli hash dei dati con
+     * l'algoritmo indicato.
+     *
+     * @param algorithm
+     *                      l'algoritmo di hash da utilizzare.
+     * @throws NullPointerException
+     *                                  se l'algoritmo è null.
+     */
+    public PackedHashLinkedList(HashAlgorithm algorithm) {
+        this(algorithm, LeafEncoders.hashCodeEncoder());
+    }
+
+    /**
+     * Costruisce una lista vuota che calcola gli hash dei dati con
+     * l'algoritmo indicato, applicandolo alla codifica prodotta dall'encoder.
+     *
+     * @param algorithm
+     *                      l'algoritmo di hash da utilizzare.
+     * @param encoder
+     *                      l'encoder con cui codificare i dati.
+     * @throws NullPointerException
+     *                                  se l'algoritmo o l'encoder sono null.
+     */
+    public PackedHashLinkedList(HashAlgorithm algorithm, LeafEncoder<? super T> encoder) {
+    	if(algorithm == null)
+    		throw new NullPointerException("PHLL: parametro algorithm null");
+    	if(encoder == null)
+    		throw new NullPointerException("PHLL: parametro encoder null");
+
+        this.algoritmo = algorithm;
+        this.encoder = encoder;
+        this.passo = (algorithm.getDigestLength() + 7) / 8;
+        this.dati = new Object[CAPACITA_INIZIALE];
+        this.hash = new long[CAPACITA_INIZIALE * this.passo];
+        this.testa = 0;
+        this.size = 0;
+        this.numeroModifiche = 0;
+    }
+
+    /**
+     * Restituisce l'algoritmo di hash utilizzato dalla lista.
+     *
+     * @return l'algoritmo di hash della lista.
+     */
+    public HashAlgorithm getAlgorithm() {
+        return algoritmo;
+    }
+
+    /**
+     * Restituisce l'encoder con cui vengono codificati i dati della lista.
+     *
+     * @return l'encoder della lista.
+     */
+    public LeafEncoder<? super T> getEncoder() {
+        return encoder;
+    }
+
+    /**
+     * Restituisce il numero attuale di elementi nella lista.
+     *
+     * @return il numero di elementi nella lista.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Aggiunge un nuovo elemento in testa alla lista.
+     *
+     * @param data
+     *                 il dato da aggiungere.
+     */
+    public void addAtHead(T data) {
+    	if(data == null)
+    		throw new NullPointerException("AAH: parametro data null");
+
+    	// Calcolo l'hash prima di modificare la lista
+    	Digest digest = this.encoder.digest(data, this.algoritmo);
+    	garantisciCapacita();
+
+    	// Arretro la testa di una posizione nel buffer circolare
+    	this.testa = (this.testa - 1) & (this.dati.length - 1);
+    	scrivi(this.testa, data, digest);
+
+        this.size++;
+        this.numeroModifiche++;
+    }
+
+    /**
+     * Aggiunge un nuovo elemento in coda alla lista.
+     *
+     * @param data
+     *                 il dato da aggiungere.
+     */
+    public void addAtTail(T data) {
+    	if(data == null)
+    		throw new NullPointerException("AAT: parametro data null");
+
+    	Digest digest = this.encoder.digest(data, this.algoritmo);
+    	garantisciCapacita();
+
+    	scrivi(posizione(this.size), data, digest);
+
+        this.size++;
+        this.numeroModifiche++;
+    }
+
+    /**
+     * Rimuove il primo elemento nella lista che contiene il dato specificato.
+     * La ricerca confronta prima gli hash impacchettati e solo in caso di
+     * corrispondenza i dati.
+     *
+     * @param data
+     *                 il dato da rimuovere.
+     * @return true se l'elemento è stato trovato e rimosso, false altrimenti.
+     */
+    public boolean remove(T data) {
+		if(data == null)
+			throw new NullPointerException("R: parametro data null");
+
+		int indice = indexOf(data);
+		if(indice < 0) return false;
+
+		// Sposto di una posizione la parte più corta della lista
+		if(indice < this.size / 2) {
+			for(int i = indice; i > 0; i--) copia(posizione(i - 1), posizione(i));
+			cancella(this.testa);
+			this.testa = (this.testa + 1) & (this.dati.length - 1);
+		}
+		else {
+			for(int i = indice; i < this.size - 1; i++) copia(posizione(i + 1), posizione(i));
+			cancella(posizione(this.size - 1));
+		}
+
+		this.size--;
+		this.numeroModifiche++;
+		return true;
+    }
+
+    /**
+     * Verifica se la lista contiene il dato specificato.
+     *
+     * @param data
+     *                 il dato da cercare.
+     * @return true se la lista contiene il dato, false altrimenti.
+     */
+    public boolean contains(T data) {
+		if(data == null)
+			throw new NullPointerException("C: parametro data null");
+
+		return indexOf(data) >= 0;
+    }
+
+    /**
+     * Restituisce un'ArrayList contenente tutti gli hash nella lista in ordine.
+     *
+     * @return una lista con tutti gli hash della lista.
+     */
+    public ArrayList<String> getAllHashes() {
+    	return hashesInto(new ArrayList<String>(this.size));
+    }
+
+    /**
+     * Aggiunge alla collezione fornita tutti gli hash della lista in ordine,
+     * come stringhe esadecimali.
+     *
+     * @param <C>
+     *                        il tipo della collezione di destinazione.
+     * @param destination
+     *                        la collezione in cui aggiungere gli hash.
+     * @return la collezione fornita.
+     * @throws NullPointerException
+     *                                  se la collezione è null.
+     */
+    public <C extends Collection<? super String>> C hashesInto(C destination) {
+    	if(destination == null)
+    		throw new NullPointerException("HI: parametro destination null");
+
+    	if(destination instanceof ArrayList)
+    		((ArrayList<?>) destination).ensureCapacity(destination.size() + this.size);
+
+    	// Converto ogni hash in esadecimale riutilizzando lo stesso buffer
+    	byte[] buffer = new byte[this.algoritmo.getDigestLength()];
+    	for(int i = 0; i < this.size; i++) {
+    		leggiHash(posizione(i), buffer);
+    		destination.add(new Digest(buffer).toHex());
+    	}
+        return destination;
+    }
+
+    /**
+     * Restituisce un'ArrayList contenente tutti gli hash binari nella lista in
+     * ordine.
+     *
+     * @return una lista con tutti gli hash binari della lista.
+     */
+    public ArrayList<Digest> getAllDigests() {
+    	ArrayList<Digest> risultato = new ArrayList<>(this.size);
+    	for(int i = 0; i < this.size; i++) {
+    		byte[] buffer = new byte[this.algoritmo.getDigestLength()];
+    		leggiHash(posizione(i), buffer);
+    		risultato.add(new Digest(buffer));
+    	}
+        return risultato;
+    }
+
+    /**
+     * Costruisce una stringa contenente tutti gli elementi della lista,
+     * includendo dati e hash, nello stesso formato di
+     * {@link HashLinkedList#buildNodesString()}.
+     *
+     * @return una rappresentazione testuale di tutti gli elementi della lista.
+     */
+    public String buildNodesString() {
+    	StringBuilder sb = new StringBuilder(this.size * (2 * this.algoritmo.getDigestLength() + 32));
+    	byte[] buffer = new byte[this.algoritmo.getDigestLength()];
+    	Digest digest = new Digest(buffer);
+    	for(int i = 0; i < this.size; i++) {
+    		int pos = posizione(i);
+    		// Il digest condivide il buffer, che viene riscritto a ogni elemento
+    		leggiHash(pos, buffer);
+            sb.append("Dato: ").append(this.dati[pos]).append(", Hash: ");
+            digest.appendHex(sb);
+            sb.append("\n");
+    	}
+        return sb.toString();
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * Restituisce la posizione nel buffer dell'elemento con l'indice logico
+     * indicato.
+     *
+     * @param indice
+     *                   l'indice dell'elemento nella lista.
+     * @return la posizione dell'elemento nel buffer circolare.
+     */
+    private int posizione(int indice) {
+    	// La capacità è sempre una potenza di 2
+    	return (this.testa + indice) & (this.dati.length - 1);
+    }
+
+    /**
+     * Restituisce l'indice del primo elemento uguale al dato, oppure -1.
+     *
+     * @param data
+     *                 il dato da cercare.
+     * @return l'indice del dato nella lista, oppure -1 se assente.
+     */
+    private int indexOf(T data) {
+    	long[] cercato = new long[this.passo];
+    	impacchetta(this.encoder.digest(data, this.algoritmo), cercato, 0);
+
+    	for(int i = 0; i < this.size; i++) {
+    		int pos = posizione(i);
+    		if(stessoHash(pos, cercato) && this.dati[pos].equals(data)) return i;
+    	}
+    	return -1;
+    }
+
+    /**
+     * Verifica se l'hash memorizzato nella posizione indicata coincide con
+     * quello impacchettato fornito.
+     */
+    private boolean stessoHash(int pos, long[] cercato) {
+    	int base = pos * this.passo;
+    	for(int j = 0; j < this.passo; j++)
+    		if(this.hash[base + j] != cercato[j]) return false;
+    	return true;
+    }
+
+    /**
+     * Scrive dato e hash nella posizione indicata del buffer.
+     */
+    private void scrivi(int pos, T data, Digest digest) {
+    	this.dati[pos] = data;
+    	impacchetta(digest, this.hash, pos * this.passo);
+    }
+
+    /**
+     * Copia dato e hash da una posizione all'altra del buffer.
+     */
+    private void copia(int da, int a) {
+    	this.dati[a] = this.dati[da];
+    	System.arraycopy(this.hash, da * this.passo, this.hash, a * this.passo, this.passo);
+    }
+
+    /**
+     * Libera la posizione indicata del buffer, così che il dato possa essere
+     * raccolto dal garbage collector.
+     */
+    private void cancella(int pos) {
+    	this.dati[pos] = null;
+    	Arrays.fill(this.hash, pos * this.passo, (pos + 1) * this.passo, 0L);
+    }
+
+    /**
+     * Scrive i byte del digest come long big-endian a partire dalla posizione
+     * indicata, completando con zeri l'ultimo long se necessario.
+     */
+    private void impacchetta(Digest digest, long[] dest, int destOff) {
+    	byte[] bytes = digest.bytes();
+    	for(int j = 0; j < this.passo; j++) {
+    		long valore = 0;
+    		for(int k = 0; k < 8; k++) {
+    			int b = 8 * j + k;
+    			valore = (valore << 8) | (b < bytes.length ? bytes[b] & 0xffL : 0L);
+    		}
+    		dest[destOff + j] = valore;
+    	}
+    }
+
+    /**
+     * Legge l'hash memorizzato nella posizione indicata scrivendone i byte
+     * nell'array fornito.
+     */
+    private void leggiHash(int pos, byte[] dest) {
+    	int base = pos * this.passo;
+    	for(int b = 0; b < dest.length; b++)
+    		dest[b] = (byte) (this.hash[base + b / 8] >>> (56 - 8 * (b % 8)));
+    }
+
+    /**
+     * Raddoppia la capacità del buffer se è pieno, riportando la testa nella
+     * posizione 0.
+     */
+    private void garantisciCapacita() {
+    	if(this.size < this.dati.length) return;
+
+    	int capacita = this.dati.length;
+    	if(capacita > (Integer.MAX_VALUE >> 1) / this.passo)
+    		throw new IllegalStateException("GC: capacità massima raggiunta");
+
+    	Object[] nuoviDati = new Object[2 * capacita];
+    	long[] nuoviHash = new long[2 * capacita * this.passo];
+    	// Copio le due parti del buffer circolare in ordine
+    	int primaParte = capacita - this.testa;
+    	System.arraycopy(this.dati, this.testa, nuoviDati, 0, primaParte);
+    	System.arraycopy(this.dati, 0, nuoviDati, primaParte, this.testa);
+    	System.arraycopy(this.hash, this.testa * this.passo, nuoviHash, 0, primaParte * this.passo);
+    	System.arraycopy(this.hash, 0, nuoviHash, primaParte * this.passo, this.testa * this.passo);
+
+    	this.dati = nuoviDati;
+    	this.hash = nuoviHash;
+    	this.testa = 0;
+    }
+
+    /**
+     * Classe che realizza un iteratore fail-fast per PackedHashLinkedList.
+     */
+    private class Itr implements Iterator<T> {
+
+    	// Indice del prossimo elemento da restituire
+    	private int indice;
+    	// Numero di modifiche attese
+        private final int numModificheAttese;
+
+        private Itr() {
+        	this.indice = 0;
+            this.numModificheAttese = numeroModifiche;
+        }
+
+        @Override
+        public boolean hasNext() {
+        	if(this.numModificheAttese != numeroModifiche)
+        		throw new ConcurrentModificationException("NMA diverso NM");
+
+            return this.indice < size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T next() {
+        	if(!hasNext())
+        		throw new NoSuchElementException("No elemento successivo");
+
+            return (T) dati[posizione(this.indice++)];
+        }
+    }
+}
@@ -0,0 +1,166 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di test per la classe {@link PackedHashLinkedList}. Questa classe
+ * verifica che la variante basata su array si comporti come
+ * {@link HashLinkedList}. Di seguito, l'elenco dei test inclusi con una breve
+ * descrizione:
+ *
+ * <ul>
+ * <li>{@link #testAddAtHeadAndTail()}: Aggiunge elementi in testa e in coda e
+ * verifica l'ordine risultante.</li>
+ *
+ * <li>{@link #testGrowth()}: Aggiunge molti elementi alternando testa e coda,
+ * così da ridimensionare più volte il buffer circolare, e confronta il
+ * risultato con una {@link HashLinkedList}.</li>
+ *
+ * <li>{@link #testGetAllHashes()}: Verifica che gli hash e le rappresentazioni
+ * testuali coincidano con quelli di una {@link HashLinkedList}.</li>
+ *
+ * <li>{@link #testRemove()}: Rimuove elementi in testa, in coda e al centro e
+ * verifica che venga rimossa la prima occorrenza.</li>
+ *
+ * <li>{@link #testRemoveSameHashCode()}: Rimuove un dato il cui hash coincide
+ * con quello di un dato diverso.</li>
+ *
+ * <li>{@link #testOtherAlgorithms()}: Verifica gli hash impacchettati con
+ * algoritmi di lunghezza diversa da MD5.</li>
+ *
+ * <li>{@link #testFailFastIterator()}: Verifica che l'iteratore sia
+ * {@code fail-fast}.</li>
+ * </ul>
+ */
+class PackedHashLinkedListTest {
+
+    private PackedHashLinkedList<String> list;
+
+    @BeforeEach
+    void setUp() {
+        list = new PackedHashLinkedList<>();
+    }
+
+    private List<String> toList() {
+        List<String> risultato = new ArrayList<>();
+        for (String s : list) {
+            risultato.add(s);
+        }
+        return risultato;
+    }
+
+    @Test
+    void testAddAtHeadAndTail() {
+        assertEquals(0, list.getSize(), "La lista non dovrebbe contenere elementi inizialmente.");
+        list.addAtTail("Bob paga Charlie");
+        list.addAtHead("Alice paga Bob");
+        list.addAtTail("Charlie paga Diana");
+
+        assertEquals(3, list.getSize());
+        assertEquals(Arrays.asList("Alice paga Bob", "Bob paga Charlie", "Charlie paga Diana"), toList(),
+                "Gli elementi non sono nell'ordine atteso.");
+        assertThrows(NullPointerException.class, () -> list.addAtHead(null));
+        assertThrows(NullPointerException.class, () -> list.addAtTail(null));
+    }
+
+    @Test
+    void testGrowth() {
+        HashLinkedList<String> attesa = new HashLinkedList<>();
+        for (int i = 0; i < 1000; i++) {
+            if (i % 3 == 0) {
+                list.addAtHead("Dato " + i);
+                attesa.addAtHead("Dato " + i);
+            } else {
+                list.addAtTail("Dato " + i);
+                attesa.addAtTail("Dato " + i);
+            }
+        }
+
+        assertEquals(attesa.getSize(), list.getSize());
+        List<String> datiAttesi = new ArrayList<>();
+        attesa.forEach(datiAttesi::add);
+        assertEquals(datiAttesi, toList(), "L'ordine degli elementi non corrisponde.");
+        assertEquals(attesa.getAllDigests(), list.getAllDigests(), "Gli hash non corrispondono.");
+    }
+
+    @Test
+    void testGetAllHashes() {
+        HashLinkedList<String> attesa = new HashLinkedList<>();
+        for (String dato : new String[] { "Alice paga Bob", "Bob paga Charlie", "Alice paga Bob" }) {
+            list.addAtTail(dato);
+            attesa.addAtTail(dato);
+        }
+
+        assertEquals(attesa.getAllHashes(), list.getAllHashes(), "Gli hash non corrispondono.");
+        assertEquals(attesa.buildNodesString(), list.buildNodesString(),
+                "La rappresentazione della lista non è corretta.");
+        assertEquals(HashUtil.dataToHash("Bob paga Charlie"), list.getAllHashes().get(1));
+    }
+
+    @Test
+    void testRemove() {
+        list.addAtTail("Alice paga Bob");
+        list.addAtTail("Bob paga Charlie");
+        list.addAtTail("Charlie paga Diana");
+        list.addAtTail("Bob paga Charlie");
+        list.addAtTail("Diana paga Alice");
+
+        assertTrue(list.remove("Bob paga Charlie"));
+        assertEquals(Arrays.asList("Alice paga Bob", "Charlie paga Diana", "Bob paga Charlie", "Diana paga Alice"),
+                toList(), "Deve essere rimossa la prima occorrenza del dato.");
+        assertTrue(list.remove("Diana paga Alice"));
+        assertTrue(list.remove("Alice paga Bob"));
+        assertEquals(Arrays.asList("Charlie paga Diana", "Bob paga Charlie"), toList());
+        assertFalse(list.remove("Alice paga Bob"), "Un dato assente non può essere rimosso.");
+        assertTrue(list.contains("Bob paga Charlie"));
+        assertFalse(list.contains("Alice paga Bob"));
+
+        list.addAtHead("Alice paga Bob");
+        assertEquals(Arrays.asList(HashUtil.dataToHash("Alice paga Bob"), HashUtil.dataToHash("Charlie paga Diana"),
+                HashUtil.dataToHash("Bob paga Charlie")), list.getAllHashes(),
+                "Gli hash non sono corretti dopo le rimozioni.");
+    }
+
+    @Test
+    void testRemoveSameHashCode() {
+        // "Aa" e "BB" hanno lo stesso codice hash e quindi lo stesso hash
+        list.addAtTail("Aa");
+        list.addAtTail("BB");
+
+        assertTrue(list.remove("BB"));
+        assertEquals(Collections.singletonList("Aa"), toList());
+    }
+
+    @Test
+    void testOtherAlgorithms() {
+        for (HashAlgorithm algoritmo : HashAlgorithms.values()) {
+            PackedHashLinkedList<String> packed = new PackedHashLinkedList<>(algoritmo, LeafEncoders.STRING);
+            HashLinkedList<String> attesa = new HashLinkedList<>(algoritmo, LeafEncoders.STRING);
+            for (int i = 0; i < 40; i++) {
+                packed.addAtTail("Dato " + i);
+                attesa.addAtTail("Dato " + i);
+            }
+            assertEquals(attesa.getAllDigests(), packed.getAllDigests(),
+                    "Gli hash non corrispondono per " + algoritmo.getName());
+        }
+    }
+
+    @Test
+    void testFailFastIterator() {
+        list.addAtTail("Alice paga Bob");
+        list.addAtTail("Bob paga Charlie");
+
+        Iterator<String> iterator = list.iterator();
+        iterator.next();
+        list.remove("Bob paga Charlie");
+        assertThrows(ConcurrentModificationException.class, iterator::next,
+                "L'iteratore doveva lanciare un'eccezione dopo la modifica.");
+
+        Iterator<String> secondo = list.iterator();
+        secondo.next();
+        assertThrows(NoSuchElementException.class, secondo::next);
+    }
+}
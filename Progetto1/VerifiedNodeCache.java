@@ -0,0 +1,220 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Cache limitata dei nodi intermedi già verificati, per radice. Un nodo
+ * verificato è l'hash di un nodo del cammino di una prova di Merkle che ha
+ * portato con successo alla radice, insieme al suo livello e alla sua
+ * posizione nel livello: una verifica successiva sulla stessa radice che
+ * calcola lo stesso hash nello stesso nodo può fermarsi lì, perché il resto
+ * del cammino fino alla radice è già noto.
+ *
+ * <p>
+ * La cache è organizzata in insiemi di {@value #VIE} posizioni: ogni nodo
+ * può occupare soltanto le posizioni dell'insieme indicato dal suo hash e,
+ * quando l'insieme è pieno, la posizione da sostituire viene scelta con
+ * l'algoritmo CLOCK, che risparmia i nodi utilizzati dall'ultimo passaggio.
+ * La ricerca non alloca memoria. Ogni insieme è protetto da uno di
+ * {@value #BLOCCHI} lock, scelto in base alla sua posizione, quindi la stessa
+ * cache può essere condivisa da più thread, che si contendono un lock
+ * soltanto quando accedono a insiemi con lo stesso lock.
+ */
+public class VerifiedNodeCache {
+
+    private static final int VIE = 4; // Posizioni in cui può trovarsi ciascun nodo
+
+    private static final int BLOCCHI = 64; // Numero massimo di lock degli insiemi
+
+    private final Digest[] radici; // Radice di ciascuna posizione, null se libera
+
+    private final int[] livelli; // Livello del nodo di ciascuna posizione
+
+    private final long[] nodi; // Posizione nel livello del nodo di ciascuna posizione
+
+    private final byte[][] hash; // Hash del nodo di ciascuna posizione
+
+    private final boolean[] usati; // Bit di riferimento dell'algoritmo CLOCK
+
+    private final int[] lancette; // Prossima posizione da esaminare in ciascun insieme
+
+    private final Object[] blocchi; // Lock degli insiemi, l'insieme i usa blocchi[i % blocchi.length]
+
+    private final AtomicInteger dimensione = new AtomicInteger(); // Numero di posizioni occupate
+
+    /**
+     * Crea una cache che contiene al più il numero di nodi indicato. Poiché
+     * la cache è divisa in insiemi di {@value #VIE} posizioni, la capacità
+     * effettiva, restituita da {@link #getCapacity()}, è il multiplo di
+     * {@value #VIE} non superiore a quella indicata.
+     *
+     * @param capacity
+     *                     il numero massimo di nodi.
+     * @throws IllegalArgumentException
+     *                                      se la capacità è minore di
+     *                                      {@value #VIE} o è troppo grande.
+     */
+    public VerifiedNodeCache(int capacity) {
+    	if(capacity < VIE || capacity > 1 << 30)
+    		throw new IllegalArgumentException("VNC: capacità non valida");
+
+        int insiemi = capacity / VIE;
+        this.radici = new Digest[insiemi * VIE];
+        this.livelli = new int[insiemi * VIE];
+        this.nodi = new long[insiemi * VIE];
+        this.hash = new byte[insiemi * VIE][];
+        this.usati = new boolean[insiemi * VIE];
+        this.lancette = new int[insiemi];
+        this.blocchi = new Object[Math.min(insiemi, BLOCCHI)];
+        for(int i = 0; i < this.blocchi.length; i++) this.blocchi[i] = new Object();
+    }
+
+    /**
+     * Restituisce il numero massimo di nodi contenuti nella cache.
+     *
+     * @return la capacità della cache.
+     */
+    public int getCapacity() {
+        return this.radici.length;
+    }
+
+    /**
+     * Restituisce il numero di nodi contenuti nella cache.
+     *
+     * @return il numero di nodi.
+     */
+    public int size() {
+        return this.dimensione.get();
+    }
+
+    /**
+     * Rimuove tutti i nodi dalla cache. I nodi aggiunti contemporaneamente
+     * da altri thread possono restare nella cache.
+     */
+    public void clear() {
+        for(int insieme = 0; insieme < this.lancette.length; insieme++) {
+            synchronized(blocco(insieme)) {
+                for(int posizione = insieme * VIE; posizione < (insieme + 1) * VIE; posizione++) {
+                    if(this.radici[posizione] != null) this.dimensione.decrementAndGet();
+                    this.radici[posizione] = null;
+                    this.usati[posizione] = false;
+                }
+                this.lancette[insieme] = 0;
+            }
+        }
+    }
+
+    /**
+     * Verifica se il nodo indicato è già stato verificato per la radice
+     * indicata e, in tal caso, lo segna come utilizzato.
+     *
+     * @param radice
+     *                      l'hash della radice.
+     * @param livello
+     *                      il livello del nodo, 0 per le foglie.
+     * @param indice
+     *                      la posizione del nodo nel livello.
+     * @param nodo
+     *                      l'array contenente l'hash del nodo.
+     * @param inizio
+     *                      la posizione dell'hash nell'array.
+     * @param lunghezza
+     *                      la lunghezza dell'hash.
+     * @return true se il nodo è nella cache; false altrimenti.
+     */
+    boolean contains(Digest radice, int livello, long indice, byte[] nodo, int inizio, int lunghezza) {
+        int insieme = insieme(radice, livello, indice, nodo, inizio, lunghezza);
+        synchronized(blocco(insieme)) {
+            int posizione = cerca(insieme, radice, livello, indice, nodo, inizio, lunghezza);
+            if(posizione < 0) return false;
+            this.usati[posizione] = true;
+            return true;
+        }
+    }
+
+    /**
+     * Aggiunge alla cache un nodo verificato per la radice indicata,
+     * sostituendo se necessario un nodo dello stesso insieme.
+     *
+     * @param radice
+     *                      l'hash della radice.
+     * @param livello
+     *                      il livello del nodo, 0 per le foglie.
+     * @param indice
+     *                      la posizione del nodo nel livello.
+     * @param nodo
+     *                      l'array contenente l'hash del nodo.
+     * @param inizio
+     *                      la posizione dell'hash nell'array.
+     * @param lunghezza
+     *                      la lunghezza dell'hash.
+     */
+    void add(Digest radice, int livello, long indice, byte[] nodo, int inizio, int lunghezza) {
+        int insieme = insieme(radice, livello, indice, nodo, inizio, lunghezza);
+        synchronized(blocco(insieme)) {
+            aggiungi(insieme, radice, livello, indice, nodo, inizio, lunghezza);
+        }
+    }
+
+    /**
+     * Aggiunge il nodo all'insieme indicato, di cui il chiamante possiede il
+     * lock.
+     */
+    private void aggiungi(int insieme, Digest radice, int livello, long indice, byte[] nodo, int inizio,
+            int lunghezza) {
+        if(cerca(insieme, radice, livello, indice, nodo, inizio, lunghezza) >= 0) return;
+
+        // Scelgo la posizione con l'algoritmo CLOCK: una posizione libera, o
+        // la prima non utilizzata dall'ultimo passaggio della lancetta
+        int posizione;
+        while(true) {
+            posizione = insieme * VIE + this.lancette[insieme];
+            this.lancette[insieme] = (this.lancette[insieme] + 1) % VIE;
+            if(this.radici[posizione] == null || !this.usati[posizione]) break;
+            this.usati[posizione] = false;
+        }
+
+        if(this.radici[posizione] == null) this.dimensione.incrementAndGet();
+        // Riutilizzo l'array del nodo sostituito se ha la stessa lunghezza
+        if(this.hash[posizione] == null || this.hash[posizione].length != lunghezza)
+            this.hash[posizione] = new byte[lunghezza];
+        System.arraycopy(nodo, inizio, this.hash[posizione], 0, lunghezza);
+        this.radici[posizione] = radice;
+        this.livelli[posizione] = livello;
+        this.nodi[posizione] = indice;
+        this.usati[posizione] = false;
+    }
+
+    /**
+     * Restituisce la posizione del nodo indicato nel suo insieme, -1 se non è
+     * nella cache.
+     */
+    private int cerca(int insieme, Digest radice, int livello, long indice, byte[] nodo, int inizio, int lunghezza) {
+        int primo = insieme * VIE;
+        for(int posizione = primo; posizione < primo + VIE; posizione++) {
+            if(this.radici[posizione] != null && this.livelli[posizione] == livello && this.nodi[posizione] == indice
+                    && Arrays.equals(this.hash[posizione], 0, this.hash[posizione].length, nodo, inizio, inizio + lunghezza)
+                    && this.radici[posizione].equals(radice))
+                return posizione;
+        }
+        return -1;
+    }
+
+    /**
+     * Restituisce l'insieme in cui può trovarsi il nodo indicato.
+     */
+    private int insieme(Digest radice, int livello, long indice, byte[] nodo, int inizio, int lunghezza) {
+        // Come in Digest, i primi byte degli hash sono già distribuiti
+        // uniformemente
+        int codice = (radice.hashCode() * 31 + livello) * 31 + Long.hashCode(indice);
+        for(int i = inizio; i < inizio + Math.min(lunghezza, 4); i++) codice = codice * 31 + nodo[i];
+        codice ^= codice >>> 16;
+        return (codice & Integer.MAX_VALUE) % this.lancette.length;
+    }
+
+    /**
+     * Restituisce il lock che protegge l'insieme indicato.
+     */
+    private Object blocco(int insieme) {
+        return this.blocchi[insieme % this.blocchi.length];
+    }
+}
@@ -0,0 +1,133 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe di test per la classe {@link VerifiedNodeCache}. Questa classe
+ * verifica che la verifica delle prove di Merkle tramite la cache dei nodi
+ * verificati produca gli stessi esiti della verifica completa. Di seguito,
+ * l'elenco dei test inclusi con una breve descrizione:
+ *
+ * <ul>
+ * <li>{@link #testCachedVerification()}: Verifica le prove di tutte le foglie
+ * con e senza cache, anche ripetutamente, e che una prova si fermi a un nodo
+ * già verificato.</li>
+ *
+ * <li>{@link #testEviction()}: Verifica che la capacità non superi quella
+ * indicata e che una cache piccola non la superi, producendo comunque esiti
+ * corretti.</li>
+ *
+ * <li>{@link #testVerifierWithCache()}: Verifica che
+ * {@link MerkleProofVerifier} produca gli stessi esiti con la cache, anche in
+ * parallelo.</li>
+ *
+ * <li>{@link #testInvalidParameters()}: Verifica le eccezioni per parametri
+ * non validi.</li>
+ * </ul>
+ */
+class VerifiedNodeCacheTest {
+
+    /**
+     * Costruisce un albero con i dati "Dato 0", "Dato 1", ...
+     */
+    private static MerkleTree<String> alberoDi(int larghezza) {
+        HashLinkedList<String> lista = new HashLinkedList<>(HashAlgorithms.SHA_256, LeafEncoders.STRING);
+        for (int i = 0; i < larghezza; i++) lista.addAtTail("Dato " + i);
+        return new MerkleTree<>(lista);
+    }
+
+    @Test
+    void testCachedVerification() {
+        MerkleTree<String> albero = alberoDi(37);
+        VerifiedNodeCache cache = new VerifiedNodeCache(1000);
+        assertEquals(1000, cache.getCapacity());
+
+        for (int giro = 0; giro < 2; giro++) {
+            for (int i = 0; i < 37; i++) {
+                MerkleProof prova = albero.getMerkleProof(i);
+                assertTrue(prova.proveValidityOfData("Dato " + i, cache), "La prova della foglia " + i + " dovrebbe essere valida");
+                assertFalse(prova.proveValidityOfData("Dato " + (i + 1), cache), "Il dato alterato non dovrebbe essere valido");
+            }
+        }
+        assertTrue(cache.size() > 0 && cache.size() <= cache.getCapacity());
+
+        // Il cammino della foglia 1 raggiunge subito il padre già verificato
+        // delle foglie 0 e 1, quindi l'hash alterato più in alto non viene
+        // esaminato: il dato appartiene comunque all'albero
+        MerkleProof prova = albero.getMerkleProof(1);
+        ByteBuffer buffer = ByteBuffer.allocate(prova.encodedSize());
+        prova.encode(buffer);
+        buffer.put(buffer.limit() - 1, (byte) ~buffer.get(buffer.limit() - 1));
+        MerkleProof alterata = MerkleProof.decode(buffer.flip(), LeafEncoders.STRING);
+        assertFalse(alterata.proveValidityOfData("Dato 1"));
+        assertTrue(alterata.proveValidityOfData("Dato 1", cache));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertFalse(alterata.proveValidityOfData("Dato 1", cache), "Senza nodi verificati la prova non è valida");
+        // Una prova di un altro albero non usa i nodi verificati di questo
+        assertTrue(albero.getMerkleProof(0).proveValidityOfData("Dato 0", cache));
+        assertFalse(alberoDi(36).getMerkleProof(0).proveValidityOfData("Dato 1", cache));
+    }
+
+    @Test
+    void testEviction() {
+        MerkleTree<String> albero = alberoDi(100);
+        assertEquals(8, new VerifiedNodeCache(11).getCapacity(), "La capacità non deve superare quella indicata");
+        VerifiedNodeCache cache = new VerifiedNodeCache(4);
+        assertEquals(4, cache.getCapacity());
+
+        Random random = new Random(5);
+        for (int i = 0; i < 500; i++) {
+            int foglia = random.nextInt(100);
+            MerkleProof prova = albero.getMerkleProof(foglia);
+            assertTrue(prova.proveValidityOfData("Dato " + foglia, cache));
+            assertFalse(prova.proveValidityOfData("Dato " + (foglia + 1), cache));
+            assertTrue(cache.size() <= 4, "La cache non deve superare la propria capacità");
+        }
+    }
+
+    @Test
+    void testVerifierWithCache() {
+        MerkleTree<String> albero = alberoDi(200);
+        List<MerkleProof> prove = new ArrayList<>();
+        List<String> dati = new ArrayList<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 1000; i++) {
+            int foglia = random.nextInt(200);
+            prove.add(albero.getMerkleProof(foglia));
+            dati.add(random.nextInt(4) == 0 ? "Dato " + (foglia + 1) : "Dato " + foglia);
+        }
+        BitSet attesi = new MerkleProofVerifier().verify(prove, dati);
+
+        VerifiedNodeCache cache = new VerifiedNodeCache(256);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            MerkleProofVerifier verificatore = new MerkleProofVerifier(pool, 50, cache);
+            assertEquals(attesi, verificatore.verify(prove, dati));
+            // La seconda verifica trova i nodi già verificati
+            assertEquals(attesi, verificatore.verify(prove, dati));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void testInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> new VerifiedNodeCache(0));
+        assertThrows(IllegalArgumentException.class, () -> new VerifiedNodeCache(-4));
+        assertThrows(IllegalArgumentException.class, () -> new VerifiedNodeCache(1));
+        assertThrows(IllegalArgumentException.class, () -> new VerifiedNodeCache(3));
+
+        MerkleProof prova = alberoDi(4).getMerkleProof(0);
+        assertThrows(IllegalArgumentException.class, () -> prova.proveValidityOfData("Dato 0", null));
+        assertThrows(IllegalArgumentException.class, () -> prova.proveValidityOfData(null, new VerifiedNodeCache(8)));
+    }
+}
@@ -0,0 +1,139 @@
+/**
+ * Implementazione in Java puro della funzione di hash non crittografica
+ * xxHash64 (seme 0). L'hash di 8 byte viene scritto in formato big-endian,
+ * che corrisponde alla rappresentazione canonica dell'algoritmo.
+ *
+ * <p>
+ * xxHash64 è molto più veloce degli algoritmi crittografici, ma non offre
+ * alcuna garanzia contro collisioni costruite intenzionalmente.
+ */
+final class XXHash64Algorithm implements HashAlgorithm {
+
+    private static final long PRIME1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME3 = 0x165667B19E3779F9L;
+    private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME5 = 0x27D4EB2F165667C5L;
+
+    @Override
+    public String getName() {
+        return "XXH64";
+    }
+
+    @Override
+    public int getDigestLength() {
+        return 8;
+    }
+
+    @Override
+    public void hash(byte[] in, int off, int len, byte[] out, int outOff) {
+        if(out.length - outOff < 8)
+            throw new IllegalArgumentException("H: array di output troppo corto");
+
+        long h = hash64(in, off, len);
+        for(int i = 7; i >= 0; i--) {
+            out[outOff + i] = (byte) h;
+            h >>>= 8;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+
+    /**
+     * Calcola il valore xxHash64 di una porzione di array.
+     *
+     * @param in
+     *                l'array di byte di cui calcolare l'hash.
+     * @param off
+     *                la posizione del primo byte da considerare.
+     * @param len
+     *                il numero di byte da considerare.
+     * @return il valore a 64 bit dell'hash.
+     */
+    static long hash64(byte[] in, int off, int len) {
+        if(off < 0 || len < 0 || off + len > in.length)
+            throw new ArrayIndexOutOfBoundsException("H64: porzione non valida");
+
+        int p = off;
+        int fine = off + len;
+        long h;
+
+        if(len >= 32) {
+        	// Elaboro i blocchi da 32 byte con quattro accumulatori
+            long v1 = PRIME1 + PRIME2;
+            long v2 = PRIME2;
+            long v3 = 0;
+            long v4 = -PRIME1;
+            int limite = fine - 32;
+            do {
+                v1 = round(v1, readLong(in, p));
+                v2 = round(v2, readLong(in, p + 8));
+                v3 = round(v3, readLong(in, p + 16));
+                v4 = round(v4, readLong(in, p + 24));
+                p += 32;
+            } while(p <= limite);
+
+            h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+            h = mergeRound(h, v1);
+            h = mergeRound(h, v2);
+            h = mergeRound(h, v3);
+            h = mergeRound(h, v4);
+        }
+        else {
+            h = PRIME5;
+        }
+
+        h += len;
+
+        // Elaboro i byte rimanenti a gruppi di 8, 4 e 1
+        while(p + 8 <= fine) {
+            h ^= round(0, readLong(in, p));
+            h = Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+            p += 8;
+        }
+        if(p + 4 <= fine) {
+            h ^= (readInt(in, p) & 0xFFFFFFFFL) * PRIME1;
+            h = Long.rotateLeft(h, 23) * PRIME2 + PRIME3;
+            p += 4;
+        }
+        while(p < fine) {
+            h ^= (in[p] & 0xFFL) * PRIME5;
+            h = Long.rotateLeft(h, 11) * PRIME1;
+            p++;
+        }
+
+        // Mescolamento finale
+        h ^= h >>> 33;
+        h *= PRIME2;
+        h ^= h >>> 29;
+        h *= PRIME3;
+        h ^= h >>> 32;
+        return h;
+    }
+
+    private static long round(long acc, long input) {
+        acc += input * PRIME2;
+        acc = Long.rotateLeft(acc, 31);
+        return acc * PRIME1;
+    }
+
+    private static long mergeRound(long acc, long val) {
+        acc ^= round(0, val);
+        return acc * PRIME1 + PRIME4;
+    }
+
+    /* legge 8 byte in formato little-endian */
+    private static long readLong(byte[] in, int p) {
+        return (in[p] & 0xFFL) | (in[p + 1] & 0xFFL) << 8 | (in[p + 2] & 0xFFL) << 16
+                | (in[p + 3] & 0xFFL) << 24 | (in[p + 4] & 0xFFL) << 32 | (in[p + 5] & 0xFFL) << 40
+                | (in[p + 6] & 0xFFL) << 48 | (in[p + 7] & 0xFFL) << 56;
+    }
+
+    /* legge 4 byte in formato little-endian */
+    private static int readInt(byte[] in, int p) {
+        return (in[p] & 0xFF) | (in[p + 1] & 0xFF) << 8 | (in[p + 2] & 0xFF) << 16 | (in[p + 3] & 0xFF) << 24;
+    }
+}